@@ -0,0 +1,128 @@
+package android.example.com.Database;
+
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Time prefix searches of the full-text search index of 50,000 movies, on the SQLite of the
+ * device, as the user types.
+ * <p>Each search returns at most a screenful of results; it should take milliseconds. Results
+ * are reported by the benchmark library rather than asserted, so a loaded device cannot fail
+ * the build.</p>
+ */
+@RunWith(AndroidJUnit4.class)
+public class MovieSearchBenchmark {
+
+    private static final int MOVIES_PER_PAGE = 20;
+    private static final int PAGES = 2500; // 50,000 movies.
+    private static final int MAX_RESULTS = 100;
+
+    private static FavouritesDatabase sDatabase;
+    private static String[] sWords;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @BeforeClass
+    public static void setUpClass() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        sDatabase = Room.inMemoryDatabaseBuilder(context, FavouritesDatabase.class).build();
+
+        // Write movies a page at a time, as they are discovered, made of words from a
+        // vocabulary, so that common prefixes match many movies.
+        final Random random = new Random(1);
+        sWords = createWords(random, 2000);
+        final FavouritesDatabase.CatalogueDAO catalogue = sDatabase.catalogueDAO();
+        sDatabase.runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                int identifier = 1;
+                for(int page = 1; page <= PAGES; page++) {
+                    ArrayList<Movie> movies = new ArrayList<>(MOVIES_PER_PAGE);
+                    for(int position = 0; position < MOVIES_PER_PAGE; position++, identifier++)
+                        movies.add(new Movie(identifier, createText(random, sWords, 3), "/" + identifier + ".jpg",
+                                createText(random, sWords, 30), random.nextDouble() * 10, 1950 + random.nextInt(70)));
+                    catalogue.updatePage(true, page, PAGES, System.currentTimeMillis(), movies);
+                }
+            }
+        });
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        sDatabase.close();
+    }
+
+    /**
+     * Search repeatedly for text, as long as the benchmark library asks.
+     */
+    private void benchmarkSearch(String text) {
+        FavouritesDatabase.MovieSearchDAO search = sDatabase.movieSearchDAO();
+        BenchmarkState state = mBenchmarkRule.getState();
+        while(state.keepRunning())
+            search.search(text, MAX_RESULTS);
+    }
+
+    @Test
+    public void search_twoLetterPrefix() {
+        benchmarkSearch(sWords[0].substring(0, 2));
+    }
+
+    @Test
+    public void search_word() {
+        benchmarkSearch(sWords[1]);
+    }
+
+    @Test
+    public void search_twoPrefixes() {
+        benchmarkSearch(sWords[2].substring(0, 3) + " " + sWords[3].substring(0, 2));
+    }
+
+    @Test
+    public void search_noMatch() {
+        benchmarkSearch("zzzzzz");
+    }
+
+    /**
+     * Create vocabulary of random lower case words.
+     */
+    private static String[] createWords(Random random, int count) {
+        String[] words = new String[count];
+        for(int i = 0; i < count; i++) {
+            char[] word = new char[3 + random.nextInt(7)];
+            for(int j = 0; j < word.length; j++)
+                word[j] = (char)('a' + random.nextInt(26));
+            words[i] = new String(word);
+        }
+
+        return words;
+    }
+
+    /**
+     * Create text of random words from vocabulary.
+     */
+    private static String createText(Random random, String[] words, int count) {
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i < count; i++) {
+            if(i > 0)
+                text.append(' ');
+            text.append(words[random.nextInt(words.length)]);
+        }
+
+        return text.toString();
+    }
+}
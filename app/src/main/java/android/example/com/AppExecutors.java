@@ -18,46 +18,67 @@ package android.example.com;
 
 import android.os.Handler;
 import android.os.Looper;
+import android.os.Process;
 
 
 import androidx.annotation.NonNull;
 
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Global executor pools for the whole application.
  * <p>
  * Grouping tasks like this avoids the effects of task starvation (e.g. disk reads don't wait behind
  * webservice requests).
+ * <p>
+ * Background executors run tasks in order of priority from bounded queues, on named threads at
+ * background priority, and record metrics, which can be read with {@link PriorityExecutor#getMetrics()}.
  */
 public class AppExecutors {
 
+    private static final int DISK_IO_THREADS = 1;
+    private static final int DISK_IO_CAPACITY = 64;
+    private static final int NETWORK_IO_THREADS = 3;
+    private static final int NETWORK_IO_CAPACITY = 64;
+    private static final int COMPUTATION_THREADS = 1;
+    private static final int COMPUTATION_CAPACITY = 16;
+
     // For Singleton instantiation
     private static final Object LOCK = new Object();
-    private static AppExecutors sInstance;
-    private final Executor diskIO;
+    private static volatile AppExecutors sInstance;
+    private final PriorityExecutor diskIO;
     private final Executor mainThread;
-    private final Executor networkIO;
+    private final PriorityExecutor networkIO;
+    private final PriorityExecutor computation;
 
-    private AppExecutors(Executor diskIO, Executor networkIO, Executor mainThread) {
+    private AppExecutors(PriorityExecutor diskIO, PriorityExecutor networkIO, PriorityExecutor computation, Executor mainThread) {
         this.diskIO = diskIO;
         this.networkIO = networkIO;
+        this.computation = computation;
         this.mainThread = mainThread;
     }
 
     public static AppExecutors getInstance() {
         if (sInstance == null) {
             synchronized (LOCK) {
-                sInstance = new AppExecutors(Executors.newSingleThreadExecutor(),
-                        Executors.newFixedThreadPool(3),
-                        new MainThreadExecutor());
+                if (sInstance == null) {
+                    sInstance = new AppExecutors(
+                            new PriorityExecutor("diskIO", DISK_IO_THREADS, DISK_IO_CAPACITY, new BackgroundThreadFactory("diskIO")),
+                            new PriorityExecutor("networkIO", NETWORK_IO_THREADS, NETWORK_IO_CAPACITY, new BackgroundThreadFactory("networkIO")),
+                            new PriorityExecutor("computation", COMPUTATION_THREADS, COMPUTATION_CAPACITY, new BackgroundThreadFactory("computation")),
+                            new MainThreadExecutor());
+                    sInstance.diskIO.registerGauges(PerformanceMetrics.getInstance());
+                    sInstance.networkIO.registerGauges(PerformanceMetrics.getInstance());
+                    sInstance.computation.registerGauges(PerformanceMetrics.getInstance());
+                }
             }
         }
         return sInstance;
     }
 
-    public Executor diskIO() {
+    public PriorityExecutor diskIO() {
         return diskIO;
     }
 
@@ -65,10 +86,18 @@ public class AppExecutors {
         return mainThread;
     }
 
-    public Executor networkIO() {
+    public PriorityExecutor networkIO() {
         return networkIO;
     }
 
+    /**
+     * Executor for work that only uses the processor, e.g. diffing lists, so it waits behind
+     * neither the disk nor the network.
+     */
+    public PriorityExecutor computation() {
+        return computation;
+    }
+
     private static class MainThreadExecutor implements Executor {
         private Handler mainThreadHandler = new Handler(Looper.getMainLooper());
 
@@ -77,4 +106,28 @@ public class AppExecutors {
             mainThreadHandler.post(command);
         }
     }
+
+    /**
+     * Creates threads named after their executor, which run at background priority, so they
+     * do not compete with the main user interface thread.
+     */
+    private static class BackgroundThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        BackgroundThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, name + "-" + count.incrementAndGet());
+        }
+    }
 }
@@ -0,0 +1,338 @@
+package android.example.com;
+
+import android.example.com.Database.CatalogueEntry;
+import android.example.com.Database.Movie;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Compact, versioned binary snapshot of a list of movies last displayed, e.g. the first pages
+ * of discovered movies, so they can be displayed at startup before the network or database
+ * are touched.
+ * <p>The snapshot is a header, then a fixed-width record for each movie, holding its ID,
+ * release year and rating, and the offsets of its title, image path and overview in a table
+ * of strings that follows, in which each distinct string appears once:</p>
+ * <pre>
+ * Header:  magic (int), version (int), number of movies (int), offset of strings (int)
+ * Movie:   ID (int), release year (int), rating (double), title, image path, overview (int)
+ * Strings: length in bytes (int), UTF-8 bytes; a string offset of -1 is null
+ * </pre>
+ * <p>Reading a snapshot maps the file into memory and checks it, but decodes no strings: each
+ * is decoded from the mapped file the first time it is asked for, so displaying a screenful
+ * of movies decodes just their image paths.</p>
+ * <p>A {@link Writer} rewrites a snapshot only when its movies have changed.</p>
+ */
+public class CatalogueSnapshot {
+
+    private static final int MAGIC = 0x504D4353; // "PMCS"
+    /**
+     * Version of format, which is increased whenever it changes, so older snapshots are
+     * ignored.
+     */
+    public static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 28;
+    private static final int NO_STRING = -1;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer mBuffer;
+    private final int mStringsOffset;
+    private final List<Movie> mMovies;
+
+    /**
+     * Constructor.
+     * @param buffer Snapshot, already checked.
+     * @param count Number of movies.
+     * @param stringsOffset Offset of table of strings.
+     */
+    private CatalogueSnapshot(ByteBuffer buffer, int count, int stringsOffset)
+    {
+        mBuffer = buffer;
+        mStringsOffset = stringsOffset;
+
+        ArrayList<Movie> movies = new ArrayList<>(count);
+        for(int index = 0; index < count; index++)
+            movies.add(new SnapshotMovie(this, HEADER_SIZE + (index * RECORD_SIZE)));
+        mMovies = Collections.unmodifiableList(movies);
+    }
+
+    /**
+     * Get movies of snapshot, in order, whose strings are decoded as they are first asked for.
+     * @return Movies; read only.
+     */
+    public List<Movie> getMovies() {
+        return mMovies;
+    }
+
+    /**
+     * Read snapshot from file, by mapping it into memory.
+     * @param file File of snapshot.
+     * @return Snapshot, or null if there is none, or it is of another version or corrupt.
+     */
+    public static CatalogueSnapshot read(File file) {
+        if(!file.isFile())
+            return null;
+
+        try {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            try {
+                // Mapping stays valid after file is closed.
+                FileChannel channel = randomAccessFile.getChannel();
+                return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } finally {
+                randomAccessFile.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Read snapshot from buffer, checking its header and every string offset and length, but
+     * decoding no strings.
+     * @param buffer Snapshot, from position 0; not to be changed afterwards.
+     * @return Snapshot, or null if of another version or corrupt.
+     */
+    public static CatalogueSnapshot read(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        if((limit < HEADER_SIZE) || (buffer.getInt(0) != MAGIC) || (buffer.getInt(4) != VERSION))
+            return null;
+
+        int count = buffer.getInt(8);
+        int stringsOffset = buffer.getInt(12);
+        if((count < 0) || (count > (limit - HEADER_SIZE) / RECORD_SIZE) || (stringsOffset != HEADER_SIZE + (count * RECORD_SIZE)))
+            return null;
+
+        for(int record = HEADER_SIZE; record < stringsOffset; record += RECORD_SIZE) {
+            for(int field = record + 16; field < record + RECORD_SIZE; field += 4) {
+                int offset = buffer.getInt(field);
+                if(offset == NO_STRING)
+                    continue;
+                if((offset < 0) || (offset > limit - stringsOffset - 4))
+                    return null;
+                int length = buffer.getInt(stringsOffset + offset);
+                if((length < 0) || (length > limit - stringsOffset - offset - 4))
+                    return null;
+            }
+        }
+
+        return new CatalogueSnapshot(buffer, count, stringsOffset);
+    }
+
+    /**
+     * Write snapshot of movies to file, replacing it in one step, so that it is never read
+     * part written.
+     * <p>Run on background thread.</p>
+     * @param file File of snapshot.
+     * @param movies Movies.
+     * @throws IOException If file cannot be written.
+     */
+    public static void write(File file, List<Movie> movies) throws IOException {
+        ByteBuffer buffer = encode(movies);
+
+        File temporary = new File(file.getPath() + ".tmp");
+        FileOutputStream stream = new FileOutputStream(temporary);
+        try {
+            stream.write(buffer.array(), 0, buffer.limit());
+            stream.getFD().sync();
+        } finally {
+            stream.close();
+        }
+
+        if(!temporary.renameTo(file)) {
+            temporary.delete();
+            throw new IOException("Cannot replace " + file);
+        }
+    }
+
+    /**
+     * Writer of snapshot to file, which remembers the IDs and hashes of content of the movies
+     * it last wrote, or found already written, and skips writing, and syncing to disk, when
+     * they are unchanged.
+     * <p>Thread safe, though meant to be used on one background thread.</p>
+     */
+    public static class Writer {
+        private final File mFile;
+        // Of movies in file, or null until known.
+        private int[] mIdentifiers;
+        private long[] mContentHashes;
+
+        /**
+         * Constructor.
+         * @param file File of snapshot.
+         */
+        public Writer(File file) {
+            mFile = file;
+        }
+
+        /**
+         * Write snapshot of movies to file, unless it already holds the same movies.
+         * <p>The first time, movies already in the file, if any, are read to compare with.</p>
+         * <p>Run on background thread.</p>
+         * @param movies Movies.
+         * @return Whether snapshot was written.
+         * @throws IOException If file cannot be written.
+         */
+        public synchronized boolean write(List<Movie> movies) throws IOException {
+            int[] identifiers = new int[movies.size()];
+            long[] contentHashes = new long[movies.size()];
+            hash(movies, identifiers, contentHashes);
+
+            if(mIdentifiers == null) {
+                CatalogueSnapshot written = read(mFile);
+                if(written != null) {
+                    List<Movie> writtenMovies = written.getMovies();
+                    mIdentifiers = new int[writtenMovies.size()];
+                    mContentHashes = new long[writtenMovies.size()];
+                    hash(writtenMovies, mIdentifiers, mContentHashes);
+                }
+            }
+            if(Arrays.equals(identifiers, mIdentifiers) && Arrays.equals(contentHashes, mContentHashes))
+                return false;
+
+            // Forget what was written until written again, in case writing fails part way.
+            mIdentifiers = null;
+            mContentHashes = null;
+            CatalogueSnapshot.write(mFile, movies);
+            mIdentifiers = identifiers;
+            mContentHashes = contentHashes;
+            return true;
+        }
+
+        /**
+         * Get IDs and hashes of content of movies.
+         * @param movies Movies.
+         * @param identifiers IDs of movies, filled in.
+         * @param contentHashes Hashes of content of movies, filled in.
+         */
+        private static void hash(List<Movie> movies, int[] identifiers, long[] contentHashes) {
+            for(int index = 0; index < movies.size(); index++) {
+                Movie movie = movies.get(index);
+                identifiers[index] = movie.getIdentifier();
+                contentHashes[index] = CatalogueEntry.hashContent(movie);
+            }
+        }
+    }
+
+    /**
+     * Encode snapshot of movies.
+     * @param movies Movies.
+     * @return Snapshot, from position 0 to limit.
+     */
+    public static ByteBuffer encode(List<Movie> movies) {
+        // Lay out table of strings first, each distinct string once, e.g. a title repeated
+        // in both lists of discovered movies.
+        HashMap<String, Integer> offsets = new HashMap<>();
+        ArrayList<byte[]> strings = new ArrayList<>();
+        int[] fields = new int[movies.size() * 3];
+        int stringsSize = 0;
+        for(int index = 0; index < movies.size(); index++) {
+            Movie movie = movies.get(index);
+            String[] values = { movie.getTitle(), movie.getImagePath(), movie.getOverview() };
+            for(int field = 0; field < values.length; field++) {
+                String value = values[field];
+                Integer offset = (value == null) ? Integer.valueOf(NO_STRING) : offsets.get(value);
+                if(offset == null) {
+                    byte[] bytes = value.getBytes(UTF_8);
+                    offset = stringsSize;
+                    offsets.put(value, offset);
+                    strings.add(bytes);
+                    stringsSize += 4 + bytes.length;
+                }
+                fields[(index * 3) + field] = offset;
+            }
+        }
+
+        int stringsOffset = HEADER_SIZE + (movies.size() * RECORD_SIZE);
+        ByteBuffer buffer = ByteBuffer.allocate(stringsOffset + stringsSize);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(movies.size()).putInt(stringsOffset);
+        for(int index = 0; index < movies.size(); index++) {
+            Movie movie = movies.get(index);
+            buffer.putInt(movie.getIdentifier())
+                    .putInt(movie.getReleaseYear())
+                    .putDouble(movie.getRating())
+                    .putInt(fields[index * 3])
+                    .putInt(fields[(index * 3) + 1])
+                    .putInt(fields[(index * 3) + 2]);
+        }
+        for(byte[] bytes: strings)
+            buffer.putInt(bytes.length).put(bytes);
+
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Decode string from table of strings.
+     * <p>The shared buffer is never moved, so movies can be decoded on several threads at
+     * once, e.g. while the list is diffed in the background.</p>
+     * @param field Position of offset of string in record.
+     * @return String, or null if none.
+     */
+    private String decodeString(int field) {
+        int offset = mBuffer.getInt(field);
+        if(offset == NO_STRING)
+            return null;
+
+        int position = mStringsOffset + offset;
+        byte[] bytes = new byte[mBuffer.getInt(position)];
+        ByteBuffer string = mBuffer.duplicate();
+        string.position(position + 4);
+        string.get(bytes);
+
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Movie of snapshot, whose fixed-width fields are read straight away and whose strings
+     * are decoded the first time they are asked for.
+     */
+    private static class SnapshotMovie extends Movie {
+        private final CatalogueSnapshot mSnapshot;
+        private final int mRecord;
+        private volatile String mTitle;
+        private volatile String mImagePath;
+        private volatile String mOverview;
+
+        SnapshotMovie(CatalogueSnapshot snapshot, int record) {
+            super(snapshot.mBuffer.getInt(record), null, null, null, snapshot.mBuffer.getDouble(record + 8), snapshot.mBuffer.getInt(record + 4));
+            mSnapshot = snapshot;
+            mRecord = record;
+        }
+
+        @Override
+        public String getTitle() {
+            if(mTitle == null)
+                mTitle = mSnapshot.decodeString(mRecord + 16);
+            return mTitle;
+        }
+
+        @Override
+        public String getImagePath() {
+            if(mImagePath == null)
+                mImagePath = mSnapshot.decodeString(mRecord + 20);
+            return mImagePath;
+        }
+
+        @Override
+        public String getOverview() {
+            if(mOverview == null)
+                mOverview = mSnapshot.decodeString(mRecord + 24);
+            return mOverview;
+        }
+    }
+}
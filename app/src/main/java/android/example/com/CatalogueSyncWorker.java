@@ -0,0 +1,102 @@
+package android.example.com;
+
+import android.content.Context;
+import android.example.com.Database.CataloguePage;
+import android.example.com.Database.FavouritesDatabase;
+import android.example.com.Database.Movie;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job refreshing the first pages of discovered movies, most popular and highest
+ * rated, in the catalogue, so that they are usually fresh when the app is opened, rather
+ * than fetched while the user waits.
+ * <p>It runs periodically, only on an unmetered network and, where supported, while the
+ * device is idle. Just the movies that changed are written to the catalogue.</p>
+ */
+public class CatalogueSyncWorker extends Worker {
+
+    private static final String UNIQUE_WORK_NAME = "catalogue_sync";
+
+    private static final PerformanceMetrics.Counter PAGES_SYNCED = PerformanceMetrics.getInstance().counter("sync.pages");
+    private static final PerformanceMetrics.Counter ENTRIES_WRITTEN = PerformanceMetrics.getInstance().counter("sync.entries_written");
+
+    /**
+     * Schedule job, unless already scheduled, e.g. at every startup.
+     * <p>An existing schedule is kept, so the interval is not restarted each time.</p>
+     * @param context Context within which to schedule job.
+     */
+    public static void schedule(Context context) {
+        int intervalMinutes = context.getResources().getInteger(R.integer.catalogue_sync_interval_minutes);
+
+        Constraints.Builder constraints = new Constraints.Builder().setRequiredNetworkType(NetworkType.UNMETERED);
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.M)
+            constraints.setRequiresDeviceIdle(true);
+
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(CatalogueSyncWorker.class, intervalMinutes, TimeUnit.MINUTES)
+                .setConstraints(constraints.build())
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(UNIQUE_WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Constructor.
+     * @param context Application context.
+     * @param workerParams Parameters of job.
+     */
+    public CatalogueSyncWorker(@NonNull Context context, @NonNull WorkerParameters workerParams)
+    {
+        super(context, workerParams);
+    }
+
+    /**
+     * Fetch first pages of each list, skipping any fetched recently, e.g. while the app was
+     * open, and write the movies that changed to the catalogue.
+     * <p>Run on background thread, by WorkManager.</p>
+     * @return Success, or retry if a page could not be fetched.
+     */
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        MoviesHttpClient httpClient = MoviesHttpClient.getInstance(context);
+        FavouritesDatabase.CatalogueDAO catalogue = FavouritesDatabase.getInstance(context).catalogueDAO();
+        int pages = context.getResources().getInteger(R.integer.catalogue_sync_pages);
+        long recentMillis = TimeUnit.MINUTES.toMillis(context.getResources().getInteger(R.integer.catalogue_sync_interval_minutes)) / 2;
+
+        for(boolean mostPopular: new boolean[] { true, false }) {
+            for(int number = 1; (number <= pages) && !isStopped(); number++) {
+                long now = System.currentTimeMillis();
+                CataloguePage stored = catalogue.loadPage(mostPopular, number);
+                if((stored != null) && (now - stored.getFetchedAt() >= 0) && (now - stored.getFetchedAt() < recentMillis))
+                    continue;
+
+                ResultsPage<Movie> page;
+                try {
+                    page = httpClient.get(Utils.CreateDiscoverMoviesURL(mostPopular, number), false, DiscoverMoviesPager.PAGE_PARSER).getData();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    return Result.retry();
+                }
+
+                ENTRIES_WRITTEN.add(catalogue.updatePage(mostPopular, number, page.getTotalPages(), now, page.getResults()));
+                PAGES_SYNCED.increment();
+                if(number >= page.getTotalPages())
+                    break;
+            }
+        }
+
+        return Result.success();
+    }
+}
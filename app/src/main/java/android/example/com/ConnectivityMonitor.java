@@ -0,0 +1,112 @@
+package android.example.com;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Keeps track of whether a network connection is available; a singleton.
+ * <p>State is updated by the system as the network changes, so checking it is immediate,
+ * with no I/O, unlike probing a server before each request.</p>
+ */
+public class ConnectivityMonitor {
+
+    private final static Object LOCK = new Object();
+
+    private static volatile ConnectivityMonitor mInstance = null;
+
+    /**
+     * Implement singleton, creating single instance of connectivity monitor, if not created,
+     * or simply retrieving previously created instance.
+     * @param context Context within which to monitor connectivity, if necessary.
+     * @return Connectivity monitor.
+     */
+    public static ConnectivityMonitor getInstance(Context context) {
+        if (mInstance == null) {
+            synchronized (LOCK) {
+                if (mInstance == null)
+                    mInstance = new ConnectivityMonitor(context.getApplicationContext());
+            }
+        }
+
+        return mInstance;
+    }
+
+    private volatile boolean mOnline;
+
+    /**
+     * Constructor: take initial state and register for changes for lifetime of app.
+     * @param context Application context.
+     */
+    private ConnectivityMonitor(Context context) {
+        ConnectivityManager connectivityManager = (ConnectivityManager)context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if(connectivityManager == null) {
+            mOnline = true; // Cannot tell, so let requests try.
+            return;
+        }
+
+        NetworkInfo activeNetwork = connectivityManager.getActiveNetworkInfo();
+        mOnline = (activeNetwork != null) && activeNetwork.isConnected();
+
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.N)
+            this.registerNetworkCallback(connectivityManager);
+        else
+            this.registerReceiver(context, connectivityManager);
+    }
+
+    /**
+     * Track default network by callback (API 24+).
+     * @param connectivityManager Connectivity manager.
+     */
+    @SuppressWarnings("NewApi")
+    private void registerNetworkCallback(ConnectivityManager connectivityManager) {
+        connectivityManager.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities capabilities) {
+                mOnline = capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+            }
+
+            @Override
+            public void onAvailable(@NonNull Network network) {
+                mOnline = true;
+            }
+
+            @Override
+            public void onLost(@NonNull Network network) {
+                mOnline = false;
+            }
+        });
+    }
+
+    /**
+     * Track active network by connectivity broadcast (before API 24).
+     * @param context Application context.
+     * @param connectivityManager Connectivity manager.
+     */
+    @SuppressWarnings("deprecation")
+    private void registerReceiver(Context context, final ConnectivityManager connectivityManager) {
+        context.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                NetworkInfo activeNetwork = connectivityManager.getActiveNetworkInfo();
+                mOnline = (activeNetwork != null) && activeNetwork.isConnected();
+            }
+        }, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+    }
+
+    /**
+     * Check if network is available, without any I/O.
+     * @return True if available, otherwise false.
+     */
+    public boolean isOnline() {
+        return mOnline;
+    }
+}
@@ -0,0 +1,134 @@
+package android.example.com.Database;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Embedded;
+import androidx.room.Entity;
+import androidx.room.RoomWarnings;
+
+/**
+ * Class represents a movie discovered using the Movie DB API, at its position on a page of
+ * most popular or highest rated movies, kept so that discovered movies can be shown straight
+ * from disk.
+ * <p>Each entry keeps a hash of the content of its movie, so that a page fetched again can be
+ * compared with the one stored, and just the entries that changed written. When the page was
+ * fetched is kept in its {@link CataloguePage}.</p>
+ * <p>The primary key of the embedded movie is dropped on purpose, as a movie may be on
+ * several pages.</p>
+ */
+@SuppressWarnings(RoomWarnings.PRIMARY_KEY_FROM_EMBEDDED_IS_DROPPED)
+@Entity(tableName = "Catalogue", primaryKeys = {"MostPopular", "Page", "Position"})
+public class CatalogueEntry {
+
+    /**
+     * Constructor.
+     * @param mostPopular Whether movie was discovered as most popular (true) or highest rated (false).
+     * @param page Number of page on which movie was discovered, starting from 1.
+     * @param position Position of movie on page, starting from 0.
+     * @param contentHash Hash of content of movie.
+     * @param movie Discovered movie.
+     */
+    public CatalogueEntry(boolean mostPopular, int page, int position, long contentHash, @NonNull Movie movie)
+    {
+        mMostPopular = mostPopular;
+        mPage = page;
+        mPosition = position;
+        mContentHash = contentHash;
+        mMovie = movie;
+    }
+
+    /**
+     * Hash content of movie, i.e. everything displayed of it, using 64-bit FNV-1a, so that
+     * a change to a movie is all but certain to change its hash.
+     * @param movie Movie.
+     * @return Hash, never 0, which marks entries stored before hashes were kept.
+     */
+    public static long hashContent(Movie movie) {
+        long hash = 0xcbf29ce484222325L;
+        hash = hashLong(hash, movie.getIdentifier());
+        hash = hashString(hash, movie.getTitle());
+        hash = hashString(hash, movie.getImagePath());
+        hash = hashString(hash, movie.getOverview());
+        hash = hashLong(hash, Double.doubleToLongBits(movie.getRating()));
+        hash = hashLong(hash, movie.getReleaseYear());
+
+        return (hash == 0) ? 1 : hash;
+    }
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static long hashLong(long hash, long value) {
+        for(int shift = 0; shift < 64; shift += 8)
+            hash = (hash ^ ((value >>> shift) & 0xff)) * FNV_PRIME;
+        return hash;
+    }
+
+    private static long hashString(long hash, String value) {
+        if(value == null)
+            return hashLong(hash, -1);
+
+        hash = hashLong(hash, value.length()); // So adjoining strings cannot run together.
+        for(int index = 0; index < value.length(); index++) {
+            char c = value.charAt(index);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    @ColumnInfo(name = "MostPopular")
+    private boolean mMostPopular;
+    /**
+     * Find out whether movie was discovered as most popular or highest rated.
+     * @return Whether most popular (true) or highest rated (false).
+     */
+    public boolean getMostPopular()
+    {
+        return mMostPopular;
+    }
+
+    @ColumnInfo(name = "Page")
+    private int mPage;
+    /**
+     * Get number of page on which movie was discovered.
+     * @return Number of page, starting from 1.
+     */
+    public int getPage()
+    {
+        return mPage;
+    }
+
+    @ColumnInfo(name = "Position")
+    private int mPosition;
+    /**
+     * Get position of movie on page.
+     * @return Position, starting from 0.
+     */
+    public int getPosition()
+    {
+        return mPosition;
+    }
+
+    @ColumnInfo(name = "ContentHash", defaultValue = "0")
+    private long mContentHash;
+    /**
+     * Get hash of content of movie, as computed by {@link #hashContent(Movie)}.
+     * @return Hash, or 0 if stored before hashes were kept.
+     */
+    public long getContentHash()
+    {
+        return mContentHash;
+    }
+
+    @Embedded
+    @NonNull
+    private Movie mMovie;
+    /**
+     * Get discovered movie.
+     * @return Discovered movie.
+     */
+    public Movie getMovie()
+    {
+        return mMovie;
+    }
+}
@@ -0,0 +1,74 @@
+package android.example.com.Database;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+
+/**
+ * Class represents a page of most popular or highest rated movies in the catalogue: when it
+ * was last fetched and how many pages there were then.
+ * <p>Kept apart from the movies on the page, so that marking a page fetched again, with no
+ * movie changed, is a single small write to a table that readers of the movies do not
+ * observe.</p>
+ */
+@Entity(tableName = "CataloguePage", primaryKeys = {"MostPopular", "Page"})
+public class CataloguePage {
+
+    /**
+     * Constructor.
+     * @param mostPopular Whether page is of most popular (true) or highest rated (false) movies.
+     * @param page Number of page, starting from 1.
+     * @param totalPages Total number of pages available when page was fetched.
+     * @param fetchedAt Time page was fetched, in milliseconds since the epoch.
+     */
+    public CataloguePage(boolean mostPopular, int page, int totalPages, long fetchedAt)
+    {
+        mMostPopular = mostPopular;
+        mPage = page;
+        mTotalPages = totalPages;
+        mFetchedAt = fetchedAt;
+    }
+
+    @ColumnInfo(name = "MostPopular")
+    private boolean mMostPopular;
+    /**
+     * Find out whether page is of most popular or highest rated movies.
+     * @return Whether most popular (true) or highest rated (false).
+     */
+    public boolean getMostPopular()
+    {
+        return mMostPopular;
+    }
+
+    @ColumnInfo(name = "Page")
+    private int mPage;
+    /**
+     * Get number of page.
+     * @return Number of page, starting from 1.
+     */
+    public int getPage()
+    {
+        return mPage;
+    }
+
+    @ColumnInfo(name = "TotalPages")
+    private int mTotalPages;
+    /**
+     * Get total number of pages available when page was fetched.
+     * @return Total number of pages.
+     */
+    public int getTotalPages()
+    {
+        return mTotalPages;
+    }
+
+    @ColumnInfo(name = "FetchedAt")
+    private long mFetchedAt;
+    /**
+     * Get time page was fetched.
+     * @return Time in milliseconds since the epoch.
+     */
+    public long getFetchedAt()
+    {
+        return mFetchedAt;
+    }
+}
@@ -1,27 +1,112 @@
 package android.example.com.Database;
 
 import android.content.Context;
+import android.database.Cursor;
+import android.example.com.PerformanceMetrics;
 
 import androidx.lifecycle.LiveData;
+import androidx.room.ColumnInfo;
 import androidx.room.Dao;
 import androidx.room.Database;
 import androidx.room.Delete;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.Transaction;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 
 /**
- * Favourites database; a singleton.
+ * Favourites database, which also holds the catalogue of discovered movies and a full-text
+ * search index of every movie seen; a singleton.
  */
-@Database(entities = {Movie.class}, version = 1, exportSchema = false)
+@Database(entities = {Movie.class, CatalogueEntry.class, CataloguePage.class, MovieSearch.class}, version = 4, exportSchema = false)
 public abstract class FavouritesDatabase extends RoomDatabase {
 
     private final static String DATABASE_NAME = "Favourites";
     private final static Object LOCK = new Object();
 
-    private static FavouritesDatabase mInstance = null;
+    private static volatile FavouritesDatabase mInstance = null;
+
+    /**
+     * Times of calls to the favourites DAO, wherever they are made.
+     */
+    public static final PerformanceMetrics.Histogram FAVOURITES_DAO_TIMES = PerformanceMetrics.getInstance().histogram("db.favourites");
+
+    /**
+     * Version 2 adds catalogue of discovered movies, leaving favourites untouched.
+     */
+    private static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `Catalogue` ("
+                    + "`MostPopular` INTEGER NOT NULL, `Page` INTEGER NOT NULL, `Position` INTEGER NOT NULL, "
+                    + "`TotalPages` INTEGER NOT NULL, `FetchedAt` INTEGER NOT NULL, "
+                    + "`Identifier` INTEGER NOT NULL, `Title` TEXT, `ImagePath` TEXT, `Overview` TEXT, "
+                    + "`Rating` REAL NOT NULL, `ReleaseYear` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`MostPopular`, `Page`, `Position`))");
+        }
+    };
+
+    /**
+     * Version 3 adds full-text search index of movies, filled with every movie already in the
+     * favourites or catalogue.
+     */
+    private static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `MovieSearch` USING FTS4("
+                    + "`Title` TEXT, `ImagePath` TEXT, `Overview` TEXT, "
+                    + "`Rating` REAL NOT NULL, `ReleaseYear` INTEGER NOT NULL)");
+            database.execSQL("INSERT INTO MovieSearch (rowid, Title, ImagePath, Overview, Rating, ReleaseYear) "
+                    + "SELECT Identifier, Title, ImagePath, Overview, Rating, ReleaseYear FROM Movies");
+            database.execSQL("INSERT INTO MovieSearch (rowid, Title, ImagePath, Overview, Rating, ReleaseYear) "
+                    + "SELECT Identifier, Title, ImagePath, Overview, Rating, ReleaseYear FROM Catalogue "
+                    + "WHERE Identifier NOT IN (SELECT Identifier FROM Movies) GROUP BY Identifier");
+        }
+    };
+
+    /**
+     * Version 4 adds a hash of the content of each movie in the catalogue, so that pages
+     * fetched again only write the movies that changed, and moves when each page was fetched,
+     * and how many pages there were, from every movie on the page to a table of pages, so that
+     * a page fetched again with no movie changed does not rewrite the movies. Movies already
+     * there have no hash, so they are all written the next time they are fetched. SQLite
+     * cannot drop columns, so the catalogue is copied to a new table without them.
+     */
+    private static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `CataloguePage` ("
+                    + "`MostPopular` INTEGER NOT NULL, `Page` INTEGER NOT NULL, "
+                    + "`TotalPages` INTEGER NOT NULL, `FetchedAt` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`MostPopular`, `Page`))");
+            database.execSQL("INSERT INTO CataloguePage (MostPopular, Page, TotalPages, FetchedAt) "
+                    + "SELECT MostPopular, Page, MAX(TotalPages), MAX(FetchedAt) FROM Catalogue GROUP BY MostPopular, Page");
+
+            database.execSQL("CREATE TABLE IF NOT EXISTS `Catalogue_new` ("
+                    + "`MostPopular` INTEGER NOT NULL, `Page` INTEGER NOT NULL, `Position` INTEGER NOT NULL, "
+                    + "`ContentHash` INTEGER NOT NULL DEFAULT 0, "
+                    + "`Identifier` INTEGER NOT NULL, `Title` TEXT, `ImagePath` TEXT, `Overview` TEXT, "
+                    + "`Rating` REAL NOT NULL, `ReleaseYear` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`MostPopular`, `Page`, `Position`))");
+            database.execSQL("INSERT INTO Catalogue_new (MostPopular, Page, Position, Identifier, Title, ImagePath, Overview, Rating, ReleaseYear) "
+                    + "SELECT MostPopular, Page, Position, Identifier, Title, ImagePath, Overview, Rating, ReleaseYear FROM Catalogue");
+            database.execSQL("DROP TABLE Catalogue");
+            database.execSQL("ALTER TABLE Catalogue_new RENAME TO Catalogue");
+        }
+    };
+
+    /**
+     * Migrations from every earlier version to the latest, in order.
+     */
+    static final Migration[] MIGRATIONS = { MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4 };
 
     /**
      * Implement singleton, creating single instance of favourites database, if not created,
@@ -32,7 +117,11 @@ public abstract class FavouritesDatabase extends RoomDatabase {
     public static FavouritesDatabase getInstance(Context context) {
         if (mInstance == null) {
             synchronized (LOCK) {
-                mInstance = Room.databaseBuilder(context.getApplicationContext(), FavouritesDatabase.class, FavouritesDatabase.DATABASE_NAME).build();
+                if (mInstance == null) {
+                    mInstance = Room.databaseBuilder(context.getApplicationContext(), FavouritesDatabase.class, FavouritesDatabase.DATABASE_NAME)
+                            .addMigrations(MIGRATIONS)
+                            .build();
+                }
             }
         }
 
@@ -40,17 +129,17 @@ public abstract class FavouritesDatabase extends RoomDatabase {
     }
 
     /**
-     * Room DAO interface.
+     * Room DAO for favourites.
      */
     @Dao
-    public interface FavouritesDAO {
+    public abstract static class FavouritesDAO {
 
         /**
          * Get all favourite movies.
          * @return List of favourite movies.
          */
         @Query("SELECT * FROM Movies ORDER BY Title")
-        LiveData<List<Movie>> load();
+        public abstract LiveData<List<Movie>> load();
 
         /**
          * Find out whether movie specified by id is a favourite, i.e. does it exist?
@@ -58,21 +147,317 @@ public abstract class FavouritesDatabase extends RoomDatabase {
          * @return Whether movie is a favourite.
          */
         @Query("SELECT COUNT(identifier) FROM Movies WHERE identifier = :identifierToCheck")
-        boolean isFavourite(int identifierToCheck);
+        public abstract boolean isFavourite(int identifierToCheck);
+
+        /**
+         * Query IDs of all favourite movies, so they can be read without boxing each.
+         * <p>Run on background thread. The caller closes the cursor.</p>
+         * @return Cursor of IDs.
+         */
+        @Query("SELECT Identifier FROM Movies")
+        public abstract Cursor queryIdentifiers();
+
+        /**
+         * Get favourite movie.
+         * <p>Run on background thread.</p>
+         * @param identifier ID of movie.
+         * @return Movie or null, if not a favourite.
+         */
+        @Query("SELECT * FROM Movies WHERE Identifier = :identifier")
+        public abstract Movie loadMovie(int identifier);
 
         /**
          * Insert movie into favourites database.
          * @param favourite Movie to insert.
          */
         @Insert
-        void insert(Movie favourite);
+        public abstract void insert(Movie favourite);
 
         /**
          * Delete movie from favourites database.
          * @param favourite Movie to delete.
          */
         @Delete
-        void delete(Movie favourite);
+        public abstract void delete(Movie favourite);
+
+        /**
+         * Apply batch of changes to favourites database in a single transaction, adding the
+         * movies inserted to the search index, or updating them there, in the same transaction.
+         * <p>Movies deleted stay in the search index, which holds every movie seen.</p>
+         * <p>Run on background thread.</p>
+         * @param favourites Movies to insert, replacing any already there.
+         * @param identifiers IDs of movies to delete.
+         */
+        @Transaction
+        public void update(List<Movie> favourites, List<Integer> identifiers) {
+            if(!favourites.isEmpty()) {
+                this.insertAll(favourites);
+
+                ArrayList<Integer> favouriteIdentifiers = new ArrayList<>(favourites.size());
+                ArrayList<MovieSearch> searchEntries = new ArrayList<>(favourites.size());
+                for(Movie movie: favourites) {
+                    favouriteIdentifiers.add(movie.getIdentifier());
+                    searchEntries.add(new MovieSearch(movie.getIdentifier(), movie.getTitle(), movie.getImagePath(), movie.getOverview(), movie.getRating(), movie.getReleaseYear()));
+                }
+                this.deleteSearchEntries(favouriteIdentifiers);
+                this.insertSearchEntries(searchEntries);
+            }
+            if(!identifiers.isEmpty())
+                this.deleteAll(identifiers);
+        }
+
+        /**
+         * Insert movies into favourites database, replacing any already there.
+         * @param favourites Movies to insert.
+         */
+        @Insert(onConflict = OnConflictStrategy.REPLACE)
+        abstract void insertAll(List<Movie> favourites);
+
+        /**
+         * Delete movies from favourites database.
+         * @param identifiers IDs of movies to delete.
+         */
+        @Query("DELETE FROM Movies WHERE Identifier IN (:identifiers)")
+        abstract void deleteAll(List<Integer> identifiers);
+
+        /**
+         * Delete movies from search index, so they can be inserted again.
+         * @param identifiers IDs of movies to delete.
+         */
+        @Query("DELETE FROM MovieSearch WHERE rowid IN (:identifiers)")
+        abstract void deleteSearchEntries(List<Integer> identifiers);
+
+        /**
+         * Insert movies into search index in a single batch.
+         * @param searchEntries Movies to insert.
+         */
+        @Insert
+        abstract void insertSearchEntries(List<MovieSearch> searchEntries);
+    }
+
+    /**
+     * Room DAO for catalogue of discovered movies.
+     */
+    @Dao
+    public abstract static class CatalogueDAO {
+
+        /**
+         * Query movies on range of pages, in order, as columns, so they can be read into a
+         * {@link android.example.com.MovieList} without creating a Movie for each.
+         * <p>Run on background thread. The caller closes the cursor.</p>
+         * @param mostPopular Whether to get most popular (true) or highest rated (false) movies.
+         * @param firstPage Number of first page.
+         * @param lastPage Number of last page.
+         * @return Cursor of Identifier, Title, ImagePath, Overview, Rating and ReleaseYear of
+         * movies, which may repeat across pages.
+         */
+        @Query("SELECT Identifier, Title, ImagePath, Overview, Rating, ReleaseYear FROM Catalogue "
+                + "WHERE MostPopular = :mostPopular AND Page BETWEEN :firstPage AND :lastPage "
+                + "ORDER BY Page, Position")
+        public abstract Cursor queryPages(boolean mostPopular, int firstPage, int lastPage);
+
+        /**
+         * Get page, to find out when it was fetched and how many pages there were.
+         * <p>Run on background thread.</p>
+         * @param mostPopular Whether most popular (true) or highest rated (false) movies.
+         * @param page Number of page.
+         * @return Page or null, if page is not in the catalogue.
+         */
+        @Query("SELECT * FROM CataloguePage WHERE MostPopular = :mostPopular AND Page = :page")
+        public abstract CataloguePage loadPage(boolean mostPopular, int page);
+
+        /**
+         * Update page with movies just fetched, in a single transaction, writing only the
+         * entries whose movie changed, by ID or hash of content, and deleting any beyond the
+         * end of the page; the search index is updated for just the movies that changed, too.
+         * <p>The page is marked as fetched, so it is fresh, even if no movie changed; that
+         * is a single write to the table of pages, which does not trigger observers of the
+         * movies.</p>
+         * <p>Run on background thread.</p>
+         * @param mostPopular Whether most popular (true) or highest rated (false) movies.
+         * @param page Number of page.
+         * @param totalPages Total number of pages available.
+         * @param fetchedAt Time page was fetched, in milliseconds since the epoch.
+         * @param movies Movies on page, in order.
+         * @return Number of entries written or deleted.
+         */
+        @Transaction
+        public int updatePage(boolean mostPopular, int page, int totalPages, long fetchedAt, List<Movie> movies) {
+            HashMap<Integer, StoredEntry> stored = new HashMap<>();
+            for(StoredEntry entry: this.loadStoredEntries(mostPopular, page))
+                stored.put(entry.position, entry);
+
+            ArrayList<CatalogueEntry> changed = new ArrayList<>();
+            for(int position = 0; position < movies.size(); position++) {
+                Movie movie = movies.get(position);
+                long contentHash = CatalogueEntry.hashContent(movie);
+                StoredEntry entry = stored.get(position);
+                if((entry == null) || (entry.identifier != movie.getIdentifier()) || (entry.contentHash != contentHash))
+                    changed.add(new CatalogueEntry(mostPopular, page, position, contentHash, movie));
+            }
+
+            if(!changed.isEmpty()) {
+                this.insertOrReplace(changed);
+
+                ArrayList<Integer> identifiers = new ArrayList<>(changed.size());
+                ArrayList<MovieSearch> searchEntries = new ArrayList<>(changed.size());
+                for(CatalogueEntry entry: changed) {
+                    Movie movie = entry.getMovie();
+                    identifiers.add(movie.getIdentifier());
+                    searchEntries.add(new MovieSearch(movie.getIdentifier(), movie.getTitle(), movie.getImagePath(), movie.getOverview(), movie.getRating(), movie.getReleaseYear()));
+                }
+                this.deleteSearchEntries(identifiers);
+                this.insertSearchEntries(searchEntries);
+            }
+            int deleted = this.deleteFromPosition(mostPopular, page, movies.size());
+            this.markFetched(new CataloguePage(mostPopular, page, totalPages, fetchedAt));
+
+            return changed.size() + deleted;
+        }
+
+        /**
+         * Position, ID and hash of content of entry stored in catalogue.
+         */
+        public static class StoredEntry {
+            @ColumnInfo(name = "Position")
+            public int position;
+            @ColumnInfo(name = "Identifier")
+            public int identifier;
+            @ColumnInfo(name = "ContentHash")
+            public long contentHash;
+        }
+
+        /**
+         * Get position, ID and hash of content of every entry of page.
+         * @param mostPopular Whether most popular (true) or highest rated (false) movies.
+         * @param page Number of page.
+         * @return Entries of page.
+         */
+        @Query("SELECT Position, Identifier, ContentHash FROM Catalogue WHERE MostPopular = :mostPopular AND Page = :page")
+        abstract List<StoredEntry> loadStoredEntries(boolean mostPopular, int page);
+
+        /**
+         * Insert entries, replacing any at the same positions.
+         * @param entries Entries to insert.
+         */
+        @Insert(onConflict = OnConflictStrategy.REPLACE)
+        abstract void insertOrReplace(List<CatalogueEntry> entries);
+
+        /**
+         * Delete entries of page from position on, e.g. as page is shorter than before.
+         * @param mostPopular Whether most popular (true) or highest rated (false) movies.
+         * @param page Number of page.
+         * @param position First position to delete.
+         * @return Number of entries deleted.
+         */
+        @Query("DELETE FROM Catalogue WHERE MostPopular = :mostPopular AND Page = :page AND Position >= :position")
+        abstract int deleteFromPosition(boolean mostPopular, int page, int position);
+
+        /**
+         * Mark page as fetched, replacing when it was last fetched.
+         * @param page Page.
+         */
+        @Insert(onConflict = OnConflictStrategy.REPLACE)
+        abstract void markFetched(CataloguePage page);
+
+        /**
+         * Delete movies from search index, so they can be inserted again (full-text search
+         * tables cannot replace rows on conflict with the SQLite of API 15).
+         * @param identifiers IDs of movies to delete.
+         */
+        @Query("DELETE FROM MovieSearch WHERE rowid IN (:identifiers)")
+        abstract void deleteSearchEntries(List<Integer> identifiers);
+
+        /**
+         * Insert movies into search index in a single batch.
+         * @param searchEntries Movies to insert.
+         */
+        @Insert
+        abstract void insertSearchEntries(List<MovieSearch> searchEntries);
+    }
+
+    /**
+     * Room DAO for full-text search index of movies.
+     */
+    @Dao
+    public abstract static class MovieSearchDAO {
+
+        /**
+         * Find movies whose title or overview contain words starting with every word of the
+         * text, e.g. as the user types, with those matching on their title first, and then
+         * those most highly rated.
+         * <p>Run on background thread.</p>
+         * @param text Text to search for.
+         * @param limit Maximum number of movies to find.
+         * @return List of movies, empty if text has no words.
+         */
+        public List<Movie> search(String text, int limit) {
+            String query = createMatchQuery(text);
+            if(query == null)
+                return new ArrayList<>();
+
+            return this.match(query, limit);
+        }
+
+        /**
+         * Find movies matching full-text query on their title or overview.
+         * <p>Movies matching on their title are found first, so that, if there are enough of
+         * them, the overviews, which are far longer, are never searched.</p>
+         * @param query Full-text query.
+         * @param limit Maximum number of movies to find.
+         * @return List of movies.
+         */
+        @Query("SELECT * FROM (SELECT rowid AS Identifier, Title, ImagePath, Overview, Rating, ReleaseYear FROM MovieSearch "
+                + "WHERE Title MATCH :query ORDER BY Rating DESC LIMIT :limit) "
+                + "UNION ALL "
+                + "SELECT * FROM (SELECT rowid AS Identifier, Title, ImagePath, Overview, Rating, ReleaseYear FROM MovieSearch "
+                + "WHERE Overview MATCH :query AND rowid NOT IN (SELECT rowid FROM MovieSearch WHERE Title MATCH :query) "
+                + "ORDER BY Rating DESC LIMIT :limit) "
+                + "LIMIT :limit")
+        abstract List<Movie> match(String query, int limit);
+
+        /**
+         * Get movie seen.
+         * <p>Run on background thread.</p>
+         * @param identifier ID of movie.
+         * @return Movie or null, if never seen.
+         */
+        @Query("SELECT rowid AS Identifier, Title, ImagePath, Overview, Rating, ReleaseYear FROM MovieSearch WHERE rowid = :identifier")
+        public abstract Movie loadMovie(int identifier);
+
+        /**
+         * Create full-text query for words starting with every word of text.
+         * <p>Words are split and ASCII letters lower-cased as by the default tokenizer of the
+         * index, so that punctuation and words like OR are never taken as query syntax.</p>
+         * @param text Text to search for.
+         * @return Full-text query or null, if text has no words.
+         */
+        public static String createMatchQuery(String text) {
+            if(text == null)
+                return null;
+
+            StringBuilder query = new StringBuilder();
+            boolean inWord = false;
+            for(int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                boolean separator = (c < 0x80) && !Character.isLetterOrDigit(c);
+                if(separator) {
+                    if(inWord)
+                        query.append('*');
+                    inWord = false;
+                    continue;
+                }
+
+                if(!inWord && (query.length() > 0))
+                    query.append(' ');
+                query.append(((c >= 'A') && (c <= 'Z')) ? (char)(c + ('a' - 'A')) : c);
+                inWord = true;
+            }
+            if(inWord)
+                query.append('*');
+
+            return (query.length() > 0) ? query.toString() : null;
+        }
     }
 
     /**
@@ -80,4 +465,16 @@ public abstract class FavouritesDatabase extends RoomDatabase {
      * @return Room DAO instance.
      */
     public abstract FavouritesDAO favouritesDAO();
+
+    /**
+     * Get Room DAO instance for catalogue of discovered movies.
+     * @return Room DAO instance.
+     */
+    public abstract CatalogueDAO catalogueDAO();
+
+    /**
+     * Get Room DAO instance for full-text search index of movies.
+     * @return Room DAO instance.
+     */
+    public abstract MovieSearchDAO movieSearchDAO();
 }
@@ -0,0 +1,153 @@
+package android.example.com.Database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.example.com.AppExecutors;
+import android.example.com.IntHashSet;
+import android.example.com.PriorityExecutor;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+/**
+ * In-memory index of IDs of favourite movies; a singleton.
+ * <p>The IDs are loaded from the favourites database once, in the background, when the
+ * index is first created, and then kept up to date as favourites are changed, so that
+ * whether a movie is a favourite can be answered straight away on any thread, including
+ * the main user interface thread, without querying the database.</p>
+ */
+public class FavouritesIndex {
+
+    private final static Object LOCK = new Object();
+
+    private static volatile FavouritesIndex mInstance = null;
+
+    /**
+     * Implement singleton, creating single instance of index and starting to load it from
+     * favourites database, if not created, or simply retrieving previously created instance.
+     * <p>The database is only created, if necessary, in the background, so the index can be
+     * created on the main user interface thread at startup.</p>
+     * @param context Context within which to create database, if necessary.
+     * @return Favourites index.
+     */
+    public static FavouritesIndex getInstance(Context context) {
+        if (mInstance == null) {
+            synchronized (LOCK) {
+                if (mInstance == null) {
+                    final FavouritesIndex index = new FavouritesIndex();
+                    final Context applicationContext = context.getApplicationContext();
+                    AppExecutors.getInstance().diskIO().execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            FavouritesDatabase.FavouritesDAO favouritesDAO = FavouritesDatabase.getInstance(applicationContext).favouritesDAO();
+                            IntHashSet identifiers;
+                            long start = FavouritesDatabase.FAVOURITES_DAO_TIMES.begin();
+                            Cursor cursor = favouritesDAO.queryIdentifiers();
+                            try {
+                                identifiers = readIdentifiers(cursor);
+                            } finally {
+                                cursor.close();
+                                FavouritesDatabase.FAVOURITES_DAO_TIMES.end(start);
+                            }
+                            index.onLoaded(identifiers);
+                        }
+                    }, PriorityExecutor.Priority.VISIBLE);
+                    mInstance = index;
+                }
+            }
+        }
+
+        return mInstance;
+    }
+
+    /**
+     * Read IDs from cursor straight into a set, without boxing them.
+     * @param cursor Cursor of IDs, in its first column; not closed.
+     * @return Set of IDs.
+     */
+    static IntHashSet readIdentifiers(Cursor cursor) {
+        IntHashSet identifiers = new IntHashSet(Math.max(0, cursor.getCount()));
+        while(cursor.moveToNext())
+            identifiers.add(cursor.getInt(0));
+
+        return identifiers;
+    }
+
+    private final IntHashSet mFavourites = new IntHashSet();
+    private boolean mLoaded = false;
+    // IDs of favourites removed before index was loaded, which database may still hold.
+    private IntHashSet mRemovedBeforeLoad = new IntHashSet();
+
+    private final MutableLiveData<Integer> mChanges = new MutableLiveData<>();
+    private int mChangeCount = 0;
+
+    /**
+     * Find out whether index has been loaded from the database, so it can be relied upon.
+     * @return Whether index is loaded.
+     */
+    public synchronized boolean isLoaded() {
+        return mLoaded;
+    }
+
+    /**
+     * Find out whether movie is a favourite.
+     * @param identifier ID of movie.
+     * @return Whether movie is a favourite, as far as is known if index is not yet loaded.
+     */
+    public synchronized boolean isFavourite(int identifier) {
+        return mFavourites.contains(identifier);
+    }
+
+    /**
+     * Record change to whether movie is a favourite; to be called whenever a favourite is
+     * inserted or deleted.
+     * @param identifier ID of movie.
+     * @param favourite Whether movie is now a favourite.
+     */
+    public synchronized void setFavourite(int identifier, boolean favourite) {
+        boolean changed = favourite ? mFavourites.add(identifier) : mFavourites.remove(identifier);
+
+        if(!mLoaded) {
+            if(favourite)
+                mRemovedBeforeLoad.remove(identifier);
+            else
+                mRemovedBeforeLoad.add(identifier);
+        }
+
+        if(changed)
+            this.notifyChanged();
+    }
+
+    /**
+     * Get count of changes to index, which is updated whenever it changes, including when it
+     * is loaded, e.g. so that favourite badges can be redrawn.
+     * @return Count of changes.
+     */
+    public LiveData<Integer> getChanges() {
+        return mChanges;
+    }
+
+    /**
+     * Add IDs of favourites loaded from database, except any removed in the meantime.
+     * <p>Run on background thread.</p>
+     * @param identifiers IDs of favourites.
+     */
+    private synchronized void onLoaded(IntHashSet identifiers) {
+        for(int identifier: identifiers.toArray()) {
+            if(!mRemovedBeforeLoad.contains(identifier))
+                mFavourites.add(identifier);
+        }
+        mRemovedBeforeLoad = null;
+        mLoaded = true;
+
+        this.notifyChanged();
+    }
+
+    /**
+     * Notify observers of change, on main user interface thread.
+     */
+    private void notifyChanged() {
+        mChangeCount++;
+        mChanges.postValue(mChangeCount);
+    }
+}
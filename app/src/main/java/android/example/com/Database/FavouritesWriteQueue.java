@@ -0,0 +1,222 @@
+package android.example.com.Database;
+
+import android.content.Context;
+import android.example.com.AppExecutors;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Write-behind queue of changes to favourites; a singleton.
+ * <p>Changes are queued straight away, as the user toggles a favourite, so the user
+ * interface never waits on the database. Repeated toggles of the same movie fold into its
+ * latest state. Queued changes are written in the background as a single transaction once
+ * the flush delay has passed since the first of them, or sooner once there are as many as
+ * the maximum batch size, so the cost of each transaction is shared by many changes.</p>
+ * <p>Changes are also written as soon as the user leaves the screen or the app, by
+ * {@link #flush()}, so they are not lost if the process is then killed.</p>
+ */
+public class FavouritesWriteQueue {
+
+    private static final long DEFAULT_FLUSH_DELAY_MILLIS = 2000;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 50;
+
+    private final static Object LOCK = new Object();
+
+    private static volatile FavouritesWriteQueue mInstance = null;
+
+    /**
+     * Schedules task to run after a delay.
+     */
+    public interface Scheduler {
+        /**
+         * Run task after delay.
+         * @param task Task.
+         * @param delayMillis Delay.
+         */
+        void schedule(Runnable task, long delayMillis);
+    }
+
+    /**
+     * Implement singleton, creating single instance of queue, writing to favourites database
+     * on the disk IO executor, if not created, or simply retrieving previously created
+     * instance.
+     * @param context Context within which to create database, if necessary.
+     * @return Favourites write queue.
+     */
+    public static FavouritesWriteQueue getInstance(Context context) {
+        if (mInstance == null) {
+            synchronized (LOCK) {
+                if (mInstance == null) {
+                    FavouritesDatabase.FavouritesDAO favouritesDAO = FavouritesDatabase.getInstance(context).favouritesDAO();
+                    final Handler handler = new Handler(Looper.getMainLooper());
+                    Scheduler scheduler = new Scheduler() {
+                        /**
+                         * Post delayed task to main thread, from which it moves straight
+                         * to the executor, rather than keep a thread of its own waiting.
+                         */
+                        @Override
+                        public void schedule(Runnable task, long delayMillis) {
+                            handler.postDelayed(task, delayMillis);
+                        }
+                    };
+                    mInstance = new FavouritesWriteQueue(favouritesDAO, AppExecutors.getInstance().diskIO(), scheduler, DEFAULT_FLUSH_DELAY_MILLIS, DEFAULT_MAX_BATCH_SIZE);
+                }
+            }
+        }
+
+        return mInstance;
+    }
+
+    private final FavouritesDatabase.FavouritesDAO mFavouritesDAO;
+    private final Executor mExecutor;
+    private final Scheduler mScheduler;
+    private final long mFlushDelayMillis;
+    private final int mMaxBatchSize;
+
+    // Latest state of each movie changed, by ID, in order of first change.
+    private final LinkedHashMap<Integer, Change> mPending = new LinkedHashMap<>();
+    // Changes being written, until written.
+    private final HashMap<Integer, Change> mWriting = new HashMap<>();
+    private boolean mFlushScheduled = false;
+
+    /**
+     * Queued change to favourites.
+     */
+    private static class Change {
+        final Movie movie;
+        final boolean favourite;
+
+        Change(Movie movie, boolean favourite) {
+            this.movie = movie;
+            this.favourite = favourite;
+        }
+    }
+
+    /**
+     * Constructor.
+     * @param favouritesDAO DAO of favourites database.
+     * @param executor Executor on which to write changes.
+     * @param scheduler Scheduler of writes after flush delay, which are then run on executor.
+     * @param flushDelayMillis Time after first queued change at which changes are written.
+     * @param maxBatchSize Number of queued changes at which changes are written straight away.
+     */
+    public FavouritesWriteQueue(FavouritesDatabase.FavouritesDAO favouritesDAO, Executor executor, Scheduler scheduler, long flushDelayMillis, int maxBatchSize) {
+        mFavouritesDAO = favouritesDAO;
+        mExecutor = executor;
+        mScheduler = scheduler;
+        mFlushDelayMillis = flushDelayMillis;
+        mMaxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    /**
+     * Queue change to whether movie is a favourite.
+     * <p>Returns straight away; may be called on any thread.</p>
+     * @param movie Movie.
+     * @param favourite Whether movie is now a favourite.
+     */
+    public synchronized void setFavourite(Movie movie, boolean favourite) {
+        mPending.put(movie.getIdentifier(), new Change(movie, favourite));
+
+        if(mPending.size() >= mMaxBatchSize) {
+            mExecutor.execute(mFlushRunnable);
+        }
+        else if(!mFlushScheduled) {
+            mFlushScheduled = true;
+            mScheduler.schedule(mScheduledFlushRunnable, mFlushDelayMillis);
+        }
+    }
+
+    /**
+     * Find out whether movie is a favourite according to changes not yet written, which
+     * take precedence over the database.
+     * @param identifier ID of movie.
+     * @return Whether movie is a favourite or null, if it has no unwritten change.
+     */
+    public synchronized Boolean getUnwrittenFavourite(int identifier) {
+        Change change = mPending.get(identifier);
+        if(change == null)
+            change = mWriting.get(identifier);
+
+        return (change == null) ? null : change.favourite;
+    }
+
+    /**
+     * Write queued changes now, rather than waiting for the flush delay, e.g. as the user
+     * leaves the app.
+     * <p>Returns straight away; may be called on any thread.</p>
+     */
+    public void flush() {
+        synchronized (this) {
+            if(mPending.isEmpty())
+                return;
+        }
+
+        mExecutor.execute(mFlushRunnable);
+    }
+
+    /**
+     * Move write, once flush delay has passed, to executor.
+     */
+    private final Runnable mScheduledFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mExecutor.execute(mFlushRunnable);
+        }
+    };
+
+    /**
+     * Write all queued changes in a single transaction.
+     */
+    private final Runnable mFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            ArrayList<Movie> favourites = new ArrayList<>();
+            ArrayList<Integer> identifiers = new ArrayList<>();
+            synchronized (FavouritesWriteQueue.this) {
+                mFlushScheduled = false;
+                if(mPending.isEmpty())
+                    return;
+
+                for(Change change: mPending.values()) {
+                    if(change.favourite)
+                        favourites.add(change.movie);
+                    else
+                        identifiers.add(change.movie.getIdentifier());
+                }
+                mWriting.putAll(mPending);
+                mPending.clear();
+            }
+
+            boolean written = false;
+            long start = FavouritesDatabase.FAVOURITES_DAO_TIMES.begin();
+            try {
+                mFavouritesDAO.update(favourites, identifiers);
+                written = true;
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            } finally {
+                FavouritesDatabase.FAVOURITES_DAO_TIMES.end(start);
+                synchronized (FavouritesWriteQueue.this) {
+                    // If write failed, queue changes again, unless changed since.
+                    if(!written) {
+                        for(Map.Entry<Integer, Change> entry: mWriting.entrySet()) {
+                            if(!mPending.containsKey(entry.getKey()))
+                                mPending.put(entry.getKey(), entry.getValue());
+                        }
+                        if(!mFlushScheduled) {
+                            mFlushScheduled = true;
+                            mScheduler.schedule(mScheduledFlushRunnable, mFlushDelayMillis);
+                        }
+                    }
+                    mWriting.clear();
+                }
+            }
+        }
+    };
+}
@@ -0,0 +1,117 @@
+package android.example.com.Database;
+
+import android.content.Context;
+import android.example.com.AppExecutors;
+import android.example.com.PriorityExecutor;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory repository of movies recently displayed, by ID, shared by the screens of the
+ * app; a singleton.
+ * <p>Screens pass just the ID of a movie between them and look it up here, rather than
+ * copying the movie into the intent. If it is no longer in memory, e.g. after the process
+ * was killed, it is loaded from the favourites or the search index of movies seen.</p>
+ */
+public class MovieRepository {
+
+    private static final int MAX_MOVIES = 64; // Least recently used evicted beyond this.
+
+    private final static Object LOCK = new Object();
+
+    private static volatile MovieRepository mInstance = null;
+
+    /**
+     * Implement singleton, creating single instance of repository, if not created, or simply
+     * retrieving previously created instance.
+     * @param context Context within which to create database, if necessary.
+     * @return Movie repository.
+     */
+    public static MovieRepository getInstance(Context context) {
+        if (mInstance == null) {
+            synchronized (LOCK) {
+                if (mInstance == null) {
+                    mInstance = new MovieRepository(context.getApplicationContext());
+                }
+            }
+        }
+
+        return mInstance;
+    }
+
+    private final Context mContext;
+    private final LinkedHashMap<Integer, Movie> mMovies = new LinkedHashMap<Integer, Movie>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Movie> eldest) {
+            return size() > MAX_MOVIES;
+        }
+    };
+
+    /**
+     * Constructor.
+     * @param context Application context within which to create database from which to load
+     * movies no longer in memory, only once needed, in the background.
+     */
+    private MovieRepository(Context context)
+    {
+        mContext = context;
+    }
+
+    /**
+     * Keep movie, e.g. as it is about to be opened.
+     * @param movie Movie.
+     */
+    public synchronized void put(Movie movie) {
+        mMovies.put(movie.getIdentifier(), movie);
+    }
+
+    /**
+     * Get movie, if in memory.
+     * @param identifier ID of movie.
+     * @return Movie or null, if not in memory.
+     */
+    public synchronized Movie get(int identifier) {
+        return mMovies.get(identifier);
+    }
+
+    /**
+     * Get movie, loading it from the favourites or search index, in the background, if it
+     * is not in memory.
+     * @param identifier ID of movie.
+     * @return Movie, or null if it could not be found, once available.
+     */
+    public LiveData<Movie> load(final int identifier) {
+        Movie movie = this.get(identifier);
+        if(movie != null)
+            return new MutableLiveData<>(movie);
+
+        final MutableLiveData<Movie> result = new MutableLiveData<>();
+        AppExecutors.getInstance().diskIO().execute(new Runnable() {
+            /**
+             * Run database queries on separate thread.
+             */
+            @Override
+            public void run() {
+                FavouritesDatabase database = FavouritesDatabase.getInstance(mContext);
+                Movie movie;
+                long start = FavouritesDatabase.FAVOURITES_DAO_TIMES.begin();
+                try {
+                    movie = database.favouritesDAO().loadMovie(identifier);
+                } finally {
+                    FavouritesDatabase.FAVOURITES_DAO_TIMES.end(start);
+                }
+                if(movie == null)
+                    movie = database.movieSearchDAO().loadMovie(identifier);
+                if(movie != null)
+                    put(movie);
+                result.postValue(movie);
+            }
+        }, PriorityExecutor.Priority.VISIBLE);
+
+        return result;
+    }
+}
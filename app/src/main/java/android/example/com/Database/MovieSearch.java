@@ -0,0 +1,104 @@
+package android.example.com.Database;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.PrimaryKey;
+
+/**
+ * Class represents a movie in the full-text search index of every movie the app has seen.
+ * <p>Only the title and overview are meant to be searched; the rest is kept so that results
+ * can be shown without looking the movie up elsewhere. FTS4 options to leave columns
+ * unindexed or add prefix indexes need newer versions of SQLite than API 15 has, so none
+ * are used, and searches are restricted to the title and overview in the query instead.</p>
+ */
+@Fts4
+@Entity(tableName = "MovieSearch")
+public class MovieSearch {
+
+    /**
+     * Constructor.
+     * @param identifier ID of movie, which is also the row ID in the index.
+     * @param title Title of movie.
+     * @param imagePath Path to image of movie.
+     * @param overview Summary of movie.
+     * @param rating Average review rating of movie.
+     * @param releaseYear Year movie released.
+     */
+    public MovieSearch(int identifier, String title, String imagePath, String overview, double rating, int releaseYear)
+    {
+        mIdentifier = identifier;
+        mTitle = title;
+        mImagePath = imagePath;
+        mOverview = overview;
+        mRating = rating;
+        mReleaseYear = releaseYear;
+    }
+
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private int mIdentifier;
+    /**
+     * Get ID of movie.
+     * @return ID of movie.
+     */
+    public int getIdentifier()
+    {
+        return mIdentifier;
+    }
+
+    @ColumnInfo(name = "Title")
+    private String mTitle;
+    /**
+     * Get title of movie.
+     * @return Title of movie.
+     */
+    public String getTitle()
+    {
+        return mTitle;
+    }
+
+    @ColumnInfo(name = "ImagePath")
+    private String mImagePath;
+    /**
+     * Get path to image of movie.
+     * @return Path to image of movie.
+     */
+    public String getImagePath()
+    {
+        return mImagePath;
+    }
+
+    @ColumnInfo(name = "Overview")
+    private String mOverview;
+    /**
+     * Get summary of movie.
+     * @return Summary of movie.
+     */
+    public String getOverview()
+    {
+        return mOverview;
+    }
+
+    @ColumnInfo(name = "Rating")
+    private double mRating;
+    /**
+     * Get average review rating of movie.
+     * @return Average review rating of movie.
+     */
+    public double getRating()
+    {
+        return mRating;
+    }
+
+    @ColumnInfo(name = "ReleaseYear")
+    private int mReleaseYear;
+    /**
+     * Get year movie released.
+     * @return Year movie released.
+     */
+    public int getReleaseYear()
+    {
+        return mReleaseYear;
+    }
+}
@@ -0,0 +1,82 @@
+package android.example.com.Database;
+
+import android.app.Application;
+import android.example.com.AppExecutors;
+import android.example.com.PriorityExecutor;
+import android.example.com.R;
+
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ViewModel to search every movie the app has seen, offline, using the full-text search index
+ * of the favourites database.
+ */
+public class MovieSearchViewModel extends AndroidViewModel {
+
+    private final int mMaxResults;
+
+    // Number of latest search, so that results of earlier searches, still running as the user
+    // types, are dropped.
+    private final AtomicInteger mLatestSearch = new AtomicInteger();
+
+    /**
+     * Constructor.
+     * <p>The database is only created, if necessary, once searched in the background, so the
+     * ViewModel can be created on the main thread at startup.</p>
+     * @param application Popular Movies app.
+     */
+    public MovieSearchViewModel(Application application) {
+        super(application);
+
+        mMaxResults = application.getResources().getInteger(R.integer.search_max_results);
+    }
+
+    private final MutableLiveData<List<Movie>> mResults = new MutableLiveData<>();
+    /**
+     * Get movies found by latest search.
+     * @return Movies found.
+     */
+    public LiveData<List<Movie>> getResults() {
+        return mResults;
+    }
+
+    /**
+     * Search for movies whose title or overview contain words starting with every word of
+     * text, in the background, replacing the results of any earlier search.
+     * <p>Run on main user interface thread.</p>
+     * @param text Text to search for.
+     */
+    public void setQuery(final String text) {
+        final int search = mLatestSearch.incrementAndGet();
+
+        // Nothing to look up without any words.
+        if(FavouritesDatabase.MovieSearchDAO.createMatchQuery(text) == null) {
+            mResults.setValue(new ArrayList<Movie>());
+            return;
+        }
+
+        AppExecutors.getInstance().diskIO().execute(new Runnable() {
+            @Override
+            public void run() {
+                if(search != mLatestSearch.get())
+                    return; // Already superseded.
+
+                FavouritesDatabase.MovieSearchDAO movieSearchDAO = FavouritesDatabase.getInstance(getApplication()).movieSearchDAO();
+                final List<Movie> movies = movieSearchDAO.search(text, mMaxResults);
+                AppExecutors.getInstance().mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if(search == mLatestSearch.get())
+                            mResults.setValue(movies);
+                    }
+                });
+            }
+        }, PriorityExecutor.Priority.VISIBLE);
+    }
+}
@@ -1,8 +1,13 @@
 package android.example.com.Database;
 
 import android.app.Application;
+import android.example.com.AppExecutors;
+import android.example.com.PriorityExecutor;
+
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.Observer;
 import java.util.List;
 
 /**
@@ -12,15 +17,33 @@ public class MoviesViewModel extends AndroidViewModel {
 
     /**
      * Constructor.
+     * <p>The database is created, if necessary, in the background, so that favourites being
+     * the selected sort at startup does not open it on the main user interface thread.</p>
      * @param application Popular Movies app.
      */
     public MoviesViewModel(Application application) {
         super(application);
 
-        mFavouriteMovies = FavouritesDatabase.getInstance(getApplication()).favouritesDAO().load();
+        AppExecutors.getInstance().diskIO().execute(new Runnable() {
+            @Override
+            public void run() {
+                final FavouritesDatabase database = FavouritesDatabase.getInstance(getApplication());
+                AppExecutors.getInstance().mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        mFavouriteMovies.addSource(database.favouritesDAO().load(), new Observer<List<Movie>>() {
+                            @Override
+                            public void onChanged(List<Movie> movies) {
+                                mFavouriteMovies.setValue(movies);
+                            }
+                        });
+                    }
+                });
+            }
+        }, PriorityExecutor.Priority.VISIBLE);
     }
 
-    private LiveData<List<Movie>> mFavouriteMovies;
+    private final MediatorLiveData<List<Movie>> mFavouriteMovies = new MediatorLiveData<>();
     /**
      * Get favourite movies.
      * @return Favourite movies.
@@ -0,0 +1,91 @@
+package android.example.com;
+
+import androidx.appcompat.app.AppCompatActivity;
+import android.content.Intent;
+import android.os.Bundle;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+
+import org.json.JSONException;
+
+/**
+ * Hidden screen, in debug builds, displaying a snapshot of the performance metrics of the
+ * app as JSON, which can be shared, e.g. to attach to a bug report.
+ */
+public class DebugActivity extends AppCompatActivity {
+
+    private TextView mMetricsTextView;
+    private String mMetricsJson = "";
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_debug);
+
+        mMetricsTextView = this.findViewById(R.id.debug_metrics);
+    }
+
+    /**
+     * Display latest snapshot whenever screen is shown.
+     */
+    @Override
+    protected void onResume() {
+        super.onResume();
+
+        this.showSnapshot();
+    }
+
+    /**
+     * Take snapshot of performance metrics and display it.
+     */
+    private void showSnapshot() {
+        try {
+            mMetricsJson = PerformanceMetrics.getInstance().snapshot().toString(2);
+        } catch (JSONException e) {
+            e.printStackTrace();
+            mMetricsJson = "";
+        }
+        mMetricsTextView.setText(mMetricsJson);
+    }
+
+    /**
+     * Add refresh, share and reset to app bar.
+     * @param menu Options menu.
+     * @return True to display menu.
+     */
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.debug, menu);
+        return true;
+    }
+
+    /**
+     * Handle selection of menu item.
+     * @param item Menu item selected.
+     * @return True if handled.
+     */
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        int id = item.getItemId();
+        if(id == R.id.action_refresh_metrics) {
+            this.showSnapshot();
+            return true;
+        }
+        else if(id == R.id.action_share_metrics) {
+            Intent intent = new Intent(Intent.ACTION_SEND);
+            intent.setType("application/json");
+            intent.putExtra(Intent.EXTRA_SUBJECT, getString(R.string.debug_title));
+            intent.putExtra(Intent.EXTRA_TEXT, mMetricsJson);
+            startActivity(Intent.createChooser(intent, getString(R.string.debug_share)));
+            return true;
+        }
+        else if(id == R.id.action_reset_metrics) {
+            PerformanceMetrics.getInstance().reset();
+            this.showSnapshot();
+            return true;
+        }
+
+        return super.onOptionsItemSelected(item);
+    }
+}
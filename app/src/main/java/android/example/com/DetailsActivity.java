@@ -7,34 +7,35 @@ import androidx.loader.app.LoaderManager;
 import androidx.loader.content.Loader;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import androidx.lifecycle.Observer;
 import android.content.Intent;
 import android.example.com.Database.FavouritesDatabase;
+import android.example.com.Database.FavouritesIndex;
+import android.example.com.Database.FavouritesWriteQueue;
 import android.example.com.Database.Movie;
+import android.example.com.Database.MovieRepository;
+import android.graphics.Point;
 import android.net.Uri;
 import android.os.Bundle;
+import android.view.LayoutInflater;
 import android.view.View;
 import android.widget.ImageButton;
 import android.widget.ImageView;
 import android.widget.TextView;
 import android.widget.Toast;
 import com.squareup.picasso.Picasso;
+import java.io.IOException;
+import java.io.InputStream;
 import java.text.DecimalFormat;
-import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Screen displays details of a particular movie.
  */
-public class DetailsActivity extends AppCompatActivity implements VideosAdapter.VideoSelectionListener, LoaderManager.LoaderCallbacks<String> {
+public class DetailsActivity extends AppCompatActivity implements VideosAdapter.VideoSelectionListener {
 
     // Intent extra data names.
     public final static String IDENTIFIER = "IDENTIFIER";
-    public final static String TITLE = "TITLE";
-    public final static String IMAGE_PATH = "IMAGE_PATH";
-    public final static String IMAGE_WIDTH = "IMAGE_WIDTH";
-    public final static String IMAGE_HEIGHT = "IMAGE_HEIGHT";
-    public final static String OVERVIEW = "OVERVIEW";
-    public final static String RATING = "RATING";
-    public final static String RELEASE_YEAR = "RELEASE_YEAR";
     public final static String FAVOURITE = "FAVOURITE";
 
     private TextView mTitleTextView;
@@ -45,8 +46,15 @@ public class DetailsActivity extends AppCompatActivity implements VideosAdapter.
     private RecyclerView mVideosRecyclerView;
     private TextView mReviewsTextView;
     private ImageButton mFavouritesImageButton;
+    private RecyclerView mReviewsRecyclerView;
 
-    private Movie mMovie;
+    private ReviewsAdapter mReviewsAdapter;
+    private int mReviewsPrefetchDistance;
+    private boolean mLoadingReviews = false; // Whether a later page of reviews is loading.
+    private boolean mReviewsUnavailable = false; // Whether a later page of reviews failed to load.
+
+    private int mIdentifier;
+    private Movie mMovie; // Null until found.
     private boolean mFavourite;
 
     @Override
@@ -56,33 +64,76 @@ public class DetailsActivity extends AppCompatActivity implements VideosAdapter.
 
         mFavourite = false;
 
-        // Retrieve controls for population.
+        // Retrieve controls for population: details of movie are in the header of the list
+        // of reviews, which scrolls them all.
         mTitleTextView = this.findViewById(R.id.details_title);
-        mImageView = this.findViewById(R.id.details_image);
-        mOverviewTextView = this.findViewById(R.id.details_overview);
-        mRatingTextView = this.findViewById(R.id.details_rating);
-        mReleaseYearTextView = this.findViewById(R.id.details_release_year);
-        mVideosRecyclerView = this.findViewById(R.id.video_recycler_view);
-        mReviewsTextView = this.findViewById(R.id.reviews);
-        mFavouritesImageButton = this.findViewById(R.id.favourites_button);
+        mReviewsRecyclerView = this.findViewById(R.id.reviews_recycler_view);
+        View header = LayoutInflater.from(this).inflate(R.layout.details_header, mReviewsRecyclerView, false);
+        mImageView = header.findViewById(R.id.details_image);
+        mOverviewTextView = header.findViewById(R.id.details_overview);
+        mRatingTextView = header.findViewById(R.id.details_rating);
+        mReleaseYearTextView = header.findViewById(R.id.details_release_year);
+        mVideosRecyclerView = header.findViewById(R.id.video_recycler_view);
+        mReviewsTextView = header.findViewById(R.id.reviews);
+        mFavouritesImageButton = header.findViewById(R.id.favourites_button);
 
         // Set up to use GridLayoutManager (videos adapter created after videos
         // have loaded).
         mVideosRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        mVideosRecyclerView.setNestedScrollingEnabled(false);
+
+        // Set up reviews, added a page at a time, loading the next page as the user scrolls
+        // near the end of those loaded.
+        mReviewsAdapter = new ReviewsAdapter(header, getString(R.string.author_decorator));
+        mReviewsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        mReviewsRecyclerView.setAdapter(mReviewsAdapter);
+        mReviewsPrefetchDistance = this.getResources().getInteger(R.integer.reviews_prefetch_distance);
+        mReviewsRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager layoutManager = (LinearLayoutManager)recyclerView.getLayoutManager();
+                int lastVisiblePosition = layoutManager.findLastVisibleItemPosition();
+                if((lastVisiblePosition != RecyclerView.NO_POSITION) && (lastVisiblePosition >= mReviewsAdapter.getItemCount() - 1 - mReviewsPrefetchDistance))
+                    loadNextReviewsPage();
+            }
+        });
 
-        // Retrieve data passed using intent and populate controls.
-        this.populateControlsFromIntent();
+        // Find movie passed by ID in intent and populate controls.
+        mIdentifier = this.getIntent().getIntExtra(IDENTIFIER, -1);
+        this.findMovie();
 
-        // First time activity is created, check if movie is a favourite by seeing if it exists
-        // in favourites database. After that, it is to be persisted as instance state.
-        if((savedInstanceState == null) || (!savedInstanceState.containsKey(FAVOURITE))) {
+        // First time activity is created, check if movie is a favourite using the favourites
+        // index, once it has loaded, or otherwise by seeing if it has an unwritten change or
+        // exists in favourites database. After that, it is to be persisted as instance state.
+        FavouritesIndex favouritesIndex = FavouritesIndex.getInstance(this);
+        if((savedInstanceState != null) && (savedInstanceState.containsKey(FAVOURITE))) {
+            mFavourite = savedInstanceState.getBoolean(FAVOURITE); // Retrieve from instance state.
+            this.updateFavouritesButton();
+        }
+        else if(favouritesIndex.isLoaded()) {
+            mFavourite = favouritesIndex.isFavourite(mIdentifier); // No need to wait.
+            this.updateFavouritesButton();
+        }
+        else {
             AppExecutors.getInstance().diskIO().execute(new Runnable() {
                 /**
                  * Run database query on separate thread.
                  */
                 @Override
                 public void run() {
-                    mFavourite = FavouritesDatabase.getInstance(getApplicationContext()).favouritesDAO().isFavourite(mMovie.getIdentifier());
+                    Boolean unwrittenFavourite = FavouritesWriteQueue.getInstance(getApplicationContext()).getUnwrittenFavourite(mIdentifier);
+                    boolean isFavourite;
+                    if(unwrittenFavourite != null)
+                        isFavourite = unwrittenFavourite;
+                    else {
+                        long start = FavouritesDatabase.FAVOURITES_DAO_TIMES.begin();
+                        try {
+                            isFavourite = FavouritesDatabase.getInstance(getApplicationContext()).favouritesDAO().isFavourite(mIdentifier);
+                        } finally {
+                            FavouritesDatabase.FAVOURITES_DAO_TIMES.end(start);
+                        }
+                    }
+                    final boolean favourite = isFavourite;
 
                     runOnUiThread(new Runnable() {
                         /**
@@ -90,89 +141,102 @@ public class DetailsActivity extends AppCompatActivity implements VideosAdapter.
                          */
                         @Override
                         public void run() {
+                            mFavourite = favourite;
                             updateFavouritesButton();
                         }
                     });
                 }
-            });
-        }
-        else {
-            mFavourite = savedInstanceState.getBoolean(FAVOURITE); // Retrieve from instance state.
+            }, PriorityExecutor.Priority.VISIBLE);
         }
 
-        // Setup loaders to load any videos and reviews about the current movie.
-        this.setupLoaders();
+        // Record whether details were prefetched, before loader looks for them.
+        if(savedInstanceState == null)
+            DetailsPrefetcher.getInstance(this).onDetailsOpened(mIdentifier);
+
+        // Setup loader to load any videos and reviews about the current movie.
+        this.setupLoader();
     }
 
     /**
-     * Retrieve data passed using intent and populate controls.
+     * Find movie in shared repository and populate controls straight away, or once loaded
+     * from the database if it is no longer in memory, e.g. after the process was killed.
+     * <p>If it cannot be found there either, it is populated from the details once loaded.</p>
      */
-    private void populateControlsFromIntent()
+    private void findMovie()
     {
-        Intent intent = this.getIntent();
+        MovieRepository repository = MovieRepository.getInstance(this);
+        Movie movie = repository.get(mIdentifier);
+        if(movie != null) {
+            this.populateControls(movie);
+            return;
+        }
 
-        int identifier = -1;
-        if(intent.hasExtra(IDENTIFIER))
-            identifier = intent.getIntExtra(IDENTIFIER, identifier);
+        mFavouritesImageButton.setEnabled(false); // Until movie is found.
+        repository.load(mIdentifier).observe(this, new Observer<Movie>() {
+            @Override
+            public void onChanged(Movie movie) {
+                if((movie != null) && (mMovie == null))
+                    populateControls(movie);
+            }
+        });
+    }
 
-        String title = "";
-        if(intent.hasExtra(TITLE)) {
-            title = intent.getStringExtra(TITLE);
-            if ((title != null) && (title.length() > 0))
-                mTitleTextView.setText(title);
-        }
+    /**
+     * Populate controls from movie.
+     * <p>The poster is requested at the same size as in the grid of movies, so it is
+     * displayed straight away from the memory cache, already decoded.</p>
+     * @param movie Movie.
+     */
+    private void populateControls(Movie movie)
+    {
+        mMovie = movie;
+        mFavouritesImageButton.setEnabled(true);
 
-        String imagePath = "";
-        if(intent.hasExtra(IMAGE_PATH) && intent.hasExtra(IMAGE_WIDTH) && intent.hasExtra(IMAGE_HEIGHT)) {
-            imagePath = intent.getStringExtra(IMAGE_PATH);
-            int imageWidth = intent.getIntExtra(IMAGE_WIDTH, Integer.MIN_VALUE);
-            int imageHeight = intent.getIntExtra(IMAGE_HEIGHT, Integer.MIN_VALUE);
-            if((imageWidth != Integer.MIN_VALUE) && (imageHeight != Integer.MIN_VALUE))
-                Picasso.get().load(intent.getStringExtra(IMAGE_PATH)).resize(imageWidth, imageHeight).into(mImageView);
-        }
+        String title = movie.getTitle();
+        if ((title != null) && (title.length() > 0))
+            mTitleTextView.setText(title);
 
-        String overview = "";
-        if(intent.hasExtra(OVERVIEW)) {
-            overview = intent.getStringExtra(OVERVIEW);
-            if ((overview != null) && (overview.length() > 0))
-                mOverviewTextView.setText(overview);
+        String imagePath = movie.getImagePath();
+        if ((imagePath != null) && (imagePath.length() > 0)) {
+            Point imageSize = MovieImagesAdapter.getImageSize(this);
+            Picasso.get().load(Utils.CreatePosterURL(imagePath, imageSize.x)).resize(imageSize.x, imageSize.y).into(mImageView);
         }
 
-        Double rating = Double.NaN;
-        if(intent.hasExtra(RATING)) {
-            rating = intent.getDoubleExtra(RATING, rating);
-            if(!rating.isNaN()) {
-                mRatingTextView.setText(new DecimalFormat("#.#").format(rating));
-                mRatingTextView.append(this.getResources().getString(R.string.max_rating_suffix));
-            }
-        }
+        String overview = movie.getOverview();
+        if ((overview != null) && (overview.length() > 0))
+            mOverviewTextView.setText(overview);
 
-        int releaseYear = Integer.MIN_VALUE;
-        if(intent.hasExtra(RELEASE_YEAR)) {
-            releaseYear = intent.getIntExtra(RELEASE_YEAR, Integer.MIN_VALUE);
-            if(releaseYear != Integer.MIN_VALUE)
-                mReleaseYearTextView.setText(String.valueOf(releaseYear));
+        double rating = movie.getRating();
+        if(!Double.isNaN(rating)) {
+            mRatingTextView.setText(new DecimalFormat("#.#").format(rating));
+            mRatingTextView.append(this.getResources().getString(R.string.max_rating_suffix));
         }
 
-        mMovie = new Movie(identifier, title, imagePath, overview, rating, releaseYear);
+        int releaseYear = movie.getReleaseYear();
+        if(releaseYear != Integer.MIN_VALUE)
+            mReleaseYearTextView.setText(String.valueOf(releaseYear));
     }
 
     /**
-     * Setup loaders to load any videos and reviews about the current movie using the
+     * Setup loader to load any videos and reviews about the current movie using the
      * Movie DB API.
      */
-    private void setupLoaders()
+    private void setupLoader()
     {
-        // Pass URLs to loader.
-        Bundle videoArgs = new Bundle();
-        videoArgs.putString(MoviesAsyncTaskLoader.MOVIE_URL_EXTRA, Utils.CreateGetVideosURL(mMovie.getIdentifier()).toString());
-        Bundle reviewsArgs = new Bundle();
-        reviewsArgs.putString(MoviesAsyncTaskLoader.MOVIE_URL_EXTRA, Utils.CreateGetReviewsURL(mMovie.getIdentifier()).toString());
-
-        // There are two loaders, one for the videos and one for the reviews.
-        // Each loads from the Movie DB API once and then works as a cache.
-        LoaderManager.getInstance(this).initLoader(Utils.MOVIEDB_VIDEOS_LOADER_ID, videoArgs, this);
-        LoaderManager.getInstance(this).initLoader(Utils.MOVIEDB_REVIEWS_LOADER_ID, reviewsArgs, this);
+        // Pass URL to loader.
+        Bundle args = new Bundle();
+        args.putString(MoviesAsyncTaskLoader.MOVIE_URL_EXTRA, Utils.CreateGetMovieDetailsURL(mIdentifier).toString());
+
+        // A single loader gets the videos and reviews together, in one request, appended to
+        // the details of the movie. It loads from the Movie DB API once and then works as a cache.
+        LoaderManager loaderManager = LoaderManager.getInstance(this);
+        loaderManager.initLoader(Utils.MOVIEDB_DETAILS_LOADER_ID, args, mDetailsLoaderCallbacks);
+
+        // Later pages of reviews are only loaded as the user scrolls, but if a page was loading,
+        // or loaded, before the activity was recreated, e.g. on rotation, re-attach to it so its
+        // result is delivered here rather than lost.
+        if(loaderManager.getLoader(Utils.MOVIEDB_REVIEWS_LOADER_ID) != null)
+            loaderManager.initLoader(Utils.MOVIEDB_REVIEWS_LOADER_ID, null, mReviewsLoaderCallbacks);
     }
 
     /**
@@ -180,8 +244,16 @@ public class DetailsActivity extends AppCompatActivity implements VideosAdapter.
      * @param view Favourites button.
      */
     public void toggleFavourite(View view) {
+        if(mMovie == null)
+            return;
+
         mFavourite = !mFavourite;
         this.updateFavouritesButton();
+
+        // Queue change straight away, so it is saved even if the app is closed before this
+        // screen, without waiting for the database.
+        FavouritesWriteQueue.getInstance(this).setFavourite(mMovie, mFavourite);
+        FavouritesIndex.getInstance(this).setFavourite(mIdentifier, mFavourite);
     }
 
     /**
@@ -213,87 +285,172 @@ public class DetailsActivity extends AppCompatActivity implements VideosAdapter.
             startActivity(intent);
     }
 
-    /********************************************
-     * Implement LoaderManager.LoaderCallbacks. *
-     ********************************************/
+    /*******************************************************
+     * Implement LoaderManager.LoaderCallbacks for details. *
+     *******************************************************/
+
+    private LoaderManager.LoaderCallbacks<MovieDetails> mDetailsLoaderCallbacks = new LoaderManager.LoaderCallbacks<MovieDetails>() {
+        /**
+         * Create loader for querying details, videos and reviews together from Movie DB API,
+         * www.themoviedb.org, using a background thread.
+         * @param id ID of loader.
+         * @param args Arguments passed into loader, i.e. URL of Movie DB API.
+         * @return New instance of loader.
+         */
+        @NonNull
+        @Override
+        public Loader<MovieDetails> onCreateLoader(int id, @Nullable Bundle args) {
+            // Same parser as prefetcher, so a request it has in flight is shared.
+            return new MoviesAsyncTaskLoader<>(DetailsActivity.this, args, MoviesHttpClient.getInstance(DetailsActivity.this), DetailsPrefetcher.MOVIE_DETAILS_PARSER);
+        }
+
+        /**
+         * Query complete: apply resulting videos and reviews to main user interface thread.
+         * <p>Run on main user interface thread.</p>
+         * @param loader Instance of loader.
+         * @param details Resulting details, already parsed on background thread.
+         */
+        @Override
+        public void onLoadFinished(@NonNull Loader<MovieDetails> loader, MovieDetails details) {
+            // If no data was loaded, tell user and abort.
+            if (details == null) {
+                Toast.makeText(DetailsActivity.this, DetailsActivity.this.getString(R.string.err_no_movie_data), Toast.LENGTH_SHORT).show();
+                return;
+            }
+
+            // Movie was not found in memory or database, e.g. after the process was killed.
+            if((mMovie == null) && (details.getMovie() != null)) {
+                MovieRepository.getInstance(DetailsActivity.this).put(details.getMovie());
+                DetailsActivity.this.populateControls(details.getMovie());
+            }
+
+            DetailsActivity.this.showVideos(details.getVideos());
+            DetailsActivity.this.showReviews(details);
+        }
+
+        /**
+         * Implemented, but not used.
+         */
+        @Override
+        public void onLoaderReset(@NonNull Loader<MovieDetails> loader) { /* Do nothing. */ }
+    };
 
     /**
-     * Create loader for querying of Movie DB API, www.themoviedb.org, using a background thread.
-     * @param id ID of loader.
-     * @param args Arguments passed into loader, i.e. URL of Movie DB API.
-     * @return New instance of loader.
+     * Display videos.
+     * @param videos Loaded videos.
      */
-    @NonNull
-    @Override
-    public Loader<String> onCreateLoader(int id, @Nullable final Bundle args) {
-        return new MoviesAsyncTaskLoader(this, args);
+    private void showVideos(List<Video> videos) {
+        // If no videos were found, tell user and abort.
+        if (videos.size() <= 0) {
+            Toast.makeText(DetailsActivity.this, DetailsActivity.this.getString(R.string.warn_no_videos), Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        // Create videos adapter (set after videos loaded to begin displaying).
+        VideosAdapter videosAdapter = new VideosAdapter(DetailsActivity.this);
+
+        // Copy loaded videos to adapter for RecyclerView.
+        videosAdapter.getVideos().addAll(videos);
+
+        // Set adapter of RecycleView (this causes it to update itself).
+        mVideosRecyclerView.setAdapter(videosAdapter);
     }
 
     /**
-     * Query complete: apply resulting JSON vidoes and reviews data to main user
-     * interface thread.
-     * <p>Run on main user interface thread.</p>
-     * @param loader Instance of loader.
-     * @param data Resulting JSON movies data.
+     * Display first page of reviews.
+     * @param details Loaded details, with first page of reviews.
      */
-    @Override
-    public void onLoadFinished(@NonNull Loader<String> loader, String data) {
-        if(loader.getId() == Utils.MOVIEDB_VIDEOS_LOADER_ID) {
-            // If no data was loaded, tell user and abort.
-            if ((data == null) || (data.length() <= 0)) {
-                Toast.makeText(DetailsActivity.this, DetailsActivity.this.getString(R.string.err_no_video_data), Toast.LENGTH_SHORT).show();
-                return;
-            }
+    private void showReviews(MovieDetails details) {
+        // Ignore if already displayed, e.g. if redelivered on returning to activity.
+        ResultsPage<Review> page = new ResultsPage<>(details.getReviews(), 1, details.getReviewsTotalPages());
+        if(!mReviewsAdapter.addPage(page))
+            return;
+
+        // If no reviews were found, tell user and abort.
+        if (page.getResults().size() <= 0) {
+            Toast.makeText(DetailsActivity.this, DetailsActivity.this.getString(R.string.warn_no_reviews), Toast.LENGTH_SHORT).show();
+            return;
+        }
 
-            // Convert JSON to list of videos.
-            ArrayList<Video> videos = Utils.parseVideosJson(data);
+        mReviewsTextView.setVisibility(View.GONE);
+    }
 
-            // If no data was loaded, tell user and abort.
-            if (videos.size() <= 0) {
-                Toast.makeText(DetailsActivity.this, DetailsActivity.this.getString(R.string.warn_no_videos), Toast.LENGTH_SHORT).show();
-                return;
-            }
+    /**
+     * Load next page of reviews, if there is one and one is not already loading.
+     * <p>The first page comes with the details of the movie.</p>
+     */
+    private void loadNextReviewsPage() {
+        int nextPage = mReviewsAdapter.getNextPage();
+        if(mLoadingReviews || mReviewsUnavailable || (nextPage <= 1) || !mReviewsAdapter.hasMorePages())
+            return;
 
-            // Create videos adapter (set after videos loaded to begin displaying).
-            VideosAdapter videosAdapter = new VideosAdapter(DetailsActivity.this);
+        // Pass URL to loader.
+        Bundle args = new Bundle();
+        args.putString(MoviesAsyncTaskLoader.MOVIE_URL_EXTRA, Utils.CreateGetReviewsURL(mIdentifier, nextPage).toString());
 
-            // Copy loaded videos to adapter for RecyclerView.
-            videosAdapter.getVideos().addAll(videos);
+        mLoadingReviews = true;
+        LoaderManager.getInstance(this).restartLoader(Utils.MOVIEDB_REVIEWS_LOADER_ID, args, mReviewsLoaderCallbacks);
+    }
 
-            // Set adapter of RecycleView (this causes it to update itself).
-            mVideosRecyclerView.setAdapter(videosAdapter);
+    private LoaderManager.LoaderCallbacks<ResultsPage<Review>> mReviewsLoaderCallbacks = new LoaderManager.LoaderCallbacks<ResultsPage<Review>>() {
+        /**
+         * Create loader for querying a later page of reviews from Movie DB API,
+         * www.themoviedb.org, using a background thread.
+         * @param id ID of loader.
+         * @param args Arguments passed into loader, i.e. URL of Movie DB API.
+         * @return New instance of loader.
+         */
+        @NonNull
+        @Override
+        public Loader<ResultsPage<Review>> onCreateLoader(int id, @Nullable Bundle args) {
+            return new MoviesAsyncTaskLoader<>(DetailsActivity.this, args, MoviesHttpClient.getInstance(DetailsActivity.this), new MoviesHttpClient.ResponseParser<ResultsPage<Review>>() {
+                /**
+                 * Convert JSON to page of reviews as it is read.
+                 */
+                @Override
+                public ResultsPage<Review> parse(InputStream stream) throws IOException {
+                    return Utils.parseReviewsPageJson(stream);
+                }
+            });
         }
-        else { // MOVIEDB_REVIEWS_LOADER_ID
-            // If no data was loaded, tell user and abort.
-            if ((data == null) || (data.length() <= 0)) {
-                Toast.makeText(DetailsActivity.this, DetailsActivity.this.getString(R.string.err_no_review_data), Toast.LENGTH_SHORT).show();
-                return;
-            }
-
-            // Convert JSON to list of reviews.
-            ArrayList<Review> reviews = Utils.parseReviewsJson(data);
 
-            // If no data was loaded, tell user and abort.
-            if (reviews.size() <= 0) {
-                Toast.makeText(DetailsActivity.this, DetailsActivity.this.getString(R.string.warn_no_reviews), Toast.LENGTH_SHORT).show();
+        /**
+         * Query complete: add page of reviews after those displayed.
+         * <p>Run on main user interface thread.</p>
+         * @param loader Instance of loader.
+         * @param page Resulting page of reviews, already parsed on background thread.
+         */
+        @Override
+        public void onLoadFinished(@NonNull Loader<ResultsPage<Review>> loader, ResultsPage<Review> page) {
+            mLoadingReviews = false;
+
+            // If there is no data, tell user and stop loading pages.
+            if (page == null) {
+                mReviewsUnavailable = true;
+                Toast.makeText(DetailsActivity.this, DetailsActivity.this.getString(R.string.err_no_review_data), Toast.LENGTH_SHORT).show();
                 return;
             }
 
-            // Populate review TextView.
-            String allReviewsText = "";
-            String authorDecorator = getString(R.string.author_decorator);
-            for(Review r: reviews) {
-                allReviewsText += r.getContent() + "\n\n" + authorDecorator + " " + r.getAuthor() + " " + authorDecorator + "\n\n\n";
-            }
-            mReviewsTextView.setText(allReviewsText);
+            mReviewsAdapter.addPage(page);
         }
-    }
+
+        /**
+         * Implemented, but not used.
+         */
+        @Override
+        public void onLoaderReset(@NonNull Loader<ResultsPage<Review>> loader) { /* Do nothing. */ }
+    };
 
     /**
-     * Implemented, but not used.
+     * Write any changes to favourites straight away as user leaves the screen, rather than
+     * waiting for the flush delay, in case the process is then killed.
      */
     @Override
-    public void onLoaderReset(@NonNull Loader<String> loader) { /* Do nothing. */ }
+    protected void onStop() {
+        super.onStop();
+
+        FavouritesWriteQueue.getInstance(this).flush();
+    }
 
     /**
      * Save whether movie is a favourite to instance state to save having to requery database.
@@ -305,36 +462,4 @@ public class DetailsActivity extends AppCompatActivity implements VideosAdapter.
 
         outState.putBoolean(FAVOURITE, mFavourite);
     }
-
-    /**
-     * Save whether movie is a favourite to database when the activity is closing.
-     */
-    @Override
-    protected void onPause() {
-        super.onPause();
-
-        // Thanks to Adil Soomro's answer to "How to know activity has been finished?",
-        // https://stackoverflow.com/questions/8756938/how-to-know-activity-has-been-finished.
-        if(this.isFinishing()) {
-            AppExecutors.getInstance().diskIO().execute(new Runnable() {
-                /**
-                 * Run database query on separate thread.
-                 */
-                @Override
-                public void run() {
-                    // Check whether movie is a favourite as far as database is concerned.
-                    boolean isFavourite = FavouritesDatabase.getInstance(getApplicationContext()).favouritesDAO().isFavourite(mMovie.getIdentifier());
-
-                    // If state of button and database are different, insert or delete movie
-                    // accordingly.
-                    if(isFavourite != mFavourite) {
-                        if(mFavourite)
-                            FavouritesDatabase.getInstance(getApplicationContext()).favouritesDAO().insert(mMovie);
-                        else
-                            FavouritesDatabase.getInstance(getApplicationContext()).favouritesDAO().delete(mMovie);
-                    }
-                }
-            });
-        }
-    }
 }
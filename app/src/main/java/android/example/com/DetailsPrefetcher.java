@@ -0,0 +1,302 @@
+package android.example.com;
+
+import android.content.Context;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+
+/**
+ * Speculatively loads details, videos and reviews of movies the user is likely to open, e.g.
+ * on touching a movie or dwelling on it in the grid, into the {@link ParsedResultsCache}, so
+ * that the details screen can show them straight away; a singleton.
+ * <p>Prefetches run at the lowest priority on the networkIO executor, at most a few at a
+ * time, most likely first. Prefetches not yet started are cancelled when their movie scrolls
+ * out of view. How often a movie opened had been prefetched (the hit rate) is recorded, so
+ * the heuristic can be tuned.</p>
+ */
+public class DetailsPrefetcher {
+
+    private static final int DEFAULT_MAX_CONCURRENT = 2;
+    private static final int MAX_PENDING = 12; // Least likely dropped beyond this.
+    private static final int MAX_PREFETCHED = 64; // Movies remembered as prefetched, for hit rate.
+
+    /**
+     * Parser of details, shared by details screen and prefetcher, so that their identical
+     * requests are coalesced.
+     */
+    public static final MoviesHttpClient.ResponseParser<MovieDetails> MOVIE_DETAILS_PARSER = new MoviesHttpClient.ResponseParser<MovieDetails>() {
+        /**
+         * Convert JSON to details, videos and reviews as it is read.
+         */
+        @Override
+        public MovieDetails parse(InputStream stream) throws IOException {
+            return Utils.parseMovieDetailsJson(stream);
+        }
+    };
+
+    /**
+     * Source of details of movies.
+     */
+    public interface DetailsSource {
+        /**
+         * Get key of details of movie in parsed results cache.
+         * @param identifier ID of movie.
+         * @return Key.
+         */
+        String getKey(int identifier);
+
+        /**
+         * Load details of movie.
+         * <p>Run on background thread.</p>
+         * @param identifier ID of movie.
+         * @return Details or null, if they could not be loaded, e.g. because there is no network.
+         * @throws IOException If loading failed.
+         */
+        MovieDetails load(int identifier) throws IOException;
+    }
+
+    private final static Object LOCK = new Object();
+
+    private static volatile DetailsPrefetcher mInstance = null;
+
+    /**
+     * Implement singleton, creating single instance of prefetcher, loading details from the
+     * Movie DB API, if not created, or simply retrieving previously created instance.
+     * @param context Context within which to create HTTP client, if necessary.
+     * @return Details prefetcher.
+     */
+    public static DetailsPrefetcher getInstance(Context context) {
+        if (mInstance == null) {
+            synchronized (LOCK) {
+                if (mInstance == null) {
+                    DetailsSource source = new HttpDetailsSource(context.getApplicationContext());
+                    final DetailsPrefetcher prefetcher = new DetailsPrefetcher(source, ParsedResultsCache.getInstance(), AppExecutors.getInstance().networkIO(), DEFAULT_MAX_CONCURRENT);
+                    PerformanceMetrics.getInstance().register("prefetch.started", new PerformanceMetrics.Gauge() {
+                        @Override
+                        public double getValue() {
+                            return prefetcher.getStarted();
+                        }
+                    });
+                    PerformanceMetrics.getInstance().register("prefetch.hit_rate", new PerformanceMetrics.Gauge() {
+                        @Override
+                        public double getValue() {
+                            return prefetcher.getHitRate();
+                        }
+                    });
+                    mInstance = prefetcher;
+                }
+            }
+        }
+
+        return mInstance;
+    }
+
+    private final DetailsSource mSource;
+    private final ParsedResultsCache mCache;
+    private final PriorityExecutor mExecutor;
+    private final int mMaxConcurrent;
+
+    // IDs of movies to prefetch, most likely first.
+    private final LinkedList<Integer> mPending = new LinkedList<>();
+    // IDs of movies being prefetched.
+    private final HashSet<Integer> mInFlight = new HashSet<>();
+    // IDs of movies prefetched, and not opened since, least recent first.
+    private final LinkedHashSet<Integer> mPrefetched = new LinkedHashSet<>();
+
+    private long mStarted = 0;
+    private long mOpened = 0;
+    private long mHits = 0;
+
+    /**
+     * Constructor.
+     * @param source Source of details.
+     * @param cache Cache into which to load details.
+     * @param executor Executor on which to load details, at prefetch priority.
+     * @param maxConcurrent Maximum number of prefetches at a time.
+     */
+    public DetailsPrefetcher(DetailsSource source, ParsedResultsCache cache, PriorityExecutor executor, int maxConcurrent) {
+        mSource = source;
+        mCache = cache;
+        mExecutor = executor;
+        mMaxConcurrent = Math.max(1, maxConcurrent);
+    }
+
+    /**
+     * Prefetch details of movie, unless already cached or being prefetched.
+     * @param identifier ID of movie.
+     * @param likely Whether movie is likely to be opened next, e.g. because it is being
+     * touched, so is prefetched before any others waiting.
+     */
+    public synchronized void prefetch(int identifier, boolean likely) {
+        if(mInFlight.contains(identifier) || (mCache.get(mSource.getKey(identifier)) != null))
+            return;
+
+        mPending.remove(Integer.valueOf(identifier));
+        if(likely)
+            mPending.addFirst(identifier);
+        else
+            mPending.addLast(identifier);
+        while(mPending.size() > MAX_PENDING)
+            mPending.removeLast();
+
+        this.startPending();
+    }
+
+    /**
+     * Cancel prefetch of movie, if not yet started, e.g. because it scrolled out of view.
+     * @param identifier ID of movie.
+     */
+    public synchronized void cancel(int identifier) {
+        mPending.remove(Integer.valueOf(identifier));
+    }
+
+    /**
+     * Cancel all prefetches not yet started, e.g. because the movies displayed are replaced.
+     */
+    public synchronized void cancelAll() {
+        mPending.clear();
+    }
+
+    /**
+     * Record that details of movie were opened, to measure hit rate.
+     * @param identifier ID of movie.
+     */
+    public synchronized void onDetailsOpened(int identifier) {
+        mOpened++;
+
+        boolean prefetched = mPrefetched.remove(identifier) && (mCache.get(mSource.getKey(identifier)) != null);
+        if(prefetched || mInFlight.contains(identifier))
+            mHits++;
+        mPending.remove(Integer.valueOf(identifier)); // Details screen loads it itself.
+    }
+
+    /**
+     * Get number of prefetches started.
+     * @return Number of prefetches.
+     */
+    public synchronized long getStarted() {
+        return mStarted;
+    }
+
+    /**
+     * Get number of times details of a movie were opened.
+     * @return Number of times.
+     */
+    public synchronized long getOpened() {
+        return mOpened;
+    }
+
+    /**
+     * Get number of times details of a movie were opened having been prefetched, or while
+     * being prefetched.
+     * @return Number of hits.
+     */
+    public synchronized long getHits() {
+        return mHits;
+    }
+
+    /**
+     * Get proportion of times details of a movie were opened having been prefetched.
+     * @return Hit rate from 0 to 1, or 0 if none opened.
+     */
+    public synchronized double getHitRate() {
+        return (mOpened == 0) ? 0 : (double)mHits / mOpened;
+    }
+
+    /**
+     * Start prefetches waiting, most likely first, until the maximum are running.
+     */
+    private void startPending() {
+        while((mInFlight.size() < mMaxConcurrent) && !mPending.isEmpty()) {
+            final int identifier = mPending.removeFirst();
+            if(mCache.get(mSource.getKey(identifier)) != null)
+                continue;
+
+            mInFlight.add(identifier);
+            boolean queued = mExecutor.execute(new PriorityExecutor.DroppableTask() {
+                @Override
+                public void run() {
+                    load(identifier);
+                }
+
+                @Override
+                public void onDropped() {
+                    // Never ran, so not started after all; make way for the next.
+                    synchronized (DetailsPrefetcher.this) {
+                        mInFlight.remove(identifier);
+                        mStarted--;
+                        startPending();
+                    }
+                }
+            }, PriorityExecutor.Priority.PREFETCH);
+
+            // Executor is busy with more important work; try again on next prefetch.
+            if(!queued) {
+                mInFlight.remove(identifier);
+                mPending.addFirst(identifier);
+                break;
+            }
+            mStarted++;
+        }
+    }
+
+    /**
+     * Load details of movie into cache and start next prefetch.
+     * <p>Run on background thread.</p>
+     * @param identifier ID of movie.
+     */
+    private void load(int identifier) {
+        try {
+            MovieDetails details = mSource.load(identifier);
+            if(details != null) {
+                mCache.put(mSource.getKey(identifier), details);
+                synchronized (this) {
+                    mPrefetched.remove(identifier);
+                    mPrefetched.add(identifier);
+                    Iterator<Integer> eldest = mPrefetched.iterator();
+                    while(mPrefetched.size() > MAX_PREFETCHED) {
+                        eldest.next();
+                        eldest.remove();
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            synchronized (this) {
+                mInFlight.remove(identifier);
+                this.startPending();
+            }
+        }
+    }
+
+    /**
+     * Loads details from the Movie DB API, through the HTTP cache, when online.
+     */
+    private static class HttpDetailsSource implements DetailsSource {
+        private final Context mContext;
+
+        // Client and monitor are only created, if necessary, once a prefetch runs in the
+        // background, so the prefetcher can be created on the main thread at startup.
+        HttpDetailsSource(Context context) {
+            mContext = context;
+        }
+
+        @Override
+        public String getKey(int identifier) {
+            return Utils.CreateGetMovieDetailsURL(identifier).toString();
+        }
+
+        @Override
+        public MovieDetails load(int identifier) throws IOException {
+            if(!ConnectivityMonitor.getInstance(mContext).isOnline())
+                return null;
+
+            return MoviesHttpClient.getInstance(mContext).get(Utils.CreateGetMovieDetailsURL(identifier), false, MOVIE_DETAILS_PARSER).getData();
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package android.example.com;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.example.com.Database.CataloguePage;
+import android.example.com.Database.FavouritesDatabase;
+import android.example.com.Database.Movie;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.room.InvalidationTracker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Loads pages of movies discovered using the Movie DB API, most popular or highest rated,
+ * as the user scrolls through them.
+ * <p>Pages are kept in the catalogue of the favourites database and movies are read from
+ * there, so that they are shown straight from disk, including after the app has been
+ * closed. A page missing from the catalogue, or fetched longer ago than the refresh
+ * interval, is fetched in the background and the movies that changed written to the
+ * catalogue in a single transaction, whereupon the movies shown are updated; pages are
+ * usually already fresh, as {@link CatalogueSyncWorker} refreshes them in the background. Movies repeated across pages are
+ * shown only once.</p>
+ * <p>Only a limited window of pages is read into memory: once it is full, loading a page at
+ * one end drops the page at the other, which is read again if the user scrolls back to it.
+ * Movies in memory are read from the catalogue straight into a compact {@link MovieList},
+ * rather than as a Movie each, and no other copy of them is kept.</p>
+ * <p>The first movies are also written to a binary snapshot whenever they change, and only
+ * then, so that, at startup, they can be displayed from the snapshot before the catalogue is
+ * read.</p>
+ * <p>Apart from fetching, which runs on the networkIO executor, and reading from the catalogue,
+ * which runs on the diskIO executor, all methods must be called on the main user interface
+ * thread.</p>
+ */
+public class DiscoverMoviesPager {
+
+    // Movie DB API only serves this many pages of discover results.
+    private static final int MAX_PAGES = 500;
+
+    /**
+     * Range of pages in memory.
+     */
+    private static class PageRange {
+        final int first;
+        final int last;
+
+        PageRange(int first, int last) {
+            this.first = first;
+            this.last = last;
+        }
+    }
+
+    private final Context mContext;
+    private final boolean mMostPopular;
+    private final int mMaxPagesInMemory;
+    private final long mRefreshIntervalMillis;
+    private final File mSnapshotFile;
+    private final CatalogueSnapshot.Writer mSnapshotWriter;
+    private final int mSnapshotMaxMovies;
+
+    private PageRange mPageRange = null; // Null until first page is loaded.
+    private int mTotalPages = 1;
+    private boolean mLoadingNext = false;
+    private boolean mLoadingPrevious = false;
+
+    private final CatalogueMovies mMovies = new CatalogueMovies();
+    private final MutableLiveData<Boolean> mLoadFailed = new MutableLiveData<>();
+
+    /**
+     * Constructor.
+     * <p>The HTTP client, monitor of whether the network is available and database holding
+     * the catalogue are only created, if necessary, once they are used in the background, so
+     * the pager can be created on the main thread at startup.</p>
+     * @param context Context within which to create HTTP client, monitor and database.
+     * @param mostPopular Whether to page through most popular (true) or highest rated (false) movies.
+     * @param maxPagesInMemory Maximum number of pages to keep in memory.
+     * @param refreshIntervalMillis Time after which a page in the catalogue is fetched again.
+     * @param snapshotFile File of snapshot of first movies.
+     * @param snapshotMaxMovies Maximum number of movies to write to snapshot.
+     */
+    public DiscoverMoviesPager(Context context, boolean mostPopular, int maxPagesInMemory, long refreshIntervalMillis,
+                               File snapshotFile, int snapshotMaxMovies) {
+        mContext = context.getApplicationContext();
+        mMostPopular = mostPopular;
+        mMaxPagesInMemory = Math.max(2, maxPagesInMemory);
+        mRefreshIntervalMillis = refreshIntervalMillis;
+        mSnapshotFile = snapshotFile;
+        mSnapshotWriter = new CatalogueSnapshot.Writer(snapshotFile);
+        mSnapshotMaxMovies = snapshotMaxMovies;
+    }
+
+    /**
+     * Movies of pages in memory, read from the catalogue on the diskIO executor whenever the
+     * range of pages changes or, while observed, the catalogue is written.
+     * <p>Each read builds a {@link MovieList} straight from a cursor, so the movies are only
+     * ever held in columns. Reads asked for while one is waiting to run are folded into it.</p>
+     */
+    private class CatalogueMovies extends LiveData<List<Movie>> {
+        private volatile PageRange mRange; // Null until first page is loaded.
+        private final AtomicBoolean mReadQueued = new AtomicBoolean(false);
+        private final AtomicBoolean mObserving = new AtomicBoolean(false);
+        private volatile boolean mInvalidated = false; // Whether written while not observed.
+
+        private final InvalidationTracker.Observer mObserver = new InvalidationTracker.Observer("Catalogue") {
+            /**
+             * Read movies again, once catalogue is written, unless not observed.
+             * <p>Run on background thread.</p>
+             */
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                if(hasActiveObservers())
+                    read();
+                else
+                    mInvalidated = true;
+            }
+        };
+
+        /**
+         * Set range of pages in memory and read their movies.
+         * <p>Run on main user interface thread.</p>
+         * @param range Range of pages.
+         */
+        void setRange(PageRange range) {
+            mRange = range;
+            this.read();
+        }
+
+        /**
+         * Read movies again if catalogue was written while not observed.
+         */
+        @Override
+        protected void onActive() {
+            if(mInvalidated) {
+                mInvalidated = false;
+                this.read();
+            }
+        }
+
+        /**
+         * Queue read of movies, unless one is already waiting to run.
+         * <p>May be called on any thread.</p>
+         */
+        void read() {
+            if(mReadQueued.compareAndSet(false, true))
+                AppExecutors.getInstance().diskIO().execute(mReadRunnable, PriorityExecutor.Priority.VISIBLE);
+        }
+
+        private final Runnable mReadRunnable = new Runnable() {
+            /**
+             * Read movies of range of pages into columns and post them, writing first movies
+             * to snapshot.
+             * <p>Run on diskIO executor.</p>
+             */
+            @Override
+            public void run() {
+                mReadQueued.set(false);
+                PageRange range = mRange;
+                if(range == null)
+                    return;
+
+                // Observe catalogue from the first read, off the main thread, as Room may
+                // touch the database to do so.
+                if(mObserving.compareAndSet(false, true))
+                    FavouritesDatabase.getInstance(mContext).getInvalidationTracker().addObserver(mObserver);
+
+                MovieList movies;
+                Cursor cursor = FavouritesDatabase.getInstance(mContext).catalogueDAO().queryPages(mMostPopular, range.first, range.last);
+                try {
+                    movies = MovieList.readUnique(cursor);
+                } finally {
+                    cursor.close();
+                }
+
+                // Range changed while reading: a read of the new range is queued.
+                if(range != mRange)
+                    return;
+
+                writeSnapshot(range, movies);
+                postValue(movies);
+            }
+        };
+
+        /**
+         * Set movies, which now come from the catalogue rather than the snapshot.
+         * <p>Run on main user interface thread.</p>
+         * @param movies Movies.
+         */
+        @Override
+        protected void setValue(List<Movie> movies) {
+            mSnapshotRead = true;
+            super.setValue(movies);
+        }
+
+        /**
+         * Stop observing catalogue.
+         */
+        void close() {
+            AppExecutors.getInstance().diskIO().execute(new Runnable() {
+                @Override
+                public void run() {
+                    if(mObserving.compareAndSet(true, false))
+                        FavouritesDatabase.getInstance(mContext).getInvalidationTracker().removeObserver(mObserver);
+                }
+            });
+        }
+    }
+
+    /**
+     * Get movies of pages in memory, in order, without repeats.
+     * @return Movies in memory.
+     */
+    public LiveData<List<Movie>> getMovies() {
+        return mMovies;
+    }
+
+    private boolean mSnapshotRead = false;
+    /**
+     * Get movies of snapshot last written, to display until movies are read from the
+     * catalogue, e.g. at startup.
+     * <p>The snapshot is mapped into memory, which is quick enough for the main user interface
+     * thread, as strings are only decoded as movies are displayed. It is read at most once, and
+     * not at all once movies have been read from the catalogue.</p>
+     * @return Movies of snapshot, or null if there is none, or movies have been read.
+     */
+    public List<Movie> getSnapshot() {
+        if(mSnapshotRead)
+            return null;
+
+        mSnapshotRead = true;
+        CatalogueSnapshot snapshot = CatalogueSnapshot.read(mSnapshotFile);
+        return (snapshot != null) ? snapshot.getMovies() : null;
+    }
+
+    /**
+     * Write first movies to snapshot, if movies read start with the first page and they
+     * differ from those last written.
+     * <p>Run on diskIO executor.</p>
+     * @param range Range of pages read.
+     * @param movies Movies read, without repeats.
+     */
+    private void writeSnapshot(PageRange range, List<Movie> movies) {
+        if((range.first != 1) || movies.isEmpty())
+            return;
+
+        try {
+            mSnapshotWriter.write(movies.subList(0, Math.min(movies.size(), mSnapshotMaxMovies)));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stop observing catalogue, e.g. once the ViewModel holding the pager is cleared.
+     */
+    public void close() {
+        mMovies.close();
+    }
+
+    /**
+     * Get whether last attempt to load a page failed, e.g. because there is no network.
+     * @return Whether last load failed.
+     */
+    public LiveData<Boolean> getLoadFailed() {
+        return mLoadFailed;
+    }
+
+    /**
+     * Load first page, unless already loaded.
+     */
+    public void start() {
+        if(mPageRange == null)
+            this.loadNextPage();
+    }
+
+    /**
+     * Handle scrolling to prefetch next or previous page when user is within specified
+     * distance of either end of the movies in memory.
+     * @param firstVisiblePosition Position of first visible movie.
+     * @param lastVisiblePosition Position of last visible movie.
+     * @param prefetchDistance Number of movies from end of movies in memory at which to
+     * load next (or previous) page.
+     */
+    public void onScrolled(int firstVisiblePosition, int lastVisiblePosition, int prefetchDistance) {
+        List<Movie> movies = mMovies.getValue();
+        if((movies == null) || movies.isEmpty())
+            return;
+
+        if(lastVisiblePosition >= movies.size() - 1 - prefetchDistance)
+            this.loadNextPage();
+        else if((firstVisiblePosition >= 0) && (firstVisiblePosition <= prefetchDistance))
+            this.loadPreviousPage();
+    }
+
+    /**
+     * Load page after last page in memory, if there is one and it is not already loading.
+     */
+    public void loadNextPage() {
+        PageRange range = mPageRange;
+        int number = (range == null) ? 1 : range.last + 1;
+        if(mLoadingNext || (number > Math.min(mTotalPages, MAX_PAGES)))
+            return;
+
+        mLoadingNext = true;
+        this.fetch(number, true);
+    }
+
+    /**
+     * Load page before first page in memory, if it was dropped and is not already loading.
+     */
+    public void loadPreviousPage() {
+        PageRange range = mPageRange;
+        if(mLoadingPrevious || (range == null) || (range.first <= 1))
+            return;
+
+        mLoadingPrevious = true;
+        this.fetch(range.first - 1, false);
+    }
+
+    /**
+     * Look up page in catalogue and, if it is missing or due to be refreshed, fetch and parse
+     * it and write it to the catalogue, all on networkIO executor.
+     * @param number Number of page.
+     * @param next Whether page is being added after (true) or before (false) pages in memory.
+     */
+    private void fetch(final int number, final boolean next) {
+        final URL url = Utils.CreateDiscoverMoviesURL(mMostPopular, number);
+
+        // First page is what the user is waiting to see; later pages are loaded ahead of it.
+        PriorityExecutor.Priority priority = (mPageRange == null) ? PriorityExecutor.Priority.VISIBLE : PriorityExecutor.Priority.NORMAL;
+        AppExecutors.getInstance().networkIO().execute(new Runnable() {
+            @Override
+            public void run() {
+                long now = System.currentTimeMillis();
+                FavouritesDatabase.CatalogueDAO catalogue = FavouritesDatabase.getInstance(mContext).catalogueDAO();
+                CataloguePage stored = catalogue.loadPage(mMostPopular, number);
+                if(stored != null) {
+                    // Show straight away from disk, finished unless due to be refreshed.
+                    boolean fresh = (now - stored.getFetchedAt() >= 0) && (now - stored.getFetchedAt() < mRefreshIntervalMillis);
+                    postPage(number, next, stored.getTotalPages(), fresh);
+                    if(fresh)
+                        return;
+                }
+
+                ResultsPage<Movie> page = null;
+                if(ConnectivityMonitor.getInstance(mContext).isOnline()) {
+                    try {
+                        page = MoviesHttpClient.getInstance(mContext).get(url, false, PAGE_PARSER).getData();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+
+                // Write movies of page that changed to catalogue in one batch, which updates
+                // movies being shown.
+                if(page != null)
+                    catalogue.updatePage(mMostPopular, number, page.getTotalPages(), now, page.getResults());
+
+                // Show fetched page, or failure if there is no page at all. If page is already
+                // shown from disk and refresh failed, just finish.
+                postPage(number, next, (page != null) ? page.getTotalPages() : -1, true);
+            }
+        }, priority);
+    }
+
+    /**
+     * Parser of page of discovered movies.
+     */
+    static final MoviesHttpClient.ResponseParser<ResultsPage<Movie>> PAGE_PARSER = new MoviesHttpClient.ResponseParser<ResultsPage<Movie>>() {
+        @Override
+        public ResultsPage<Movie> parse(InputStream stream) throws IOException {
+            return Utils.parseMoviesPageJson(stream);
+        }
+    };
+
+    /**
+     * Post page in catalogue to main user interface thread.
+     * @param number Number of page.
+     * @param next Whether page is being added after (true) or before (false) pages in memory.
+     * @param totalPages Total number of pages or -1, if page is not in catalogue.
+     * @param finished Whether loading of page has finished.
+     */
+    private void postPage(final int number, final boolean next, final int totalPages, final boolean finished) {
+        AppExecutors.getInstance().mainThread().execute(new Runnable() {
+            @Override
+            public void run() {
+                onPageLoaded(number, next, totalPages, finished);
+            }
+        });
+    }
+
+    /**
+     * Add page in catalogue to range of pages in memory, dropping page at other end if there
+     * are too many.
+     * <p>Run on main user interface thread.</p>
+     * @param number Number of page.
+     * @param next Whether page is being added after (true) or before (false) pages in memory.
+     * @param totalPages Total number of pages or -1, if page is not in catalogue.
+     * @param finished Whether loading of page has finished.
+     */
+    private void onPageLoaded(int number, boolean next, int totalPages, boolean finished) {
+        if(finished) {
+            if(next)
+                mLoadingNext = false;
+            else
+                mLoadingPrevious = false;
+        }
+
+        PageRange range = mPageRange;
+        boolean inMemory = (range != null) && (number >= range.first) && (number <= range.last);
+        if(totalPages < 0) {
+            if(finished && !inMemory)
+                mLoadFailed.setValue(true);
+            return;
+        }
+
+        mLoadFailed.setValue(false);
+        mTotalPages = totalPages;
+
+        // Page already in memory is updated by catalogue. Otherwise, only add page adjoining
+        // those in memory; anything else is out of date.
+        if(inMemory)
+            return;
+
+        if(range == null) {
+            this.setPageRange(new PageRange(number, number));
+        }
+        else if(next && (number == range.last + 1)) {
+            int first = (number - range.first + 1 > mMaxPagesInMemory) ? range.first + 1 : range.first;
+            this.setPageRange(new PageRange(first, number));
+        }
+        else if(!next && (number == range.first - 1)) {
+            int last = (range.last - number + 1 > mMaxPagesInMemory) ? range.last - 1 : range.last;
+            this.setPageRange(new PageRange(number, last));
+        }
+    }
+
+    /**
+     * Set range of pages in memory, reading their movies from the catalogue.
+     * <p>Run on main user interface thread.</p>
+     * @param range Range of pages.
+     */
+    private void setPageRange(PageRange range) {
+        mPageRange = range;
+        mMovies.setRange(range);
+    }
+}
@@ -0,0 +1,57 @@
+package android.example.com;
+
+import android.app.Application;
+
+import androidx.lifecycle.AndroidViewModel;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ViewModel to persist pages of discovered movies, most popular and highest rated, across
+ * configuration changes; the pages themselves are kept in the catalogue on disk.
+ */
+public class DiscoverMoviesViewModel extends AndroidViewModel {
+
+    private static final String MOST_POPULAR_SNAPSHOT = "most_popular.snapshot";
+    private static final String HIGHEST_RATED_SNAPSHOT = "highest_rated.snapshot";
+
+    private DiscoverMoviesPager mMostPopularPager;
+    private DiscoverMoviesPager mHighestRatedPager;
+
+    /**
+     * Constructor.
+     * @param application Popular Movies app.
+     */
+    public DiscoverMoviesViewModel(Application application) {
+        super(application);
+
+        int maxPagesInMemory = application.getResources().getInteger(R.integer.discover_max_pages_in_memory);
+        long refreshIntervalMillis = TimeUnit.MINUTES.toMillis(application.getResources().getInteger(R.integer.discover_refresh_interval_minutes));
+        int snapshotMaxMovies = application.getResources().getInteger(R.integer.discover_snapshot_max_movies);
+        mMostPopularPager = new DiscoverMoviesPager(application, true, maxPagesInMemory, refreshIntervalMillis,
+                new File(application.getFilesDir(), MOST_POPULAR_SNAPSHOT), snapshotMaxMovies);
+        mHighestRatedPager = new DiscoverMoviesPager(application, false, maxPagesInMemory, refreshIntervalMillis,
+                new File(application.getFilesDir(), HIGHEST_RATED_SNAPSHOT), snapshotMaxMovies);
+    }
+
+    /**
+     * Stop pagers observing the catalogue, once ViewModel is no longer used.
+     */
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+
+        mMostPopularPager.close();
+        mHighestRatedPager.close();
+    }
+
+    /**
+     * Get pager of discovered movies.
+     * @param mostPopular Whether to get pager of most popular (true) or highest rated (false) movies.
+     * @return Pager of movies.
+     */
+    public DiscoverMoviesPager getPager(boolean mostPopular) {
+        return mostPopular ? mMostPopularPager : mHighestRatedPager;
+    }
+}
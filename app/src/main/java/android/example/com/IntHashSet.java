@@ -0,0 +1,189 @@
+package android.example.com;
+
+import java.util.Arrays;
+
+/**
+ * Set of ints held in a single open-addressed array, so that ints are not boxed and each
+ * lookup is a few array reads.
+ * <p>Not thread safe.</p>
+ */
+public class IntHashSet {
+
+    private static final int EMPTY = 0; // Marks empty slot; 0 itself is tracked separately.
+    private static final int MIN_CAPACITY = 16; // Power of 2.
+
+    private int[] mSlots;
+    private int mSize = 0; // Excluding 0.
+    private boolean mContainsZero = false;
+
+    /**
+     * Constructor.
+     */
+    public IntHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     * @param expectedSize Number of ints expected, to avoid growing.
+     */
+    public IntHashSet(int expectedSize) {
+        mSlots = new int[capacityFor(expectedSize)];
+    }
+
+    /**
+     * Get number of ints in set.
+     * @return Number of ints.
+     */
+    public int size() {
+        return mContainsZero ? mSize + 1 : mSize;
+    }
+
+    /**
+     * Find out whether set contains specified int.
+     * @param value Int to check.
+     * @return Whether set contains int.
+     */
+    public boolean contains(int value) {
+        if(value == EMPTY)
+            return mContainsZero;
+
+        int mask = mSlots.length - 1;
+        for(int index = hash(value) & mask; mSlots[index] != EMPTY; index = (index + 1) & mask) {
+            if(mSlots[index] == value)
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Add int to set.
+     * @param value Int to add.
+     * @return Whether int was added, i.e. was not already in set.
+     */
+    public boolean add(int value) {
+        if(value == EMPTY) {
+            boolean added = !mContainsZero;
+            mContainsZero = true;
+            return added;
+        }
+
+        int mask = mSlots.length - 1;
+        int index = hash(value) & mask;
+        for(; mSlots[index] != EMPTY; index = (index + 1) & mask) {
+            if(mSlots[index] == value)
+                return false;
+        }
+        mSlots[index] = value;
+        mSize++;
+
+        // Keep at most half full, so probe sequences stay short.
+        if(mSize * 2 > mSlots.length)
+            this.resize(mSlots.length * 2);
+
+        return true;
+    }
+
+    /**
+     * Remove int from set.
+     * @param value Int to remove.
+     * @return Whether int was removed, i.e. was in set.
+     */
+    public boolean remove(int value) {
+        if(value == EMPTY) {
+            boolean removed = mContainsZero;
+            mContainsZero = false;
+            return removed;
+        }
+
+        int mask = mSlots.length - 1;
+        int index = hash(value) & mask;
+        for(; mSlots[index] != value; index = (index + 1) & mask) {
+            if(mSlots[index] == EMPTY)
+                return false;
+        }
+
+        // Shift back any later ints of the probe sequence that could occupy the freed slot,
+        // so that lookups never stop early at it.
+        int free = index;
+        for(index = (index + 1) & mask; mSlots[index] != EMPTY; index = (index + 1) & mask) {
+            int home = hash(mSlots[index]) & mask;
+            if(((index - home) & mask) >= ((index - free) & mask)) {
+                mSlots[free] = mSlots[index];
+                free = index;
+            }
+        }
+        mSlots[free] = EMPTY;
+        mSize--;
+
+        return true;
+    }
+
+    /**
+     * Remove all ints from set.
+     */
+    public void clear() {
+        Arrays.fill(mSlots, EMPTY);
+        mSize = 0;
+        mContainsZero = false;
+    }
+
+    /**
+     * Copy ints in set to an array, in no particular order.
+     * @return Array of ints.
+     */
+    public int[] toArray() {
+        int[] values = new int[this.size()];
+        int count = 0;
+        if(mContainsZero)
+            values[count++] = 0;
+        for(int slot: mSlots) {
+            if(slot != EMPTY)
+                values[count++] = slot;
+        }
+
+        return values;
+    }
+
+    /**
+     * Move ints to new array of specified capacity.
+     * @param capacity New capacity; power of 2.
+     */
+    private void resize(int capacity) {
+        int[] oldSlots = mSlots;
+        mSlots = new int[capacity];
+        int mask = capacity - 1;
+        for(int value: oldSlots) {
+            if(value == EMPTY)
+                continue;
+            int index = hash(value) & mask;
+            while(mSlots[index] != EMPTY)
+                index = (index + 1) & mask;
+            mSlots[index] = value;
+        }
+    }
+
+    /**
+     * Get capacity to hold specified number of ints at most half full.
+     * @param expectedSize Number of ints.
+     * @return Capacity; power of 2.
+     */
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while((capacity < (1 << 30)) && (capacity < expectedSize * 2))
+            capacity <<= 1;
+
+        return capacity;
+    }
+
+    /**
+     * Scramble bits of int, so that consecutive IDs spread across the array.
+     * @param value Int.
+     * @return Hash.
+     */
+    private static int hash(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
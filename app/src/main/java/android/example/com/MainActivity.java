@@ -3,25 +3,27 @@ package android.example.com;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SearchView;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
-import androidx.loader.app.LoaderManager;
-import androidx.loader.content.Loader;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import android.content.Intent;
-import android.content.res.Configuration;
+import android.example.com.Database.FavouritesIndex;
 import android.example.com.Database.Movie;
+import android.example.com.Database.MovieRepository;
+import android.example.com.Database.MovieSearchViewModel;
 import android.example.com.Database.MoviesViewModel;
-import android.graphics.Rect;
+import android.graphics.Point;
 import android.os.Bundle;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.widget.AdapterView;
 import android.widget.Spinner;
 import android.widget.Toast;
 
-import java.net.URL;
-import java.util.ArrayList;
 import java.util.List;
 
 import static androidx.lifecycle.Lifecycle.State.RESUMED;
@@ -29,11 +31,25 @@ import static androidx.lifecycle.Lifecycle.State.RESUMED;
 /**
  * Main screen of app, displaying images of movies.
  */
-public class MainActivity extends AppCompatActivity implements MovieImagesAdapter.MovieSelectionListener, LoaderManager.LoaderCallbacks<String> {
+public class MainActivity extends AppCompatActivity implements MovieImagesAdapter.MovieSelectionListener {
 
     private RecyclerView mMovieImagesRecyclerView;
     private Spinner mSpinner;
 
+    private MovieImagesAdapter mMovieImagesAdapter;
+    private int mDisplayedSelection = -1; // Spinner item being displayed, if any.
+
+    private DiscoverMoviesViewModel mDiscoverMoviesViewModel;
+    private DiscoverMoviesPager mPager; // Pager of movies being displayed, if any.
+    private int mPrefetchDistance;
+    private int mDetailsDwellMillis;
+
+    private MoviesViewModel mFavouritesViewModel;
+
+    private MovieSearchViewModel mSearchViewModel;
+    private MenuItem mSearchMenuItem;
+    private boolean mSearching = false; // Whether search results are being displayed.
+
     /**
      * Perform initialisation of movies and RecyclerView with creation of activity.
      * @param savedInstanceState Saved state of app; not used.
@@ -43,16 +59,85 @@ public class MainActivity extends AppCompatActivity implements MovieImagesAdapte
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
+        // Record time to first frame, once it is drawn.
+        final View decorView = getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                decorView.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        PopularMoviesApplication.onFirstFrame();
+                    }
+                });
+                return true;
+            }
+        });
+
         // Retrieve main controls.
         mMovieImagesRecyclerView = this.findViewById(R.id.movie_images_recycler_view);
         mSpinner = (Spinner)findViewById(R.id.sort_by_spinner);
 
-        // Set up to use GridLayoutManager (movies adapter created after movies
-        // have loaded).
-        int numberColumns = 2;
-        if(this.getResources().getConfiguration().orientation == Configuration.ORIENTATION_LANDSCAPE)
-            numberColumns = 3;
-        mMovieImagesRecyclerView.setLayoutManager(new GridLayoutManager(this, numberColumns));
+        // Set up to use GridLayoutManager.
+        mMovieImagesRecyclerView.setLayoutManager(new GridLayoutManager(this, MovieImagesAdapter.getColumnCount(this)));
+
+        // Set up single movies adapter, which is given each new list of movies to display,
+        // so that view holders are kept and reused across sort changes.
+        mMovieImagesAdapter = this.createMovieImagesAdapter();
+        mMovieImagesRecyclerView.setAdapter(mMovieImagesAdapter);
+        mMovieImagesAdapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            /**
+             * Movies in view may have changed, without scrolling.
+             */
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                scheduleDetailsPrefetch();
+            }
+        });
+
+        // Badge favourites from the favourites index, which starts loading here, at startup,
+        // and redraw just the badges whenever it changes.
+        FavouritesIndex.getInstance(this).getChanges().observe(this, new Observer<Integer>() {
+            @Override
+            public void onChanged(Integer changeCount) {
+                mMovieImagesAdapter.notifyFavouritesChanged();
+            }
+        });
+
+        // As user scrolls, prefetch posters for next screenful of movies, and load next
+        // (or previous) page of movies near end (or start) of those loaded.
+        mDiscoverMoviesViewModel = new ViewModelProvider(this).get(DiscoverMoviesViewModel.class);
+        mSearchViewModel = new ViewModelProvider(this).get(MovieSearchViewModel.class);
+        mPrefetchDistance = this.getResources().getInteger(R.integer.discover_prefetch_distance);
+        mDetailsDwellMillis = this.getResources().getInteger(R.integer.details_prefetch_dwell_millis);
+        mMovieImagesRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            /**
+             * Once scrolling stops, prefetch details of movies in view if user dwells on them.
+             */
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                if(newState == RecyclerView.SCROLL_STATE_IDLE)
+                    scheduleDetailsPrefetch();
+                else
+                    mMovieImagesRecyclerView.removeCallbacks(mPrefetchDetailsInView);
+            }
+
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                GridLayoutManager layoutManager = (GridLayoutManager)recyclerView.getLayoutManager();
+                int firstVisiblePosition = layoutManager.findFirstVisibleItemPosition();
+                int lastVisiblePosition = layoutManager.findLastVisibleItemPosition();
+                if(lastVisiblePosition == RecyclerView.NO_POSITION)
+                    return;
+
+                if(dy >= 0)
+                    mMovieImagesAdapter.prefetch(lastVisiblePosition + 1, lastVisiblePosition - firstVisiblePosition + 1);
+
+                if(mPager != null)
+                    mPager.onScrolled(firstVisiblePosition, lastVisiblePosition, mPrefetchDistance);
+            }
+        });
 
         // Setup spinner to load movies on selection change (a selection change also
         // occurs when the activity is first created or recreated).
@@ -68,8 +153,12 @@ public class MainActivity extends AppCompatActivity implements MovieImagesAdapte
                 // is applied when activity is active in onResume.
                 // Thanks to malinjir's answer to "Android: how do I check if activity is running?",
                 // https://stackoverflow.com/questions/5446565/android-how-do-i-check-if-activity-is-running.
-                if(getLifecycle().getCurrentState().isAtLeast(RESUMED))
+                if(getLifecycle().getCurrentState().isAtLeast(RESUMED)) {
+                    // Stop searching to show selection.
+                    if(mSearching)
+                        mSearchMenuItem.collapseActionView();
                     applySpinnerSelection(pos);
+                }
             }
 
             /**
@@ -86,6 +175,132 @@ public class MainActivity extends AppCompatActivity implements MovieImagesAdapte
     protected void onResume() {
         super.onResume();
 
+        // Keep displaying search results, if any, e.g. on returning from details.
+        if(!mSearching)
+            this.applySpinnerSelection(mSpinner.getSelectedItemPosition());
+    }
+
+    /**
+     * Stop waiting to prefetch details when activity is no longer active.
+     */
+    @Override
+    protected void onPause() {
+        super.onPause();
+        mMovieImagesRecyclerView.removeCallbacks(mPrefetchDetailsInView);
+    }
+
+    /**
+     * Prefetch details of movies in view once the user has dwelt on them, unless scrolling
+     * starts again first.
+     */
+    private void scheduleDetailsPrefetch() {
+        mMovieImagesRecyclerView.removeCallbacks(mPrefetchDetailsInView);
+        mMovieImagesRecyclerView.postDelayed(mPrefetchDetailsInView, mDetailsDwellMillis);
+    }
+
+    private final Runnable mPrefetchDetailsInView = new Runnable() {
+        /**
+         * Prefetch details of movies in view.
+         */
+        @Override
+        public void run() {
+            GridLayoutManager layoutManager = (GridLayoutManager)mMovieImagesRecyclerView.getLayoutManager();
+            int firstVisiblePosition = layoutManager.findFirstCompletelyVisibleItemPosition();
+            int lastVisiblePosition = layoutManager.findLastCompletelyVisibleItemPosition();
+            if(lastVisiblePosition != RecyclerView.NO_POSITION)
+                mMovieImagesAdapter.prefetchDetails(firstVisiblePosition, lastVisiblePosition);
+        }
+    };
+
+    /**
+     * Add search to app bar, which replaces the movies displayed with those found as the user
+     * types, until it is closed.
+     * @param menu Options menu.
+     * @return True to display menu.
+     */
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.main, menu);
+
+        mSearchMenuItem = menu.findItem(R.id.action_search);
+        mSearchMenuItem.setOnActionExpandListener(new MenuItem.OnActionExpandListener() {
+            @Override
+            public boolean onMenuItemActionExpand(MenuItem item) {
+                startSearching();
+                return true;
+            }
+
+            @Override
+            public boolean onMenuItemActionCollapse(MenuItem item) {
+                stopSearching();
+                return true;
+            }
+        });
+
+        final SearchView searchView = (SearchView)mSearchMenuItem.getActionView();
+        searchView.setQueryHint(this.getString(R.string.search_hint));
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                searchView.clearFocus(); // Hide keyboard; results are already displayed.
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                if(mSearching)
+                    mSearchViewModel.setQuery(newText);
+                return true;
+            }
+        });
+
+        // Hidden screen of performance metrics, only in debug builds.
+        menu.findItem(R.id.action_debug).setVisible(BuildConfig.DEBUG);
+
+        return true;
+    }
+
+    /**
+     * Handle selection of menu item, i.e. showing performance metrics.
+     * @param item Menu item selected.
+     * @return True if handled.
+     */
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if(item.getItemId() == R.id.action_debug) {
+            startActivity(new Intent(this, DebugActivity.class));
+            return true;
+        }
+
+        return super.onOptionsItemSelected(item);
+    }
+
+    /**
+     * Replace movies displayed with those found by search.
+     */
+    private void startSearching() {
+        mSearching = true;
+        mDisplayedSelection = -1; // So selection is displayed again once search is closed.
+        this.stopObserving();
+        mMovieImagesAdapter.cancelPrefetch();
+        mMovieImagesRecyclerView.scrollToPosition(0);
+
+        mSearchViewModel.setQuery("");
+        mSearchViewModel.getResults().observe(this, new Observer<List<Movie>>() {
+            @Override
+            public void onChanged(List<Movie> movies) {
+                mMovieImagesAdapter.submitList(movies);
+            }
+        });
+    }
+
+    /**
+     * Display selection of spinner again, in place of movies found by search.
+     */
+    private void stopSearching() {
+        mSearching = false;
+        mSearchViewModel.getResults().removeObservers(this);
+
         this.applySpinnerSelection(mSpinner.getSelectedItemPosition());
     }
 
@@ -95,8 +310,18 @@ public class MainActivity extends AppCompatActivity implements MovieImagesAdapte
      */
     private void applySpinnerSelection(int pos)
     {
-        // Clear RecyclerView, in case there are no movies this time.
-        this.clearRecyclerView();
+        // If selection is already displayed, e.g. on returning from details, keep it,
+        // just retrying first page of movies if it failed to load.
+        if(pos == mDisplayedSelection) {
+            if(mPager != null)
+                mPager.start();
+            return;
+        }
+
+        mDisplayedSelection = pos;
+        this.stopObserving();
+        mMovieImagesAdapter.cancelPrefetch();
+        mMovieImagesRecyclerView.scrollToPosition(0);
 
         switch (pos) {
             default:
@@ -113,41 +338,81 @@ public class MainActivity extends AppCompatActivity implements MovieImagesAdapte
     }
 
     /**
-     * Load movies from Movie DB API.
+     * Load movies from Movie DB API, a page at a time as the user scrolls.
      * @param mostPopular Whether to load most popular or highest rated movies.
      */
     public void loadMovies(boolean mostPopular)
     {
-        // Pass URL to loader.
-        Bundle args = new Bundle();
-        args.putString(MoviesAsyncTaskLoader.MOVIE_URL_EXTRA, Utils.CreateDiscoverMoviesURL(mostPopular).toString());
-
-        // There are two loaders, one for the most popular movies, and one for the highest rated.
-        // Each loads from the Movie DB API once and then works as a cache.
-        if(mostPopular)
-            LoaderManager.getInstance(this).initLoader(Utils.MOVIEDB_MOST_POPULAR_LOADER_ID, args, this);
-        else
-            LoaderManager.getInstance(this).initLoader(Utils.MOVIEDB_HIGHEST_RATED_LOADER_ID, args, this);
+        // There are two pagers, one for the most popular movies, and one for the highest rated.
+        // Each keeps its pages for the lifetime of the activity, including configuration changes.
+        mPager = mDiscoverMoviesViewModel.getPager(mostPopular);
+
+        // Until pager has movies, display those last displayed, from snapshot, e.g. at
+        // startup, or clear RecyclerView.
+        if(mPager.getMovies().getValue() == null) {
+            List<Movie> snapshot = mPager.getSnapshot();
+            if(snapshot != null)
+                mMovieImagesAdapter.submitList(snapshot);
+            else
+                this.clearRecyclerView();
+        }
+
+        mPager.getMovies().observe(this, new Observer<List<Movie>>() {
+            @Override
+            public void onChanged(List<Movie> movies) {
+                // If no movies were found, tell user.
+                if(movies.size() <= 0)
+                    Toast.makeText(MainActivity.this, MainActivity.this.getString(R.string.err_no_movies), Toast.LENGTH_SHORT).show();
+
+                mMovieImagesAdapter.submitList(movies);
+            }
+        });
+        mPager.getLoadFailed().observe(this, new Observer<Boolean>() {
+            @Override
+            public void onChanged(Boolean loadFailed) {
+                // If no data was loaded, tell user.
+                if(loadFailed)
+                    Toast.makeText(MainActivity.this, MainActivity.this.getString(R.string.err_no_movie_data), Toast.LENGTH_SHORT).show();
+            }
+        });
+
+        mPager.start();
+    }
+
+    /**
+     * Stop displaying movies of pager or favourites database, if any.
+     */
+    private void stopObserving() {
+        if(mPager != null) {
+            mPager.getMovies().removeObservers(this);
+            mPager.getLoadFailed().removeObservers(this);
+            mPager = null;
+        }
+
+        if(mFavouritesViewModel != null)
+            mFavouritesViewModel.getFavouriteMovies().removeObservers(this);
     }
 
     /**
      * Setup up ViewModel to load and cache movies on separate thread for lifetime of app.
      */
     private void setupViewModel() {
-        MoviesViewModel viewModel = new ViewModelProvider(this).get(MoviesViewModel.class);
-        viewModel.getFavouriteMovies().observe(this, new Observer<List<Movie>>() {
+        mFavouritesViewModel = new ViewModelProvider(this).get(MoviesViewModel.class);
+
+        // Clear RecyclerView, until favourites are loaded.
+        if(mFavouritesViewModel.getFavouriteMovies().getValue() == null)
+            this.clearRecyclerView();
+
+        mFavouritesViewModel.getFavouriteMovies().observe(this, new Observer<List<Movie>>() {
             @Override
             public void onChanged(@Nullable List<Movie> movies) {
+                // If there are no movies tell user, but continue so that RecyclerView is
+                // cleared to reflect that their are no favourites.
+                if (movies.size() <= 0)
+                    Toast.makeText(MainActivity.this, MainActivity.this.getString(R.string.err_no_favourites), Toast.LENGTH_SHORT).show();
 
-                if(mSpinner.getSelectedItemPosition() == 2) {
-                    // If there are no movies tell user, but continue so that RecyclerView is
-                    // cleared to reflect that their are no favourites.
-                    if (movies.size() <= 0)
-                        Toast.makeText(MainActivity.this, MainActivity.this.getString(R.string.err_no_favourites), Toast.LENGTH_SHORT).show();
-
-                    // Update RecyclerView.
-                    MainActivity.this.setRecyclerViewAdapter(movies);
-                }
+                // Update RecyclerView with just the favourites that changed.
+                mMovieImagesAdapter.submitList(movies);
             }
         });
     }
@@ -159,102 +424,35 @@ public class MainActivity extends AppCompatActivity implements MovieImagesAdapte
     /**
      * Handle selection of movie to display details of selected movie.
      * @param selectedMovie Selected movie.
-     * @param imageWidth Width, to which image has been resized.
-     * @param imageHeight Height, to which image has been resized.
      */
-    public void onMovieSelected(Movie selectedMovie, int imageWidth, int imageHeight)
+    public void onMovieSelected(Movie selectedMovie)
     {
         Intent intent = new Intent(this, DetailsActivity.class);
 
-        // Pass data of selected movie as extra data in intent.
+        // Pass just ID of selected movie in intent; details screen finds the movie itself in
+        // the shared repository.
+        MovieRepository.getInstance(this).put(selectedMovie);
         intent.putExtra(DetailsActivity.IDENTIFIER, selectedMovie.getIdentifier());
-        intent.putExtra(DetailsActivity.TITLE, selectedMovie.getTitle());
-        intent.putExtra(DetailsActivity.IMAGE_PATH, selectedMovie.getImagePath());
-        intent.putExtra(DetailsActivity.IMAGE_WIDTH, imageWidth);
-        intent.putExtra(DetailsActivity.IMAGE_HEIGHT, imageHeight);
-        intent.putExtra(DetailsActivity.OVERVIEW, selectedMovie.getOverview());
-        intent.putExtra(DetailsActivity.RATING, selectedMovie.getRating());
-        intent.putExtra(DetailsActivity.RELEASE_YEAR, selectedMovie.getReleaseYear());
 
         // Show movie details screen.
         startActivity(intent);
     }
 
-    /********************************************
-     * Implement LoaderManager.LoaderCallbacks. *
-     ********************************************/
-
-    /**
-     * Create loader for querying of Movie DB API, www.themoviedb.org, using a background thread.
-     * @param id ID of loader.
-     * @param args Arguments passed into loader, i.e. URL of Movie DB API.
-     * @return New instance of loader.
-     */
-    @NonNull
-    @Override
-    public Loader<String> onCreateLoader(int id, @Nullable final Bundle args) {
-        return new MoviesAsyncTaskLoader(this, args);
-    }
-
-    /**
-     * Query complete: apply resulting JSON movies data to main user
-     * interface thread.
-     * <p>Run on main user interface thread.</p>
-     * @param loader Instance of loader.
-     * @param data Resulting JSON movies data.
-     */
-    @Override
-    public void onLoadFinished(@NonNull Loader<String> loader, String data) {
-        // If no data was loaded, tell user and abort.
-        if((data == null) || (data.length() <= 0)) {
-            Toast.makeText(MainActivity.this, MainActivity.this.getString(R.string.err_no_movie_data), Toast.LENGTH_SHORT).show();
-            return;
-        }
-
-        // Convert JSON to list of movies.
-        ArrayList<Movie> movies = Utils.parseMoviesJson(data);
-
-        // If no data was loaded, tell user and abort.
-        if(movies.size() <= 0) {
-            Toast.makeText(MainActivity.this, MainActivity.this.getString(R.string.err_no_movies), Toast.LENGTH_SHORT).show();
-            return;
-        }
-
-        this.setRecyclerViewAdapter(movies);
-    }
-
-    /**
-     * Implemented, but not used.
-     */
-    @Override
-    public void onLoaderReset(@NonNull Loader<String> loader) { /* Do nothing. */ }
-
     /**
      * Clear RecyclerView.
      */
     private void clearRecyclerView() {
-        this.setRecyclerViewAdapter(new ArrayList<Movie>());
+        mMovieImagesAdapter.submitList(null);
     }
 
     /**
-     * Add moview to adapter and then to RecyclerView.
-     * @param movies Movies to add.
+     * Create movies adapter, resizing images to fill screen width.
+     * @return Movies adapter.
      */
-    private void setRecyclerViewAdapter(List<Movie> movies) {
+    private MovieImagesAdapter createMovieImagesAdapter() {
         // Determine size to which movies adapter should resize images to fill screen width.
-        Rect sizeOfScreen = new Rect();
-        getWindowManager().getDefaultDisplay().getRectSize(sizeOfScreen);
-        int numColumns = ((GridLayoutManager)mMovieImagesRecyclerView.getLayoutManager()).getSpanCount();
-        int width = sizeOfScreen.width() / numColumns;
-        int height = (int)(width * 1.5); // Maintain aspect ratio of 2 x 3.
-
-        // Create movies adapter (set after movies loaded to begin displaying).
-        MovieImagesAdapter movieImageAdapter = new MovieImagesAdapter(width, height, MainActivity.this);
-
-        // Copy loaded movies to adapter for RecyclerView.
-        movieImageAdapter.getMovies().addAll(movies);
+        Point imageSize = MovieImagesAdapter.getImageSize(this);
 
-        // Set adapter of RecycleView (this causes it to update itself).
-        mMovieImagesRecyclerView.setAdapter(movieImageAdapter);
+        return new MovieImagesAdapter(imageSize.x, imageSize.y, FavouritesIndex.getInstance(this), DetailsPrefetcher.getInstance(this), MainActivity.this);
     }
 }
@@ -0,0 +1,68 @@
+package android.example.com;
+
+import android.example.com.Database.Movie;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class represents details of a Movie DB API movie, together with its videos and first page
+ * of reviews, as fetched in a single request.
+ * <p>Immutable, so it can be shared once parsed.</p>
+ */
+public class MovieDetails {
+
+    /**
+     * Constructor.
+     * @param movie Movie or null, if its details were incomplete.
+     * @param videos Videos of movie.
+     * @param reviews First page of reviews of movie.
+     */
+    public MovieDetails(Movie movie, List<Video> videos, ResultsPage<Review> reviews)
+    {
+        mMovie = movie;
+        mVideos = Collections.unmodifiableList(videos);
+        mReviews = reviews.getResults();
+        mReviewsTotalPages = reviews.getTotalPages();
+    }
+
+    private Movie mMovie;
+    /**
+     * Get movie.
+     * @return Movie or null, if its details were incomplete.
+     */
+    public Movie getMovie()
+    {
+        return mMovie;
+    }
+
+    private List<Video> mVideos;
+    /**
+     * Get videos of movie.
+     * @return Videos; read only.
+     */
+    public List<Video> getVideos()
+    {
+        return mVideos;
+    }
+
+    private List<Review> mReviews;
+    /**
+     * Get first page of reviews of movie.
+     * @return Reviews; read only.
+     */
+    public List<Review> getReviews()
+    {
+        return mReviews;
+    }
+
+    private int mReviewsTotalPages;
+    /**
+     * Get total number of pages of reviews available.
+     * @return Total number of pages.
+     */
+    public int getReviewsTotalPages()
+    {
+        return mReviewsTotalPages;
+    }
+}
@@ -1,17 +1,28 @@
 package android.example.com;
 
+import android.app.Activity;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.example.com.Database.FavouritesIndex;
 import android.example.com.Database.Movie;
+import android.graphics.Point;
+import android.graphics.Rect;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.squareup.picasso.Callback;
 import com.squareup.picasso.Picasso;
+import com.squareup.picasso.RequestCreator;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * RecyclerView adapter for providing movie images.
@@ -25,36 +36,265 @@ public class MovieImagesAdapter extends RecyclerView.Adapter<MovieImagesAdapter.
         /**
          * Handle selection of movie.
          * @param selectedMovie Selected movie.
-         * @param imageWidth Width, to which image has been resized.
-         * @param imageHeight Height, to which image has been resized.
          */
-        void onMovieSelected(Movie selectedMovie, int imageWidth, int imageHeight);
+        void onMovieSelected(Movie selectedMovie);
     }
 
+    /**
+     * Get number of columns of grid of movies: more in landscape.
+     * @param context Context of grid.
+     * @return Number of columns.
+     */
+    public static int getColumnCount(Context context) {
+        return (context.getResources().getConfiguration().orientation == Configuration.ORIENTATION_LANDSCAPE) ? 3 : 2;
+    }
+
+    /**
+     * Get size to which posters are resized to fill the width of the screen with the grid
+     * of movies, so that other screens can display a poster from the memory cache by
+     * requesting it at the same size.
+     * @param activity Activity displaying poster.
+     * @return Width and height of poster.
+     */
+    public static Point getImageSize(Activity activity) {
+        Rect sizeOfScreen = new Rect();
+        activity.getWindowManager().getDefaultDisplay().getRectSize(sizeOfScreen);
+        int width = sizeOfScreen.width() / getColumnCount(activity);
+        int height = (int)(width * 1.5); // Maintain aspect ratio of 2 x 3.
+
+        return new Point(width, height);
+    }
+
+    private static final PerformanceMetrics.Histogram BIND_TIMES = PerformanceMetrics.getInstance().histogram("bind.movie_image");
+
+    // Records time to first poster drawn, until it has been.
+    private static final Callback FIRST_POSTER_CALLBACK = new Callback() {
+        @Override
+        public void onSuccess() {
+            PopularMoviesApplication.onFirstPoster();
+        }
+
+        @Override
+        public void onError(Exception e) { /* Do nothing. */ }
+    };
+
+    // Payload with which to rebind just the favourite badges of movies.
+    private static final Object PAYLOAD_FAVOURITE = new Object();
+
     private int mImageWidth;
     private int mImageHeight;
+    private FavouritesIndex mFavouritesIndex;
+    private DetailsPrefetcher mDetailsPrefetcher;
     private MovieSelectionListener mMovieSelectionListener;
 
     /**
      * Constructor.
      * @param imageWidth Width, to which image is to be resized.
      * @param imageHeight Height, to which image is to be resized.
+     * @param favouritesIndex Index of favourites, with which to badge favourite movies.
+     * @param detailsPrefetcher Prefetcher of details of movies the user is likely to open.
      * @param movieSelectionListener Listener for notification of movie selection.
      */
-    public MovieImagesAdapter(int imageWidth, int imageHeight, MovieSelectionListener movieSelectionListener)
+    public MovieImagesAdapter(int imageWidth, int imageHeight, FavouritesIndex favouritesIndex, DetailsPrefetcher detailsPrefetcher, MovieSelectionListener movieSelectionListener)
     {
         mImageWidth = imageWidth;
         mImageHeight = imageHeight;
+        mFavouritesIndex = favouritesIndex;
+        mDetailsPrefetcher = detailsPrefetcher;
         mMovieSelectionListener = movieSelectionListener;
     }
 
-    private ArrayList<Movie> mMovies = new ArrayList<>();
+    /**
+     * Identifies movies by their Movie DB ID, so that a movie keeps its view holder when
+     * it moves, and is only rebound if its image changes.
+     * <p>Lists held in columns are compared by their columns, so diffing thousands of
+     * discovered movies creates none of them.</p>
+     */
+    private static class MoviesDiffCallback extends DiffUtil.Callback {
+        private final List<Movie> mOldMovies;
+        private final List<Movie> mNewMovies;
+        private final MovieList mOldColumns; // Both lists held in columns, or neither.
+        private final MovieList mNewColumns;
+
+        /**
+         * Constructor.
+         * @param oldMovies Current list of movies.
+         * @param newMovies New list of movies.
+         */
+        MoviesDiffCallback(List<Movie> oldMovies, List<Movie> newMovies)
+        {
+            mOldMovies = oldMovies;
+            mNewMovies = newMovies;
+            boolean columns = (oldMovies instanceof MovieList) && (newMovies instanceof MovieList);
+            mOldColumns = columns ? (MovieList)oldMovies : null;
+            mNewColumns = columns ? (MovieList)newMovies : null;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOldMovies.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNewMovies.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            if(mOldColumns != null)
+                return mOldColumns.getIdentifier(oldPosition) == mNewColumns.getIdentifier(newPosition);
+
+            return mOldMovies.get(oldPosition).getIdentifier() == mNewMovies.get(newPosition).getIdentifier();
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            if(mOldColumns != null)
+                return mOldColumns.hasSamePoster(oldPosition, mNewColumns, newPosition);
+
+            String oldImagePath = mOldMovies.get(oldPosition).getImagePath();
+            String newImagePath = mNewMovies.get(newPosition).getImagePath();
+            return (oldImagePath == null) ? (newImagePath == null) : oldImagePath.equals(newImagePath);
+        }
+    }
+
+    // Current list of movies, as the RecyclerView last saw it, and the same list held in
+    // columns, if it is, so that binding a movie need not create it. Both are only set
+    // together, on the main thread, as each list is committed.
+    private List<Movie> mMovies = Collections.emptyList();
+    private List<Movie> mReadOnlyMovies = Collections.emptyList();
+    private MovieList mCurrentColumns = null;
+    private int mMaxScheduledGeneration = 0; // Latest list submitted; older diffs are discarded.
+
     /**
      * Get list of movies for display by RecyclerView.
-     * @return List of movies.
+     * @return List of movies; read only.
+     */
+    public List<Movie> getMovies() {
+        return mReadOnlyMovies;
+    }
+
+    /**
+     * Replace list of movies, e.g. as pages are loaded, the sort order is changed or
+     * favourites are changed.
+     * <p>The difference from the current list is calculated on a background thread and then
+     * just the movies that were added, removed, moved or changed are dispatched to the
+     * RecyclerView, so that it keeps its scroll position and view holders and only binds
+     * what changed. A list submitted while an earlier one is still being diffed replaces
+     * it. Lists must not be modified once submitted.</p>
+     * @param movies New list of movies, or null to clear.
+     */
+    public void submitList(final List<Movie> movies) {
+        final int generation = ++mMaxScheduledGeneration;
+        mPrefetchedEnd = 0;
+        if(movies == mMovies)
+            return;
+
+        // Nothing to diff against, or nothing to diff.
+        if((movies == null) || mMovies.isEmpty()) {
+            int removed = mMovies.size();
+            this.commitList((movies == null) ? Collections.<Movie>emptyList() : movies);
+            if(movies == null)
+                notifyItemRangeRemoved(0, removed);
+            else
+                notifyItemRangeInserted(0, movies.size());
+            return;
+        }
+
+        final List<Movie> oldMovies = mMovies;
+        AppExecutors.getInstance().computation().execute(new Runnable() {
+            @Override
+            public void run() {
+                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new MoviesDiffCallback(oldMovies, movies));
+                AppExecutors.getInstance().mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if(generation != mMaxScheduledGeneration)
+                            return;
+                        commitList(movies);
+                        result.dispatchUpdatesTo(MovieImagesAdapter.this);
+                    }
+                });
+            }
+        }, PriorityExecutor.Priority.VISIBLE);
+    }
+
+    /**
+     * Make list of movies current.
+     * @param movies List of movies.
      */
-    public ArrayList<Movie> getMovies() {
-        return mMovies;
+    private void commitList(List<Movie> movies) {
+        mMovies = movies;
+        mReadOnlyMovies = Collections.unmodifiableList(movies);
+        mCurrentColumns = (movies instanceof MovieList) ? (MovieList)movies : null;
+    }
+
+    private int mPrefetchedEnd = 0; // Position after last movie whose poster was prefetched.
+    /**
+     * Prefetch and decode posters of movies about to be scrolled into view, at low priority,
+     * so they are already in the memory cache, sized for the grid, when they are bound.
+     * Posters already prefetched are skipped.
+     * @param firstPosition Position of first movie to prefetch.
+     * @param count Number of movies to prefetch.
+     */
+    public void prefetch(int firstPosition, int count) {
+        int end = Math.min(getItemCount(), firstPosition + count);
+        for(int position = Math.max(firstPosition, mPrefetchedEnd); position < end; position++)
+            createPosterRequest(position).priority(Picasso.Priority.LOW).tag(this).fetch();
+        mPrefetchedEnd = Math.max(mPrefetchedEnd, end);
+    }
+
+    /**
+     * Prefetch details of movies in view, which the user has dwelt on, so may open.
+     * @param firstPosition Position of first movie in view.
+     * @param lastPosition Position of last movie in view.
+     */
+    public void prefetchDetails(int firstPosition, int lastPosition) {
+        int count = getItemCount();
+        for(int position = Math.max(0, firstPosition); (position <= lastPosition) && (position < count); position++)
+            mDetailsPrefetcher.prefetch(getIdentifier(position), false);
+    }
+
+    /**
+     * Cancel any prefetching of posters and details still waiting, e.g. as the movies are
+     * about to be replaced.
+     */
+    public void cancelPrefetch() {
+        Picasso.get().cancelTag(this);
+        mPrefetchedEnd = 0;
+        mDetailsPrefetcher.cancelAll();
+    }
+
+    /**
+     * Rebind favourite badges of all movies, e.g. as favourites are changed, without reloading
+     * posters.
+     */
+    public void notifyFavouritesChanged() {
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_FAVOURITE);
+    }
+
+    /**
+     * Get ID of movie at specified position, from columns if movies are held in them.
+     * @param position Position of movie.
+     * @return ID of movie.
+     */
+    private int getIdentifier(int position) {
+        MovieList columns = mCurrentColumns;
+        return (columns != null) ? columns.getIdentifier(position) : getMovies().get(position).getIdentifier();
+    }
+
+    /**
+     * Create request for poster of movie at specified position, of the Movie DB API size
+     * nearest to the width of the grid cell, resized to fit it exactly.
+     * <p>Binding and prefetching must use the same request so they share the memory cache.</p>
+     * @param position Position of movie.
+     * @return Request for poster.
+     */
+    private RequestCreator createPosterRequest(int position) {
+        MovieList columns = mCurrentColumns;
+        String posterURL = (columns != null) ? columns.getPosterURL(position, mImageWidth) : Utils.CreatePosterURL(getMovies().get(position).getImagePath(), mImageWidth);
+        return Picasso.get().load(posterURL).resize(mImageWidth, mImageHeight);
     }
 
     /**
@@ -83,6 +323,30 @@ public class MovieImagesAdapter extends RecyclerView.Adapter<MovieImagesAdapter.
         holder.Bind(position);
     }
 
+    /**
+     * Bind supplied view holder to movie at specified position in movies list, rebinding
+     * just its favourite badge if that is all that changed.
+     * @param holder View holder to bind.
+     * @param position Position of movie.
+     * @param payloads Changes to bind, or empty to bind everything.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull MovieImageViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if(!payloads.isEmpty() && (Collections.frequency(payloads, PAYLOAD_FAVOURITE) == payloads.size()))
+            holder.BindFavourite(position);
+        else
+            holder.Bind(position);
+    }
+
+    /**
+     * Cancel prefetch of details of movie scrolled out of view, if not yet started.
+     * @param holder View holder of movie.
+     */
+    @Override
+    public void onViewDetachedFromWindow(@NonNull MovieImageViewHolder holder) {
+        mDetailsPrefetcher.cancel(holder.mIdentifier);
+    }
+
     /**
      * Get total number of movies.
      * @return Total number of movies.
@@ -95,9 +359,11 @@ public class MovieImagesAdapter extends RecyclerView.Adapter<MovieImagesAdapter.
     /**
      * A ViewHolder subclass suitable for displaying a movie image.
      */
-    public class MovieImageViewHolder extends RecyclerView.ViewHolder  implements View.OnClickListener {
+    public class MovieImageViewHolder extends RecyclerView.ViewHolder  implements View.OnClickListener, View.OnTouchListener {
 
         private ImageView mMovieImage;
+        private ImageView mFavouriteBadge;
+        private int mIdentifier = -1; // ID of movie bound.
 
         /**
          * Constructor.
@@ -108,8 +374,10 @@ public class MovieImagesAdapter extends RecyclerView.Adapter<MovieImagesAdapter.
 
             // Retrieve ImageView.
             mMovieImage = (ImageView)itemView.findViewById(R.id.movie_image);
+            mFavouriteBadge = (ImageView)itemView.findViewById(R.id.movie_favourite_badge);
 
             itemView.setOnClickListener(this);
+            itemView.setOnTouchListener(this);
         }
 
         /**
@@ -119,7 +387,27 @@ public class MovieImagesAdapter extends RecyclerView.Adapter<MovieImagesAdapter.
          */
         public void Bind(int position){
 
-            Picasso.get().load(getMovies().get(position).getImagePath()).resize(mImageWidth, mImageHeight).into(mMovieImage);
+            long start = BIND_TIMES.begin();
+            try {
+                mIdentifier = getIdentifier(position);
+                if(PopularMoviesApplication.isFirstPosterRecorded())
+                    createPosterRequest(position).into(mMovieImage);
+                else
+                    createPosterRequest(position).into(mMovieImage, FIRST_POSTER_CALLBACK);
+                BindFavourite(position);
+            } finally {
+                BIND_TIMES.end(start);
+            }
+        }
+
+        /**
+         * Show favourite badge if movie at specified position in movies list is a favourite,
+         * according to the favourites index, without querying the database.
+         * @param position Position of movie.
+         */
+        public void BindFavourite(int position) {
+            boolean favourite = mFavouritesIndex.isFavourite(getIdentifier(position));
+            mFavouriteBadge.setVisibility(favourite ? View.VISIBLE : View.GONE);
         }
 
         /**
@@ -127,8 +415,25 @@ public class MovieImagesAdapter extends RecyclerView.Adapter<MovieImagesAdapter.
          */
         @Override
         public void onClick(View view) {
+            // Ignore if movie has just been removed.
             int position = getAdapterPosition();
-            mMovieSelectionListener.onMovieSelected(mMovies.get(position), mImageWidth, mImageHeight);
+            if(position == RecyclerView.NO_POSITION)
+                return;
+
+            mMovieSelectionListener.onMovieSelected(getMovies().get(position));
+        }
+
+        /**
+         * Handle touch of view holder to prefetch details of movie before any others, as it
+         * is likely to be opened: its details load while the finger is down.
+         * @return False, so touch goes on to be handled as a click.
+         */
+        @Override
+        public boolean onTouch(View view, MotionEvent event) {
+            if((event.getActionMasked() == MotionEvent.ACTION_DOWN) && (mIdentifier != -1))
+                mDetailsPrefetcher.prefetch(mIdentifier, true);
+
+            return false;
         }
     }
 }
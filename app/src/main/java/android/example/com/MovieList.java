@@ -0,0 +1,385 @@
+package android.example.com;
+
+import android.database.Cursor;
+import android.example.com.Database.Movie;
+
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Compact, read only list of movies held in columns, rather than as an object for each movie,
+ * for lists of thousands of movies, e.g. pages of discovered movies.
+ * <p>IDs, ratings and release years are held in arrays of primitives. Titles, paths of
+ * posters and overviews are held as UTF-8 in a single array of bytes; a poster is held as just
+ * its path, after the common part of its URL and its size, e.g. /udDclJoHjfjb8Ekgsd4FDteOkCU.jpg.
+ * The URL of a poster is built the first time it is asked for at each width of poster, and
+ * then kept, so binding a movie already bound at that width allocates nothing.</p>
+ * <p>A list can be read straight from the database, with {@link #readUnique(Cursor)}, without
+ * creating a Movie for each row.</p>
+ * <p>Movies are only created, by {@link #get(int)}, when asked for, e.g. when one is selected;
+ * item views should read the columns instead, with {@link #getIdentifier(int)} and
+ * {@link #getPosterURL(int, int)}, and diffs should compare them, with
+ * {@link #hasSamePoster(int, MovieList, int)}.</p>
+ * <p>Once built, a list may be read on several threads at once, e.g. while diffed in the
+ * background. A poster URL asked for on two threads at once may be built twice, but both
+ * are the same.</p>
+ */
+public class MovieList extends AbstractList<Movie> implements RandomAccess {
+
+    /**
+     * Builder of list of movies, which grows its columns as movies are added.
+     * <p>Not thread safe.</p>
+     */
+    public static class Builder {
+        private int[] mIdentifiers;
+        private float[] mRatings;
+        private short[] mReleaseYears;
+        private int[] mStringEnds;
+        private byte[] mStrings;
+        private int mSize = 0;
+        private int mStringsSize = 0;
+
+        /**
+         * Constructor.
+         * @param expectedSize Number of movies expected, to avoid growing.
+         */
+        public Builder(int expectedSize) {
+            int capacity = Math.max(1, expectedSize);
+            mIdentifiers = new int[capacity];
+            mRatings = new float[capacity];
+            mReleaseYears = new short[capacity];
+            mStringEnds = new int[capacity * STRINGS_PER_MOVIE];
+            mStrings = new byte[capacity * EXPECTED_STRING_BYTES_PER_MOVIE];
+        }
+
+        /**
+         * Get number of movies added.
+         * @return Number of movies.
+         */
+        public int size() {
+            return mSize;
+        }
+
+        /**
+         * Add movie.
+         * @param movie Movie.
+         * @return This builder.
+         */
+        public Builder add(Movie movie) {
+            return this.add(movie.getIdentifier(), movie.getTitle(), movie.getImagePath(), movie.getOverview(), movie.getRating(), movie.getReleaseYear());
+        }
+
+        /**
+         * Add movie.
+         * @param identifier ID of movie.
+         * @param title Title of movie.
+         * @param imagePath URL of image of movie.
+         * @param overview Summary of movie.
+         * @param rating Average review rating of movie.
+         * @param releaseYear Year movie released, or Integer.MIN_VALUE if not known.
+         * @return This builder.
+         */
+        public Builder add(int identifier, String title, String imagePath, String overview, double rating, int releaseYear) {
+            if(mSize == mIdentifiers.length) {
+                int capacity = mSize * 2;
+                mIdentifiers = Arrays.copyOf(mIdentifiers, capacity);
+                mRatings = Arrays.copyOf(mRatings, capacity);
+                mReleaseYears = Arrays.copyOf(mReleaseYears, capacity);
+                mStringEnds = Arrays.copyOf(mStringEnds, capacity * STRINGS_PER_MOVIE);
+            }
+
+            mIdentifiers[mSize] = identifier;
+            mRatings[mSize] = (float)rating;
+            mReleaseYears[mSize] = ((releaseYear >= Short.MIN_VALUE + 1) && (releaseYear <= Short.MAX_VALUE)) ? (short)releaseYear : UNKNOWN_YEAR;
+            int string = mSize * STRINGS_PER_MOVIE;
+            this.addString(string + TITLE, title);
+            this.addString(string + POSTER_PATH, Utils.getPosterPath(imagePath));
+            this.addString(string + OVERVIEW, overview);
+            mSize++;
+
+            return this;
+        }
+
+        /**
+         * Add string to end of strings, as UTF-8.
+         * @param string Index of string.
+         * @param value String, or null.
+         */
+        private void addString(int string, String value) {
+            if(value == null) {
+                mStringEnds[string] = mStringsSize | NULL_STRING;
+                return;
+            }
+
+            byte[] bytes = value.getBytes(UTF_8);
+            if(mStringsSize + bytes.length > mStrings.length)
+                mStrings = Arrays.copyOf(mStrings, Math.max(mStrings.length * 2, mStringsSize + bytes.length));
+            System.arraycopy(bytes, 0, mStrings, mStringsSize, bytes.length);
+            mStringsSize += bytes.length;
+            mStringEnds[string] = mStringsSize;
+        }
+
+        /**
+         * Build list of movies added, trimming columns to size.
+         * @return List of movies.
+         */
+        public MovieList build() {
+            return new MovieList(mSize,
+                    Arrays.copyOf(mIdentifiers, mSize),
+                    Arrays.copyOf(mRatings, mSize),
+                    Arrays.copyOf(mReleaseYears, mSize),
+                    Arrays.copyOf(mStringEnds, mSize * STRINGS_PER_MOVIE),
+                    Arrays.copyOf(mStrings, mStringsSize));
+        }
+    }
+
+    // Strings of each movie, in order.
+    private static final int TITLE = 0;
+    private static final int POSTER_PATH = 1;
+    private static final int OVERVIEW = 2;
+    private static final int STRINGS_PER_MOVIE = 3;
+
+    // Usual size of title, poster path and overview together, in bytes.
+    private static final int EXPECTED_STRING_BYTES_PER_MOVIE = 512;
+
+    // Set in end of string that is null.
+    private static final int NULL_STRING = 0x80000000;
+
+    private static final short UNKNOWN_YEAR = Short.MIN_VALUE;
+
+    // Width of poster of URL of image of movie, as parsed from the Movie DB API.
+    private static final int IMAGE_PATH_WIDTH = 185;
+
+    // Ratings from the Movie DB API have at most this many decimal places.
+    private static final double RATING_SCALE = 1000;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final int mSize;
+    private final int[] mIdentifiers;
+    private final float[] mRatings;
+    private final short[] mReleaseYears;
+    private final int[] mStringEnds;
+    private final byte[] mStrings;
+    private final String[][] mPosterURLs = new String[Utils.getPosterWidthCount()][]; // By index of width, then position.
+
+    /**
+     * Constructor.
+     * @param size Number of movies.
+     * @param identifiers IDs of movies.
+     * @param ratings Ratings of movies.
+     * @param releaseYears Release years of movies.
+     * @param stringEnds End of each string of each movie in strings.
+     * @param strings Strings of movies, as UTF-8.
+     */
+    private MovieList(int size, int[] identifiers, float[] ratings, short[] releaseYears, int[] stringEnds, byte[] strings)
+    {
+        mSize = size;
+        mIdentifiers = identifiers;
+        mRatings = ratings;
+        mReleaseYears = releaseYears;
+        mStringEnds = stringEnds;
+        mStrings = strings;
+    }
+
+    /**
+     * Get list of movies held in columns, copying them if not already.
+     * @param movies Movies.
+     * @return List of movies.
+     */
+    public static MovieList copyOf(List<Movie> movies) {
+        if(movies instanceof MovieList)
+            return (MovieList)movies;
+
+        Builder builder = new Builder(movies.size());
+        for(Movie movie: movies)
+            builder.add(movie);
+        return builder.build();
+    }
+
+    /**
+     * Read movies from cursor straight into columns, skipping any movie already read, e.g.
+     * repeated on a later page of discovered movies.
+     * <p>The cursor has the columns of a movie, in order: Identifier, Title, ImagePath, Overview,
+     * Rating and ReleaseYear. It is read from its current position to the end, but not closed.</p>
+     * @param cursor Cursor of movies.
+     * @return List of movies, in order, without repeats.
+     */
+    public static MovieList readUnique(Cursor cursor) {
+        int count = Math.max(0, cursor.getCount());
+        Builder builder = new Builder(count);
+        IntHashSet identifiers = new IntHashSet(count);
+        while(cursor.moveToNext()) {
+            int identifier = cursor.getInt(0);
+            if(identifiers.add(identifier))
+                builder.add(identifier, cursor.getString(1), cursor.getString(2), cursor.getString(3), cursor.getDouble(4), cursor.getInt(5));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Get number of movies.
+     * @return Number of movies.
+     */
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Create movie at specified position from columns.
+     * @param position Position of movie.
+     * @return Movie.
+     */
+    @Override
+    public Movie get(int position) {
+        return new Movie(this.getIdentifier(position), this.getTitle(position), this.getImagePath(position),
+                this.getOverview(position), this.getRating(position), this.getReleaseYear(position));
+    }
+
+    /**
+     * Get ID of movie at specified position.
+     * @param position Position of movie.
+     * @return ID of movie.
+     */
+    public int getIdentifier(int position) {
+        this.checkPosition(position);
+        return mIdentifiers[position];
+    }
+
+    /**
+     * Get average review rating of movie at specified position.
+     * @param position Position of movie.
+     * @return Average review rating of movie.
+     */
+    public double getRating(int position) {
+        this.checkPosition(position);
+        return Math.round(mRatings[position] * RATING_SCALE) / RATING_SCALE;
+    }
+
+    /**
+     * Get year movie at specified position released.
+     * @param position Position of movie.
+     * @return Year movie released, or Integer.MIN_VALUE if not known.
+     */
+    public int getReleaseYear(int position) {
+        this.checkPosition(position);
+        short releaseYear = mReleaseYears[position];
+        return (releaseYear == UNKNOWN_YEAR) ? Integer.MIN_VALUE : releaseYear;
+    }
+
+    /**
+     * Get title of movie at specified position, decoding it.
+     * @param position Position of movie.
+     * @return Title of movie.
+     */
+    public String getTitle(int position) {
+        return this.decodeString(position, TITLE);
+    }
+
+    /**
+     * Get summary of movie at specified position, decoding it.
+     * @param position Position of movie.
+     * @return Summary of movie.
+     */
+    public String getOverview(int position) {
+        return this.decodeString(position, OVERVIEW);
+    }
+
+    /**
+     * Get URL of image of movie at specified position, as parsed from the Movie DB API.
+     * @param position Position of movie.
+     * @return URL of image of movie.
+     */
+    public String getImagePath(int position) {
+        return this.getPosterURL(position, IMAGE_PATH_WIDTH);
+    }
+
+    /**
+     * Get URL of poster of movie at specified position, sized for displaying at specified
+     * width, as for {@link Utils#CreatePosterURL(String, int)}, building it only the first
+     * time it is asked for at that size of poster.
+     * @param position Position of movie.
+     * @param displayWidth Width at which poster is displayed, in pixels.
+     * @return URL of poster image.
+     */
+    public String getPosterURL(int position, int displayWidth) {
+        this.checkPosition(position);
+
+        int widthIndex = Utils.choosePosterWidthIndex(displayWidth);
+        String[] posterURLs = mPosterURLs[widthIndex];
+        if(posterURLs == null) {
+            posterURLs = new String[mSize];
+            mPosterURLs[widthIndex] = posterURLs;
+        }
+
+        String posterURL = posterURLs[position];
+        if(posterURL == null) {
+            posterURL = Utils.CreatePosterURLFromPath(this.decodeString(position, POSTER_PATH), widthIndex);
+            posterURLs[position] = posterURL;
+        }
+
+        return posterURL;
+    }
+
+    /**
+     * Check whether movie at specified position has the same poster as a movie of another
+     * list, comparing their paths as held, without decoding them.
+     * @param position Position of movie.
+     * @param other Other list of movies.
+     * @param otherPosition Position of movie in other list.
+     * @return True if both have the same poster, or neither has one.
+     */
+    public boolean hasSamePoster(int position, MovieList other, int otherPosition) {
+        this.checkPosition(position);
+        other.checkPosition(otherPosition);
+
+        int string = (position * STRINGS_PER_MOVIE) + POSTER_PATH;
+        int otherString = (otherPosition * STRINGS_PER_MOVIE) + POSTER_PATH;
+        int end = mStringEnds[string];
+        int otherEnd = other.mStringEnds[otherString];
+        if(((end & NULL_STRING) != 0) || ((otherEnd & NULL_STRING) != 0))
+            return (end & NULL_STRING) == (otherEnd & NULL_STRING);
+
+        int start = mStringEnds[string - 1] & ~NULL_STRING; // Poster path always follows title.
+        int otherStart = other.mStringEnds[otherString - 1] & ~NULL_STRING;
+        if(end - start != otherEnd - otherStart)
+            return false;
+        for(int i = 0; i < end - start; i++) {
+            if(mStrings[start + i] != other.mStrings[otherStart + i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Decode string of movie from strings.
+     * @param position Position of movie.
+     * @param field Which string of movie.
+     * @return String, or null if none.
+     */
+    private String decodeString(int position, int field) {
+        this.checkPosition(position);
+
+        int string = (position * STRINGS_PER_MOVIE) + field;
+        int end = mStringEnds[string];
+        if((end & NULL_STRING) != 0)
+            return null;
+        int start = (string == 0) ? 0 : (mStringEnds[string - 1] & ~NULL_STRING);
+
+        return new String(mStrings, start, end - start, UTF_8);
+    }
+
+    /**
+     * Check position is within list.
+     * @param position Position of movie.
+     */
+    private void checkPosition(int position) {
+        if((position < 0) || (position >= mSize))
+            throw new IndexOutOfBoundsException("Position " + position + " of " + mSize);
+    }
+}
@@ -7,37 +7,65 @@ import androidx.annotation.Nullable;
 import androidx.loader.content.AsyncTaskLoader;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.Scanner;
 
 /**
  * Loader subclass for querying of Movie DB API, www.themoviedb.org, using a background thread.
+ * <p>The response is parsed as it is read from the connection, so the result is delivered
+ * as ready-made objects rather than JSON.</p>
+ * <p>Requests go through the supplied {@link MoviesHttpClient}, whose disk cache is shared
+ * by all loaders. An expired response in the cache is delivered straight away while it is
+ * revalidated (stale-while-revalidate), so the screen can be populated from disk without
+ * waiting for the network.</p>
+ * <p>Parsed results are also kept in the shared {@link ParsedResultsCache}, so a loader
+ * started again for the same URL delivers them without reading or parsing anything. Results
+ * must therefore be immutable, e.g. unmodifiable lists.</p>
+ * @param <T> Type of parsed result, e.g. list of movies.
  */
-public class MoviesAsyncTaskLoader extends AsyncTaskLoader<String> {
+public class MoviesAsyncTaskLoader<T> extends AsyncTaskLoader<T> {
 
     public static final String MOVIE_URL_EXTRA = "MOVIE_URL_EXTRA";
 
+    private static final PerformanceMetrics.Histogram LOAD_TIMES = PerformanceMetrics.getInstance().histogram("loader.load");
+    private static final PerformanceMetrics.Counter PARSED_CACHE_HITS = PerformanceMetrics.getInstance().counter("loader.parsed_cache_hits");
+    private static final PerformanceMetrics.Counter REVALIDATIONS = PerformanceMetrics.getInstance().counter("loader.revalidations");
+
     private Bundle mArgs;
+    private MoviesHttpClient mHttpClient;
+    private MoviesHttpClient.ResponseParser<T> mParser;
+    private ConnectivityMonitor mConnectivityMonitor;
+    private ParsedResultsCache mParsedResultsCache;
 
     /**
      * Constructor.
      * @param context Context within which loader is to run.
      * @param args Arguments passed into loader, i.e. URL of Movie DB API.
+     * @param httpClient HTTP client to make request.
+     * @param parser Parser of response.
      */
-    public MoviesAsyncTaskLoader(Context context, Bundle args) {
+    public MoviesAsyncTaskLoader(Context context, Bundle args, MoviesHttpClient httpClient, MoviesHttpClient.ResponseParser<T> parser) {
         super(context);
 
         mArgs = args;
+        mHttpClient = httpClient;
+        mParser = parser;
+        mConnectivityMonitor = ConnectivityMonitor.getInstance(context);
+        mParsedResultsCache = ParsedResultsCache.getInstance();
     }
 
-    private String mCachedData = null;
+    // Whether last result was an expired response from the cache, still to be revalidated.
+    // Set on the background thread and read on the main thread, so volatile.
+    private volatile boolean mRevalidate = false;
+    // Whether current load is revalidating an expired response.
+    // Set on the main thread and read on the background thread, so volatile.
+    private volatile boolean mRevalidating = false;
+
+    private T mCachedData = null;
     /**
-     * Cached JSON data of last query.
+     * Cached parsed data of last query.
      * @return Cached data or null, if cache is empty.
      */
-    public String getCachedData() {
+    public T getCachedData() {
         return mCachedData;
     }
 
@@ -57,50 +85,104 @@ public class MoviesAsyncTaskLoader extends AsyncTaskLoader<String> {
         if((url == null) || (url.length() <= 0))
             return;
 
-        // If there is data in the cache just return it to save re-querying.
+        // If this loader, or a previous one for the same URL, has data, just return it to
+        // save re-querying and re-parsing.
+        if(mCachedData == null)
+            mCachedData = mParsedResultsCache.get(url);
         if(mCachedData == null)
             this.onForceLoad();
-        else
-            deliverResult(mCachedData);
+        else {
+            PARSED_CACHE_HITS.increment();
+            this.deliverData(mCachedData);
+        }
     }
 
     /**
-     * Override to cache loaded JSON data.
-     * @param data Loaded JSON data.
+     * Override to cache loaded data.
+     * <p>Only the result of a load is delivered here, so that it ends any revalidation;
+     * data already cached is delivered again by {@link #deliverData(Object)}, e.g. as the
+     * loader is restarted while a revalidation is still loading.</p>
+     * @param data Loaded data.
      */
     @Override
-    public void deliverResult(@Nullable String data) {
+    public void deliverResult(@Nullable T data) {
+        // If revalidation failed, e.g. because there is no network, keep expired data.
+        boolean revalidated = mRevalidating;
+        mRevalidating = false;
+        if((data == null) && revalidated && (mCachedData != null))
+            return;
+
+        this.deliverData(data);
+    }
+
+    /**
+     * Deliver data, cache it, and, if it is an expired response, load again to revalidate it.
+     * @param data Data.
+     */
+    private void deliverData(@Nullable T data) {
         mCachedData = data;
         super.deliverResult(data);
+
+        // Share data with later loaders, unless it is about to be, or being, revalidated.
+        if(!mRevalidate && !mRevalidating)
+            mParsedResultsCache.put(mArgs.getString(MOVIE_URL_EXTRA), data);
+
+        // Having delivered expired data from the cache, load again to revalidate it.
+        if(mRevalidate) {
+            REVALIDATIONS.increment();
+            mRevalidate = false;
+            mRevalidating = true;
+            this.forceLoad();
+        }
     }
 
     /**
      * Execute URL for Movie DB API.
      * <p>Run on background thread.</p>
-     * @return Resulting JSON movies data.
+     * @return Resulting parsed data or null, if it could not be loaded.
      */
     @Override
-    public String loadInBackground() {
-        if(Utils.isOnline()) {
+    public T loadInBackground() {
+        long start = LOAD_TIMES.begin();
+        try {
+            return this.load();
+        } finally {
+            LOAD_TIMES.end(start);
+        }
+    }
+
+    /**
+     * Load from cache or network.
+     * <p>Run on background thread.</p>
+     * @return Resulting parsed data or null, if it could not be loaded.
+     */
+    private T load() {
+        URL moviesURL;
+        try {
+            moviesURL = new URL(mArgs.getString(MOVIE_URL_EXTRA));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+
+        // Unless revalidating, try the cache first, expired or not, to avoid waiting on the network.
+        if(!mRevalidating) {
             try {
-                URL moviesURL = new URL(mArgs.getString(MOVIE_URL_EXTRA));
-                HttpURLConnection connection = (HttpURLConnection)moviesURL.openConnection();
-                try {
-                    InputStream stream = connection.getInputStream();
-                    try {
-                        // Read stream with Scanner using \A to read entire stream in one go,
-                        // automatically handling buffering and UTF-8 to UTF-16 conversion.
-                        Scanner scanner = new Scanner(stream);
-                        scanner.useDelimiter("\\A");
-                        if (scanner.hasNext()) {
-                            return scanner.next();
-                        }
-                    } finally {
-                        stream.close();
-                    }
-                } finally {
-                    connection.disconnect();
+                MoviesHttpClient.Result<T> cached = mHttpClient.get(moviesURL, true, mParser);
+                if(cached != null) {
+                    // If expired, revalidate once delivered, unless there is no network to do so.
+                    mRevalidate = cached.isStale() && mConnectivityMonitor.isOnline();
+                    return cached.getData();
                 }
+            } catch (IOException e) {
+                e.printStackTrace(); // Fall back to network.
+            }
+        }
+
+        // When offline, go no further than the cache.
+        if(mConnectivityMonitor.isOnline()) {
+            try {
+                return mHttpClient.get(moviesURL, false, mParser).getData();
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -108,4 +190,4 @@ public class MoviesAsyncTaskLoader extends AsyncTaskLoader<String> {
 
         return null;
     }
-};
\ No newline at end of file
+}
\ No newline at end of file
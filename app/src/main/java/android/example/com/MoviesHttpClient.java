@@ -0,0 +1,475 @@
+package android.example.com;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URL;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * HTTP client for querying of Movie DB API, shared by all loaders.
+ * <p>Connections are kept alive in a pool and reused by later requests, so requests made
+ * together, e.g. videos and reviews, do not each pay for their own TCP and TLS handshakes.
+ * Responses are requested gzip compressed and decompressed as they are read.</p>
+ * <p>Responses are kept in a disk cache, which survives the app being closed. It honours
+ * the Cache-Control, ETag and Last-Modified headers of the Movie DB API, so an expired
+ * response is revalidated with a conditional request and only downloaded again if it has
+ * changed.</p>
+ * <p>Identical requests made at the same time, e.g. by loaders started again on rotation,
+ * share a single request and its parsed result.</p>
+ * <p>Requests that go to the network are paced by a {@link RateLimiter} shared by every
+ * thread, which follows the Retry-After header of responses rejected for being over the rate
+ * limit. Requests that fail in a way that may succeed if tried again are retried after a
+ * jittered, exponentially growing delay, as set by a {@link RetryPolicy}.</p>
+ */
+public class MoviesHttpClient {
+
+    /**
+     * Parser of body of Movie DB API response.
+     * @param <T> Type of parsed result.
+     */
+    public interface ResponseParser<T> {
+        /**
+         * Parse response.
+         * <p>Run on background thread.</p>
+         * @param stream Stream of JSON response; closed by caller.
+         * @return Parsed result.
+         * @throws IOException If stream could not be read.
+         */
+        T parse(InputStream stream) throws IOException;
+    }
+
+    /**
+     * Parsed result of request.
+     * @param <T> Type of parsed result.
+     */
+    public static class Result<T> {
+        private final T mData;
+        private final boolean mStale;
+
+        /**
+         * Constructor.
+         * @param data Parsed data.
+         * @param stale Whether data came from an expired response in the cache.
+         */
+        public Result(T data, boolean stale) {
+            mData = data;
+            mStale = stale;
+        }
+
+        /**
+         * Get parsed data.
+         * @return Parsed data.
+         */
+        public T getData() {
+            return mData;
+        }
+
+        /**
+         * Find out whether data came from an expired response in the cache, so should be
+         * revalidated.
+         * @return Whether data is stale.
+         */
+        public boolean isStale() {
+            return mStale;
+        }
+    }
+
+    // HTTP response cache.
+    private static final String HTTP_CACHE_DIRECTORY = "http";
+    private static final long HTTP_CACHE_SIZE = 10 * 1024 * 1024; // Least recently used evicted beyond this.
+    private static final int HTTP_CACHE_MAX_STALE = 60 * 60 * 24 * 28; // Seconds expired responses may be used.
+    private static final String HTTP_HEADER_WARNING = "Warning";
+    private static final String HTTP_WARNING_STALE = "110"; // Warning code added to expired responses.
+
+    // Connections.
+    private static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10000;
+    private static final int DEFAULT_READ_TIMEOUT_MILLIS = 15000;
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    // Rate limiting and retries; the Movie DB API allows around 40 requests a second.
+    private static final double MAX_REQUESTS_PER_SECOND = 20;
+    private static final double MIN_REQUESTS_PER_SECOND = 2;
+    private static final int REQUEST_BURST = 10;
+    private static final int MAX_CONCURRENT_REQUESTS = 4;
+    private static final long MAX_RATE_LIMIT_WAIT_MILLIS = 10000;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_BASE_DELAY_MILLIS = 250;
+    private static final long RETRY_MAX_DELAY_MILLIS = 5000;
+    private static final String HTTP_HEADER_RETRY_AFTER = "Retry-After";
+
+    private final static Object LOCK = new Object();
+
+    private static volatile MoviesHttpClient mInstance = null;
+
+    /**
+     * Implement singleton, creating single instance of HTTP client with default timeouts,
+     * caching to the cache directory of the app, if not created, or simply retrieving
+     * previously created instance.
+     * @param context Context within which to create client, if necessary.
+     * @return HTTP client.
+     */
+    public static MoviesHttpClient getInstance(Context context) {
+        if (mInstance == null) {
+            synchronized (LOCK) {
+                if (mInstance == null) {
+                    File cacheDirectory = new File(context.getApplicationContext().getCacheDir(), HTTP_CACHE_DIRECTORY);
+                    mInstance = new MoviesHttpClient(cacheDirectory, HTTP_CACHE_SIZE, DEFAULT_CONNECT_TIMEOUT_MILLIS, DEFAULT_READ_TIMEOUT_MILLIS);
+                    mInstance.registerGauges(PerformanceMetrics.getInstance());
+                }
+            }
+        }
+
+        return mInstance;
+    }
+
+    private final OkHttpClient mClient;
+    private final RequestCoalescer mCoalescer = new RequestCoalescer();
+    private final RateLimiter mRateLimiter;
+    private final RetryPolicy mRetryPolicy;
+
+    // Time to response headers, from cache or network, and time to parse body as it is read.
+    private static final PerformanceMetrics.Histogram RESPONSE_TIMES = PerformanceMetrics.getInstance().histogram("http.response");
+    private static final PerformanceMetrics.Histogram PARSE_TIMES = PerformanceMetrics.getInstance().histogram("json.parse");
+
+    private final AtomicLong mRequests = new AtomicLong();
+    private final AtomicLong mRetries = new AtomicLong();
+    private final AtomicLong mConnectionsOpened = new AtomicLong();
+    private final AtomicLong mConnectionsAcquired = new AtomicLong();
+
+    /**
+     * Constructor, with default rate limiting and retries.
+     * @param cacheDirectory Directory of disk cache, or null for no cache.
+     * @param cacheSize Maximum size of disk cache in bytes.
+     * @param connectTimeoutMillis Timeout to connect to server.
+     * @param readTimeoutMillis Timeout between bytes of response.
+     */
+    public MoviesHttpClient(File cacheDirectory, long cacheSize, int connectTimeoutMillis, int readTimeoutMillis) {
+        this(cacheDirectory, cacheSize, connectTimeoutMillis, readTimeoutMillis,
+                new RateLimiter(MAX_REQUESTS_PER_SECOND, MIN_REQUESTS_PER_SECOND, REQUEST_BURST, MAX_CONCURRENT_REQUESTS, MAX_RATE_LIMIT_WAIT_MILLIS),
+                new RetryPolicy(MAX_ATTEMPTS, RETRY_BASE_DELAY_MILLIS, RETRY_MAX_DELAY_MILLIS));
+    }
+
+    /**
+     * Constructor.
+     * @param cacheDirectory Directory of disk cache, or null for no cache.
+     * @param cacheSize Maximum size of disk cache in bytes.
+     * @param connectTimeoutMillis Timeout to connect to server.
+     * @param readTimeoutMillis Timeout between bytes of response.
+     * @param rateLimiter Limiter of requests to the network.
+     * @param retryPolicy Policy for retrying failed requests.
+     */
+    public MoviesHttpClient(File cacheDirectory, long cacheSize, int connectTimeoutMillis, int readTimeoutMillis, RateLimiter rateLimiter, RetryPolicy retryPolicy) {
+        mRateLimiter = rateLimiter;
+        mRetryPolicy = retryPolicy;
+
+        // Rate limit as a network interceptor, so responses from the cache are not limited.
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .connectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS)
+                .addNetworkInterceptor(new RateLimitInterceptor())
+                .eventListener(new ConnectionMetricsListener());
+        if(cacheDirectory != null)
+            builder.cache(new Cache(cacheDirectory, cacheSize));
+        mClient = builder.build();
+    }
+
+    /**
+     * Request URL and parse response, or wait for an identical request already in flight and
+     * share its result, which must therefore not be modified.
+     * <p>Run on background thread.</p>
+     * @param url URL for Movie DB API.
+     * @param fromCache Whether to only use the cache, including expired responses, or to
+     * go through the cache to the network, revalidating any expired response.
+     * @param parser Parser of response.
+     * @param <T> Type of parsed result.
+     * @return Parsed result or null, if only using the cache and it has no response.
+     * @throws IOException If response could not be loaded or was unsuccessful.
+     */
+    public <T> Result<T> get(final URL url, final boolean fromCache, final ResponseParser<T> parser) throws IOException {
+        // Requests are identical if they are for the same resource, from the same source,
+        // parsed in the same way.
+        String key = (fromCache ? "cache " : "network ") + RequestCoalescer.canonicalise(url) + " " + parser.getClass().getName();
+        return mCoalescer.execute(key, new RequestCoalescer.Request<Result<T>>() {
+            @Override
+            public Result<T> execute() throws IOException {
+                return request(url, fromCache, parser);
+            }
+        });
+    }
+
+    /**
+     * Request URL and parse response.
+     * <p>Run on background thread.</p>
+     * @param url URL for Movie DB API.
+     * @param fromCache Whether to only use the cache.
+     * @param parser Parser of response.
+     * @param <T> Type of parsed result.
+     * @return Parsed result or null, if only using the cache and it has no response.
+     * @throws IOException If response could not be loaded or was unsuccessful.
+     */
+    private <T> Result<T> request(URL url, boolean fromCache, ResponseParser<T> parser) throws IOException {
+        Request.Builder request = new Request.Builder().url(url);
+        if(fromCache)
+            request.cacheControl(new CacheControl.Builder().onlyIfCached().maxStale(HTTP_CACHE_MAX_STALE, TimeUnit.SECONDS).build());
+
+        Response response = this.execute(request.build(), fromCache);
+        ResponseBody body = response.body();
+        try {
+            // Cache has no response.
+            if(fromCache && (response.code() == HttpURLConnection.HTTP_GATEWAY_TIMEOUT))
+                return null;
+
+            if(!response.isSuccessful() || (body == null))
+                throw new IOException("HTTP " + response.code() + " for " + url);
+
+            InputStream stream = body.byteStream();
+
+            // Parse straight from stream, without reading it into a string first.
+            T data;
+            long start = PARSE_TIMES.begin();
+            try {
+                data = parser.parse(stream);
+            } finally {
+                PARSE_TIMES.end(start);
+            }
+
+            // Read any remainder of response, as it is only written to the cache, and the
+            // connection only returned to the pool, once read in full.
+            byte[] buffer = new byte[1024];
+            while(stream.read(buffer) != -1) { /* Discard. */ }
+
+            String warning = response.header(HTTP_HEADER_WARNING);
+            boolean stale = (warning != null) && warning.startsWith(HTTP_WARNING_STALE);
+
+            return new Result<>(data, stale);
+        } finally {
+            response.close();
+        }
+    }
+
+    /**
+     * Make request, retrying, as set by the retry policy, if it fails in a way that may
+     * succeed if tried again; requests only using the cache are never retried.
+     * <p>Run on background thread.</p>
+     * @param request Request.
+     * @param fromCache Whether only using the cache.
+     * @return Response, which may be unsuccessful, once retries are exhausted.
+     * @throws IOException If request could not be made, once retries are exhausted.
+     */
+    private Response execute(Request request, boolean fromCache) throws IOException {
+        for(int attempt = 1; ; attempt++) {
+            mRequests.incrementAndGet();
+            long start = RESPONSE_TIMES.begin();
+            Response response;
+            try {
+                response = mClient.newCall(request).execute();
+            } catch (RateLimiter.RateLimitedException | InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                // Network failed, e.g. connection reset.
+                if(fromCache || (attempt >= mRetryPolicy.getMaxAttempts()))
+                    throw e;
+                e.printStackTrace();
+                this.waitToRetry(mRetryPolicy.getDelayMillis(attempt, 0));
+                continue;
+            } finally {
+                RESPONSE_TIMES.end(start);
+            }
+
+            if(fromCache || !RetryPolicy.isRetryable(response.code()) || (attempt >= mRetryPolicy.getMaxAttempts()))
+                return response;
+
+            // Not worth retrying if server asks for a longer wait than allowed.
+            long delayMillis = mRetryPolicy.getDelayMillis(attempt, getRetryAfterMillis(response));
+            if(delayMillis < 0)
+                return response;
+
+            response.close();
+            this.waitToRetry(delayMillis);
+        }
+    }
+
+    /**
+     * Wait before retrying request.
+     * @param delayMillis Delay.
+     * @throws InterruptedIOException If interrupted while waiting, e.g. as loader is cancelled.
+     */
+    private void waitToRetry(long delayMillis) throws InterruptedIOException {
+        mRetries.incrementAndGet();
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting to retry request");
+        }
+    }
+
+    /**
+     * Get time until server said to retry request, from Retry-After header of response, in
+     * seconds or as a date.
+     * @param response Response.
+     * @return Time in milliseconds, or 0 if server did not say.
+     */
+    private static long getRetryAfterMillis(Response response) {
+        String retryAfter = response.header(HTTP_HEADER_RETRY_AFTER);
+        if(retryAfter == null)
+            return 0;
+
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(retryAfter.trim())));
+        } catch (NumberFormatException e) {
+            Date date = response.headers().getDate(HTTP_HEADER_RETRY_AFTER);
+            return (date != null) ? Math.max(0, date.getTime() - System.currentTimeMillis()) : 0;
+        }
+    }
+
+    /**
+     * Register gauges of requests and connections in performance metrics.
+     * @param performanceMetrics Performance metrics registry.
+     */
+    private void registerGauges(PerformanceMetrics performanceMetrics) {
+        performanceMetrics.register("http.requests", new PerformanceMetrics.Gauge() {
+            @Override
+            public double getValue() {
+                return getRequests();
+            }
+        });
+        performanceMetrics.register("http.coalesced", new PerformanceMetrics.Gauge() {
+            @Override
+            public double getValue() {
+                return getCoalescedRequests();
+            }
+        });
+        performanceMetrics.register("http.connections_reused", new PerformanceMetrics.Gauge() {
+            @Override
+            public double getValue() {
+                return getConnectionsReused();
+            }
+        });
+        performanceMetrics.register("http.retries", new PerformanceMetrics.Gauge() {
+            @Override
+            public double getValue() {
+                return getRetries();
+            }
+        });
+        performanceMetrics.register("http.throttled", new PerformanceMetrics.Gauge() {
+            @Override
+            public double getValue() {
+                return mRateLimiter.getThrottled();
+            }
+        });
+        performanceMetrics.register("http.rate_limited", new PerformanceMetrics.Gauge() {
+            @Override
+            public double getValue() {
+                return mRateLimiter.getRateLimited();
+            }
+        });
+        performanceMetrics.register("http.requests_per_second", new PerformanceMetrics.Gauge() {
+            @Override
+            public double getValue() {
+                return mRateLimiter.getPermitsPerSecond();
+            }
+        });
+    }
+
+    /**
+     * Get number of requests made, whether answered by the cache or the network.
+     * @return Number of requests.
+     */
+    public long getRequests() {
+        return mRequests.get();
+    }
+
+    /**
+     * Get number of requests retried.
+     * @return Number of retries.
+     */
+    public long getRetries() {
+        return mRetries.get();
+    }
+
+    /**
+     * Get number of requests not made, because an identical request was in flight, whose
+     * result was shared instead.
+     * @return Number of requests coalesced.
+     */
+    public long getCoalescedRequests() {
+        return mCoalescer.getCoalesced();
+    }
+
+    /**
+     * Get number of new connections opened to servers.
+     * @return Number of connections opened.
+     */
+    public long getConnectionsOpened() {
+        return mConnectionsOpened.get();
+    }
+
+    /**
+     * Get number of times a pooled connection was reused by a request rather than opening a
+     * new one.
+     * @return Number of connections reused.
+     */
+    public long getConnectionsReused() {
+        return Math.max(0, mConnectionsAcquired.get() - mConnectionsOpened.get());
+    }
+
+    /**
+     * Paces requests to the network with the rate limiter, holding a permit until the
+     * response headers arrive, and tells it whether the server accepted them.
+     */
+    private class RateLimitInterceptor implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            mRateLimiter.acquire();
+            try {
+                Response response = chain.proceed(chain.request());
+                if(RetryPolicy.isRateLimited(response.code()))
+                    mRateLimiter.onRateLimited(getRetryAfterMillis(response));
+                else if(response.code() < HttpURLConnection.HTTP_INTERNAL_ERROR)
+                    mRateLimiter.onAccepted();
+                return response;
+            } finally {
+                mRateLimiter.release();
+            }
+        }
+    }
+
+    /**
+     * Counts connections opened and acquired by requests, to measure reuse.
+     */
+    private class ConnectionMetricsListener extends EventListener {
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            mConnectionsOpened.incrementAndGet();
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            mConnectionsAcquired.incrementAndGet();
+        }
+    }
+}
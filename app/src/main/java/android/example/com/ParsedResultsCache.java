@@ -0,0 +1,121 @@
+package android.example.com;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory cache of parsed results of Movie DB API requests, e.g. lists of videos, keyed by
+ * URL and shared by all loaders for the lifetime of the process.
+ * <p>A loader started again for the same URL, e.g. on opening the same movie again, is given
+ * the result straight away, without reading or parsing the response again. Results must not
+ * be modified once cached. Least recently used results are evicted beyond the maximum number
+ * of entries, and results are dropped once older than the maximum age, so they are
+ * eventually requested again.</p>
+ */
+public class ParsedResultsCache {
+
+    private static final int DEFAULT_MAX_ENTRIES = 64;
+    private static final long DEFAULT_MAX_AGE_MILLIS = 10 * 60 * 1000;
+
+    private final static Object LOCK = new Object();
+
+    private static volatile ParsedResultsCache mInstance = null;
+
+    /**
+     * Implement singleton, creating single instance of cache, if not created, or simply
+     * retrieving previously created instance.
+     * @return Parsed results cache.
+     */
+    public static ParsedResultsCache getInstance() {
+        if (mInstance == null) {
+            synchronized (LOCK) {
+                if (mInstance == null) {
+                    final ParsedResultsCache cache = new ParsedResultsCache(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_AGE_MILLIS);
+                    PerformanceMetrics.getInstance().register("parsed_cache.size", new PerformanceMetrics.Gauge() {
+                        @Override
+                        public double getValue() {
+                            return cache.size();
+                        }
+                    });
+                    mInstance = cache;
+                }
+            }
+        }
+
+        return mInstance;
+    }
+
+    /**
+     * Cached result and when it was cached.
+     */
+    private static class Entry {
+        final Object data;
+        final long cachedAt;
+
+        Entry(Object data, long cachedAt) {
+            this.data = data;
+            this.cachedAt = cachedAt;
+        }
+    }
+
+    private final long mMaxAgeMillis;
+    private final LinkedHashMap<String, Entry> mEntries;
+
+    /**
+     * Constructor.
+     * @param maxEntries Maximum number of results to cache.
+     * @param maxAgeMillis Maximum time for which a result is kept.
+     */
+    public ParsedResultsCache(final int maxEntries, long maxAgeMillis) {
+        mMaxAgeMillis = maxAgeMillis;
+
+        // Access order, so eldest is least recently used.
+        mEntries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Get cached result.
+     * @param url URL of request.
+     * @param <T> Type of parsed result, as cached for URL.
+     * @return Result or null, if not cached or too old.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T get(String url) {
+        Entry entry = mEntries.get(url);
+        if(entry == null)
+            return null;
+
+        long age = System.currentTimeMillis() - entry.cachedAt;
+        if((age < 0) || (age >= mMaxAgeMillis)) {
+            mEntries.remove(url);
+            return null;
+        }
+
+        return (T)entry.data;
+    }
+
+    /**
+     * Cache result, replacing any result already cached for URL.
+     * @param url URL of request.
+     * @param data Parsed result; must not be modified afterwards.
+     */
+    public synchronized void put(String url, Object data) {
+        if(data == null)
+            return;
+
+        mEntries.put(url, new Entry(data, System.currentTimeMillis()));
+    }
+
+    /**
+     * Get number of results cached, including any too old to be returned.
+     * @return Number of results.
+     */
+    public synchronized int size() {
+        return mEntries.size();
+    }
+}
@@ -0,0 +1,360 @@
+package android.example.com;
+
+import androidx.core.os.TraceCompat;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Registry of performance metrics: counters, gauges and latency histograms, by name; a
+ * singleton.
+ * <p>Metrics are created once, e.g. into static fields, and then updated without
+ * allocating or locking, so they can be used on the main user interface thread, e.g. while
+ * binding. Histograms can also mark trace sections, for systrace, while tracing is enabled.
+ * A snapshot of all metrics can be exported as JSON, e.g. from the debug screen.</p>
+ */
+public class PerformanceMetrics {
+
+    private final static Object LOCK = new Object();
+
+    private static volatile PerformanceMetrics mInstance = null;
+
+    /**
+     * Implement singleton, creating single instance of registry, if not created, or simply
+     * retrieving previously created instance.
+     * @return Performance metrics registry.
+     */
+    public static PerformanceMetrics getInstance() {
+        if (mInstance == null) {
+            synchronized (LOCK) {
+                if (mInstance == null) {
+                    mInstance = new PerformanceMetrics();
+                }
+            }
+        }
+
+        return mInstance;
+    }
+
+    private static volatile boolean mTracing = false;
+    /**
+     * Set whether histograms mark trace sections as they time, e.g. in debug builds. Off by
+     * default, so tests on the JVM never call the Android framework.
+     * @param tracing Whether to trace.
+     */
+    public static void setTracing(boolean tracing) {
+        mTracing = tracing;
+    }
+
+    private final ConcurrentHashMap<String, Counter> mCounters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Gauge> mGauges = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Histogram> mHistograms = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor; public for tests, which need a registry of their own.
+     */
+    public PerformanceMetrics() {
+    }
+
+    /**
+     * Get counter, creating it if necessary.
+     * @param name Name of counter, e.g. "loader.cache_hits".
+     * @return Counter.
+     */
+    public Counter counter(String name) {
+        Counter counter = mCounters.get(name);
+        if(counter == null) {
+            Counter created = new Counter();
+            counter = mCounters.putIfAbsent(name, created);
+            if(counter == null)
+                counter = created;
+        }
+
+        return counter;
+    }
+
+    /**
+     * Register gauge, replacing any of the same name.
+     * @param name Name of gauge, e.g. "networkIO.queue_depth".
+     * @param gauge Gauge, read when a snapshot is taken.
+     */
+    public void register(String name, Gauge gauge) {
+        mGauges.put(name, gauge);
+    }
+
+    /**
+     * Get histogram, creating it if necessary.
+     * @param name Name of histogram, e.g. "http.request", also used as name of trace section.
+     * @return Histogram.
+     */
+    public Histogram histogram(String name) {
+        Histogram histogram = mHistograms.get(name);
+        if(histogram == null) {
+            Histogram created = new Histogram(name);
+            histogram = mHistograms.putIfAbsent(name, created);
+            if(histogram == null)
+                histogram = created;
+        }
+
+        return histogram;
+    }
+
+    /**
+     * Reset counters and histograms, e.g. before measuring a scenario; gauges are unaffected.
+     */
+    public void reset() {
+        for(Counter counter: mCounters.values())
+            counter.reset();
+        for(Histogram histogram: mHistograms.values())
+            histogram.reset();
+    }
+
+    /**
+     * Take snapshot of all metrics, as JSON, with metrics in order of name and times in
+     * milliseconds.
+     * @return JSON object of counters, gauges and histograms.
+     */
+    public JSONObject snapshot() {
+        JSONObject snapshot = new JSONObject();
+        try {
+            snapshot.put("timestamp", System.currentTimeMillis());
+
+            JSONObject counters = new JSONObject();
+            for(Map.Entry<String, Counter> entry: new TreeMap<>(mCounters).entrySet())
+                counters.put(entry.getKey(), entry.getValue().get());
+            snapshot.put("counters", counters);
+
+            JSONObject gauges = new JSONObject();
+            for(Map.Entry<String, Gauge> entry: new TreeMap<>(mGauges).entrySet()) {
+                double value = entry.getValue().getValue();
+                gauges.put(entry.getKey(), (Double.isNaN(value) || Double.isInfinite(value)) ? JSONObject.NULL : value);
+            }
+            snapshot.put("gauges", gauges);
+
+            JSONObject histograms = new JSONObject();
+            for(Map.Entry<String, Histogram> entry: new TreeMap<>(mHistograms).entrySet())
+                histograms.put(entry.getKey(), entry.getValue().toJson());
+            snapshot.put("histograms", histograms);
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Count of events, e.g. cache hits.
+     */
+    public static class Counter {
+        private final AtomicLong mCount = new AtomicLong();
+
+        /**
+         * Add one to count.
+         */
+        public void increment() {
+            mCount.incrementAndGet();
+        }
+
+        /**
+         * Add to count.
+         * @param delta Amount to add.
+         */
+        public void add(long delta) {
+            mCount.addAndGet(delta);
+        }
+
+        /**
+         * Get count.
+         * @return Count.
+         */
+        public long get() {
+            return mCount.get();
+        }
+
+        private void reset() {
+            mCount.set(0);
+        }
+    }
+
+    /**
+     * Value read when a snapshot is taken, e.g. the depth of a queue.
+     */
+    public interface Gauge {
+        /**
+         * Get current value.
+         * @return Value.
+         */
+        double getValue();
+    }
+
+    /**
+     * Histogram of latencies, in microseconds, from 1 microsecond to hours, whose buckets
+     * are spaced so that any value, and so any percentile, is within about 6% (HDR-style:
+     * 16 linear buckets for each power of two).
+     * <p>Recording a value just increments a bucket: it neither allocates nor locks.</p>
+     */
+    public static class Histogram {
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int MAX_MAGNITUDE = 40; // 2^40 microseconds is about 12 days.
+        private static final int BUCKETS = SUB_BUCKETS + (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+        private final String mName;
+        private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong mCount = new AtomicLong();
+        private final AtomicLong mTotalMicros = new AtomicLong();
+        private final AtomicLong mMaxMicros = new AtomicLong();
+
+        /**
+         * Constructor.
+         * @param name Name of histogram, also used as name of trace section.
+         */
+        Histogram(String name) {
+            mName = name;
+        }
+
+        /**
+         * Start timing, marking start of trace section if tracing.
+         * <p>Must be followed by {@link #end(long)} on the same thread, e.g. in a finally block.</p>
+         * @return Start time, to pass to end.
+         */
+        public long begin() {
+            if(mTracing)
+                TraceCompat.beginSection(mName);
+            return System.nanoTime();
+        }
+
+        /**
+         * Stop timing and record time taken, marking end of trace section if tracing.
+         * @param startNanos Start time returned by begin.
+         */
+        public void end(long startNanos) {
+            this.recordNanos(System.nanoTime() - startNanos);
+            if(mTracing)
+                TraceCompat.endSection();
+        }
+
+        /**
+         * Record time taken.
+         * @param nanos Time in nanoseconds.
+         */
+        public void recordNanos(long nanos) {
+            long micros = Math.max(0, nanos / 1000);
+            mBuckets.incrementAndGet(bucketOf(micros));
+            mCount.incrementAndGet();
+            mTotalMicros.addAndGet(micros);
+            long max = mMaxMicros.get();
+            while((micros > max) && !mMaxMicros.compareAndSet(max, micros))
+                max = mMaxMicros.get();
+        }
+
+        /**
+         * Get number of times recorded.
+         * @return Number of times.
+         */
+        public long getCount() {
+            return mCount.get();
+        }
+
+        /**
+         * Get average time.
+         * @return Time in milliseconds, or 0 if none recorded.
+         */
+        public double getMeanMillis() {
+            long count = mCount.get();
+            return (count == 0) ? 0 : (mTotalMicros.get() / 1000.0) / count;
+        }
+
+        /**
+         * Get longest time.
+         * @return Time in milliseconds.
+         */
+        public double getMaxMillis() {
+            return mMaxMicros.get() / 1000.0;
+        }
+
+        /**
+         * Get time that percentage of times recorded were no longer than.
+         * @param percentile Percentage, from 0 to 100.
+         * @return Time in milliseconds, the upper end of the bucket it is in, or 0 if none
+         * recorded.
+         */
+        public double getPercentileMillis(double percentile) {
+            long count = 0;
+            for(int bucket = 0; bucket < BUCKETS; bucket++)
+                count += mBuckets.get(bucket);
+            if(count == 0)
+                return 0;
+
+            long target = Math.max(1, (long)Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100));
+            long seen = 0;
+            for(int bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += mBuckets.get(bucket);
+                if(seen >= target)
+                    return Math.min(highestOf(bucket), mMaxMicros.get()) / 1000.0;
+            }
+
+            return this.getMaxMillis();
+        }
+
+        /**
+         * Get summary of histogram as JSON.
+         * @return JSON object of count, mean, percentiles and maximum, in milliseconds.
+         * @throws JSONException If a value cannot be represented.
+         */
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("count", this.getCount());
+            json.put("mean_ms", this.getMeanMillis());
+            json.put("p50_ms", this.getPercentileMillis(50));
+            json.put("p90_ms", this.getPercentileMillis(90));
+            json.put("p99_ms", this.getPercentileMillis(99));
+            json.put("max_ms", this.getMaxMillis());
+            return json;
+        }
+
+        private void reset() {
+            for(int bucket = 0; bucket < BUCKETS; bucket++)
+                mBuckets.set(bucket, 0);
+            mCount.set(0);
+            mTotalMicros.set(0);
+            mMaxMicros.set(0);
+        }
+
+        /**
+         * Get bucket of value: values below 16 have a bucket each; above that, each power of
+         * two is split into 16 buckets by the 4 bits after its highest bit.
+         * @param micros Value.
+         * @return Index of bucket.
+         */
+        static int bucketOf(long micros) {
+            if(micros < SUB_BUCKETS)
+                return (int)micros;
+
+            int magnitude = Math.min(MAX_MAGNITUDE, 63 - Long.numberOfLeadingZeros(micros));
+            int shift = magnitude - SUB_BUCKET_BITS;
+            int subBucket = (int)Math.min(SUB_BUCKETS - 1, (micros >>> shift) - SUB_BUCKETS);
+            return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+        }
+
+        /**
+         * Get highest value in bucket.
+         * @param bucket Index of bucket.
+         * @return Value.
+         */
+        static long highestOf(int bucket) {
+            if(bucket < SUB_BUCKETS)
+                return bucket;
+
+            int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+            int subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+            return ((long)(SUB_BUCKETS + subBucket + 1) << shift) - 1;
+        }
+    }
+}
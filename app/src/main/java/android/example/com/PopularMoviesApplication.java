@@ -0,0 +1,143 @@
+package android.example.com;
+
+import android.app.Application;
+import android.example.com.Database.FavouritesDatabase;
+import android.example.com.Database.FavouritesIndex;
+import android.example.com.Database.FavouritesWriteQueue;
+import android.os.SystemClock;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleObserver;
+import androidx.lifecycle.OnLifecycleEvent;
+import androidx.lifecycle.ProcessLifecycleOwner;
+
+import com.squareup.picasso.Picasso;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Popular Movies app, which initialises its components at startup: only what the first
+ * frame needs on the main user interface thread, and the rest in the background, so that
+ * none of them delays the first frame.
+ * <p>Also records time from the start of the process to the first frame and first poster
+ * drawn, in the performance metrics, and writes any queued changes to favourites when the
+ * app goes into the background.</p>
+ */
+public class PopularMoviesApplication extends Application {
+
+    // As early as app code runs, before any content providers are created.
+    private static final long START_MILLIS = SystemClock.uptimeMillis();
+
+    private static final AtomicBoolean mFirstFrameRecorded = new AtomicBoolean(false);
+    private static final AtomicBoolean mFirstPosterRecorded = new AtomicBoolean(false);
+
+    /**
+     * Initialise components of app.
+     */
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        final Application application = this;
+        new StartupInitializer(AppExecutors.getInstance().diskIO(), PerformanceMetrics.getInstance())
+                .add("tracing", true, new Runnable() {
+                    @Override
+                    public void run() {
+                        // Mark trace sections of performance metrics for systrace in debug builds.
+                        PerformanceMetrics.setTracing(BuildConfig.DEBUG);
+                    }
+                })
+                .add("database", false, new Runnable() {
+                    @Override
+                    public void run() {
+                        // Open database, migrating it if necessary.
+                        FavouritesDatabase.getInstance(application).getOpenHelper().getWritableDatabase();
+                    }
+                })
+                .add("favourites_index", false, new Runnable() {
+                    @Override
+                    public void run() {
+                        FavouritesIndex.getInstance(application);
+                    }
+                }, "database")
+                .add("connectivity", false, new Runnable() {
+                    @Override
+                    public void run() {
+                        ConnectivityMonitor.getInstance(application);
+                    }
+                })
+                .add("http_client", false, new Runnable() {
+                    @Override
+                    public void run() {
+                        MoviesHttpClient.getInstance(application);
+                    }
+                })
+                .add("details_prefetcher", false, new Runnable() {
+                    @Override
+                    public void run() {
+                        DetailsPrefetcher.getInstance(application);
+                    }
+                }, "http_client", "connectivity")
+                .add("catalogue_sync", false, new Runnable() {
+                    @Override
+                    public void run() {
+                        CatalogueSyncWorker.schedule(application);
+                    }
+                })
+                .add("picasso", false, new Runnable() {
+                    @Override
+                    public void run() {
+                        // Create memory cache, disk cache and dispatcher of images.
+                        Picasso.get();
+                    }
+                })
+                .start();
+
+        ProcessLifecycleOwner.get().getLifecycle().addObserver(new LifecycleObserver() {
+            /**
+             * Write any changes to favourites as the app goes into the background, after
+             * which its process may be killed at any time.
+             */
+            @OnLifecycleEvent(Lifecycle.Event.ON_STOP)
+            public void onBackground() {
+                FavouritesWriteQueue.getInstance(application).flush();
+            }
+        });
+    }
+
+    /**
+     * Record time to first frame drawn, if not yet recorded.
+     * <p>Run on main user interface thread.</p>
+     */
+    public static void onFirstFrame() {
+        if(mFirstFrameRecorded.compareAndSet(false, true))
+            recordSinceStart("startup.first_frame");
+    }
+
+    /**
+     * Find out whether time to first poster drawn has been recorded, so posters need not be
+     * watched for it.
+     * @return Whether recorded.
+     */
+    public static boolean isFirstPosterRecorded() {
+        return mFirstPosterRecorded.get();
+    }
+
+    /**
+     * Record time to first poster drawn, if not yet recorded.
+     * <p>Run on main user interface thread.</p>
+     */
+    public static void onFirstPoster() {
+        if(mFirstPosterRecorded.compareAndSet(false, true))
+            recordSinceStart("startup.first_poster");
+    }
+
+    /**
+     * Record time since start of process.
+     * @param name Name of histogram.
+     */
+    private static void recordSinceStart(String name) {
+        long millis = SystemClock.uptimeMillis() - START_MILLIS;
+        PerformanceMetrics.getInstance().histogram(name).recordNanos(millis * 1000000);
+    }
+}
@@ -0,0 +1,390 @@
+package android.example.com;
+
+import androidx.annotation.NonNull;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor of a fixed number of threads, which runs queued tasks in order of priority, and
+ * then in the order they were queued, so that work for content the user can see runs before
+ * prefetching.
+ * <p>The queue is bounded. Once it is full, a prefetch task is dropped to make room for any
+ * more important task, or is itself dropped if there is no room. Any other task that does not
+ * fit is still queued, beyond capacity, so callers need not handle rejection, unless they
+ * opt in to it with {@link #executeOrReject(Runnable, Priority)}. Queue depth, wait and run
+ * times, rejections and overflows are recorded, to be read through {@link #getMetrics()}.</p>
+ */
+public class PriorityExecutor implements Executor {
+
+    /**
+     * Priority of task, from lowest to highest.
+     */
+    public enum Priority {
+        /** Work for content the user may or may not go on to see, e.g. prefetching. */
+        PREFETCH,
+        /** Work the user is waiting for, but not for content on screen. */
+        NORMAL,
+        /** Work for content on screen. */
+        VISIBLE
+    }
+
+    /**
+     * Prefetch task that wants to know if it is dropped from the queue to make room for a
+     * more important task, e.g. to release what it reserved.
+     */
+    public interface DroppableTask extends Runnable {
+        /**
+         * Called, on thread queuing more important task, once task has been dropped.
+         */
+        void onDropped();
+    }
+
+    private final String mName;
+    private final int mCapacity;
+    private final PriorityBlockingQueue<Runnable> mQueue;
+    private final ThreadPoolExecutor mExecutor;
+    private final Metrics mMetrics = new Metrics();
+    private final AtomicLong mSequence = new AtomicLong();
+
+    /**
+     * Constructor.
+     * @param name Name of executor, e.g. for metrics.
+     * @param threads Number of threads.
+     * @param capacity Maximum number of tasks waiting to run.
+     * @param threadFactory Factory for threads.
+     */
+    public PriorityExecutor(String name, int threads, int capacity, ThreadFactory threadFactory) {
+        mName = name;
+        mCapacity = Math.max(1, capacity);
+        mQueue = new PriorityBlockingQueue<>(mCapacity);
+        mExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, mQueue, threadFactory);
+    }
+
+    /**
+     * Get name of executor.
+     * @return Name.
+     */
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * Get metrics of executor.
+     * @return Metrics, which are updated as tasks run.
+     */
+    public Metrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Run task at normal priority.
+     * @param command Task.
+     */
+    @Override
+    public void execute(@NonNull Runnable command) {
+        this.execute(command, Priority.NORMAL);
+    }
+
+    /**
+     * Run task at specified priority.
+     * <p>If the queue is full and no prefetch task can be dropped to make room, a task that is
+     * not a prefetch task is queued beyond capacity.</p>
+     * @param command Task.
+     * @param priority Priority of task.
+     * @return Whether task was queued; false if it is a prefetch task dropped because the
+     * queue is full.
+     */
+    public boolean execute(@NonNull Runnable command, Priority priority) {
+        return this.execute(command, priority, false);
+    }
+
+    /**
+     * Run task at specified priority, rejecting it if the queue is full, for callers that
+     * would rather shed work than queue it beyond capacity.
+     * @param command Task.
+     * @param priority Priority of task.
+     * @return Whether task was queued; false if it is a prefetch task dropped because the
+     * queue is full.
+     * @throws RejectedExecutionException If queue is full and task is not a prefetch task.
+     */
+    public boolean executeOrReject(@NonNull Runnable command, Priority priority) {
+        return this.execute(command, priority, true);
+    }
+
+    /**
+     * Run task at specified priority.
+     * @param command Task.
+     * @param priority Priority of task.
+     * @param reject Whether to reject task that is not a prefetch task if queue is full, rather
+     * than queue it beyond capacity.
+     * @return Whether task was queued; false if it is a prefetch task dropped because the
+     * queue is full.
+     * @throws RejectedExecutionException If rejecting and queue is full and task is not a
+     * prefetch task.
+     */
+    private boolean execute(Runnable command, Priority priority, boolean reject) {
+        Task task = new Task(command, priority, mSequence.getAndIncrement());
+        Task dropped = null;
+
+        synchronized (this) {
+            // Only tasks waiting to run count towards capacity: a new thread is started for the
+            // task straight away until there are enough threads.
+            if((mQueue.size() >= mCapacity) && (mExecutor.getPoolSize() >= mExecutor.getCorePoolSize())) {
+                dropped = (priority == Priority.PREFETCH) ? null : this.removeLatestPrefetchTask();
+                if(dropped != null)
+                    mMetrics.mRejected.incrementAndGet();
+                else if(priority == Priority.PREFETCH) {
+                    mMetrics.mRejected.incrementAndGet();
+                    return false; // Not worth running.
+                }
+                else if(reject) {
+                    mMetrics.mRejected.incrementAndGet();
+                    throw new RejectedExecutionException(mName + " queue is full");
+                }
+                else
+                    mMetrics.mOverflowed.incrementAndGet(); // The queue itself is unbounded.
+            }
+
+            mExecutor.execute(task);
+        }
+
+        // Outside lock, as task may take locks of its own.
+        if((dropped != null) && (dropped.command instanceof DroppableTask))
+            ((DroppableTask)dropped.command).onDropped();
+
+        return true;
+    }
+
+    /**
+     * Register gauges of metrics of executor, named after it, in performance metrics.
+     * @param performanceMetrics Performance metrics registry.
+     */
+    public void registerGauges(PerformanceMetrics performanceMetrics) {
+        performanceMetrics.register(mName + ".queue_depth", new PerformanceMetrics.Gauge() {
+            @Override
+            public double getValue() {
+                return mMetrics.getQueueDepth();
+            }
+        });
+        performanceMetrics.register(mName + ".rejected", new PerformanceMetrics.Gauge() {
+            @Override
+            public double getValue() {
+                return mMetrics.getRejected();
+            }
+        });
+        performanceMetrics.register(mName + ".overflowed", new PerformanceMetrics.Gauge() {
+            @Override
+            public double getValue() {
+                return mMetrics.getOverflowed();
+            }
+        });
+        performanceMetrics.register(mName + ".mean_wait_ms", new PerformanceMetrics.Gauge() {
+            @Override
+            public double getValue() {
+                return mMetrics.getAverageWaitMillis();
+            }
+        });
+        performanceMetrics.register(mName + ".max_wait_ms", new PerformanceMetrics.Gauge() {
+            @Override
+            public double getValue() {
+                return mMetrics.getMaxWaitMillis();
+            }
+        });
+    }
+
+    /**
+     * Get number of tasks waiting to run.
+     * @return Number of tasks.
+     */
+    public int getQueueDepth() {
+        return mQueue.size();
+    }
+
+    /**
+     * Stop accepting tasks, letting those queued finish, e.g. in tests.
+     */
+    public void shutdown() {
+        mExecutor.shutdown();
+    }
+
+    /**
+     * Wait for tasks to finish after shutdown, e.g. in tests.
+     * @param timeout Maximum time to wait.
+     * @param unit Unit of timeout.
+     * @return Whether tasks finished.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return mExecutor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Remove prefetch task queued most recently, to make room for a more important task.
+     * @return Task removed or null, if there are no prefetch tasks queued.
+     */
+    private Task removeLatestPrefetchTask() {
+        Task latest = null;
+        for(Iterator<Runnable> iterator = mQueue.iterator(); iterator.hasNext(); ) {
+            Task task = (Task)iterator.next();
+            if((task.priority == Priority.PREFETCH) && ((latest == null) || (task.sequence > latest.sequence)))
+                latest = task;
+        }
+
+        return ((latest != null) && mQueue.remove(latest)) ? latest : null;
+    }
+
+    /**
+     * Task with its priority and order in which it was queued, recording its metrics as it
+     * runs.
+     */
+    private class Task implements Runnable, Comparable<Task> {
+        final Runnable command;
+        final Priority priority;
+        final long sequence;
+        final long queuedAtNanos = System.nanoTime();
+
+        Task(Runnable command, Priority priority, long sequence) {
+            this.command = command;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            long startNanos = System.nanoTime();
+            try {
+                command.run();
+            } finally {
+                mMetrics.record(startNanos - queuedAtNanos, System.nanoTime() - startNanos);
+            }
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if(priority != other.priority)
+                return other.priority.compareTo(priority); // Highest priority first.
+
+            return (sequence < other.sequence) ? -1 : ((sequence == other.sequence) ? 0 : 1);
+        }
+    }
+
+    /**
+     * Metrics of executor: number of tasks run, rejected and queued beyond capacity, and their
+     * wait and run times.
+     * <p>May be read on any thread while tasks run.</p>
+     */
+    public class Metrics {
+        private final AtomicLong mCompleted = new AtomicLong();
+        private final AtomicLong mRejected = new AtomicLong();
+        private final AtomicLong mOverflowed = new AtomicLong();
+        private final AtomicLong mTotalWaitNanos = new AtomicLong();
+        private final AtomicLong mMaxWaitNanos = new AtomicLong();
+        private final AtomicLong mTotalRunNanos = new AtomicLong();
+        private final AtomicLong mMaxRunNanos = new AtomicLong();
+
+        /**
+         * Record task that has run.
+         * @param waitNanos Time task waited in queue.
+         * @param runNanos Time task took to run.
+         */
+        private void record(long waitNanos, long runNanos) {
+            mTotalWaitNanos.addAndGet(waitNanos);
+            mTotalRunNanos.addAndGet(runNanos);
+            updateMax(mMaxWaitNanos, waitNanos);
+            updateMax(mMaxRunNanos, runNanos);
+            mCompleted.incrementAndGet();
+        }
+
+        /**
+         * Get number of tasks waiting to run.
+         * @return Number of tasks.
+         */
+        public int getQueueDepth() {
+            return PriorityExecutor.this.getQueueDepth();
+        }
+
+        /**
+         * Get number of tasks that have run, whether or not they succeeded.
+         * @return Number of tasks.
+         */
+        public long getCompleted() {
+            return mCompleted.get();
+        }
+
+        /**
+         * Get number of tasks rejected or dropped because queue was full.
+         * @return Number of tasks.
+         */
+        public long getRejected() {
+            return mRejected.get();
+        }
+
+        /**
+         * Get number of tasks queued beyond capacity because queue was full.
+         * @return Number of tasks.
+         */
+        public long getOverflowed() {
+            return mOverflowed.get();
+        }
+
+        /**
+         * Get average time tasks waited in queue.
+         * @return Time in milliseconds.
+         */
+        public double getAverageWaitMillis() {
+            return averageMillis(mTotalWaitNanos.get());
+        }
+
+        /**
+         * Get longest time a task waited in queue.
+         * @return Time in milliseconds.
+         */
+        public double getMaxWaitMillis() {
+            return mMaxWaitNanos.get() / 1e6;
+        }
+
+        /**
+         * Get average time tasks took to run.
+         * @return Time in milliseconds.
+         */
+        public double getAverageRunMillis() {
+            return averageMillis(mTotalRunNanos.get());
+        }
+
+        /**
+         * Get longest time a task took to run.
+         * @return Time in milliseconds.
+         */
+        public double getMaxRunMillis() {
+            return mMaxRunNanos.get() / 1e6;
+        }
+
+        /**
+         * Get average of total time over tasks that have run.
+         * @param totalNanos Total time in nanoseconds.
+         * @return Average time in milliseconds, or 0 if no tasks have run.
+         */
+        private double averageMillis(long totalNanos) {
+            long completed = mCompleted.get();
+            return (completed == 0) ? 0 : (totalNanos / 1e6) / completed;
+        }
+
+        /**
+         * Raise maximum to value, if it is greater.
+         * @param max Maximum.
+         * @param value Value.
+         */
+        private void updateMax(AtomicLong max, long value) {
+            long current = max.get();
+            while((value > current) && !max.compareAndSet(current, value))
+                current = max.get();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package android.example.com;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side limiter of requests to the Movie DB API, shared by all threads making them,
+ * so that prefetching and paging together stay within its rate limits, rather than having
+ * requests rejected.
+ * <p>Requests take a token from a bucket refilled at the current rate, up to a burst, and a
+ * permit, of which there are a limited number, so only so many are in flight at once. When
+ * the server rejects a request for being over its limit, all requests are paused until it
+ * says to retry, and the rate is halved; each request accepted adds back a little of the
+ * rate, up to the maximum (additive increase, multiplicative decrease).</p>
+ * <p>A request that would have to wait longer than the maximum wait fails straight away,
+ * rather than tying up its thread.</p>
+ */
+public class RateLimiter {
+
+    /**
+     * Thrown when a request would have to wait too long to be made.
+     */
+    public static class RateLimitedException extends IOException {
+        /**
+         * Constructor.
+         * @param message Detail message.
+         */
+        public RateLimitedException(String message) {
+            super(message);
+        }
+    }
+
+    // Fraction of maximum rate added back by each request accepted.
+    private static final double RATE_INCREASE_FRACTION = 0.05;
+
+    private final double mMaxPermitsPerSecond;
+    private final double mMinPermitsPerSecond;
+    private final double mBurst;
+    private final int mMaxConcurrent;
+    private final long mMaxWaitNanos;
+
+    private double mPermitsPerSecond;
+    private double mTokens;
+    private long mRefilledAt = System.nanoTime();
+    private long mPausedUntil = System.nanoTime();
+    private int mInFlight = 0;
+    private long mThrottled = 0;
+    private long mRateLimited = 0;
+
+    /**
+     * Constructor.
+     * @param maxPermitsPerSecond Maximum rate of requests, to which rate recovers.
+     * @param minPermitsPerSecond Minimum rate of requests, below which rate is never halved.
+     * @param burst Number of requests that may be made at once after none for a while.
+     * @param maxConcurrent Maximum number of requests in flight at once.
+     * @param maxWaitMillis Maximum time a request may wait to be made.
+     */
+    public RateLimiter(double maxPermitsPerSecond, double minPermitsPerSecond, int burst, int maxConcurrent, long maxWaitMillis)
+    {
+        mMaxPermitsPerSecond = maxPermitsPerSecond;
+        mMinPermitsPerSecond = Math.min(minPermitsPerSecond, maxPermitsPerSecond);
+        mBurst = Math.max(1, burst);
+        mMaxConcurrent = Math.max(1, maxConcurrent);
+        mMaxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        mPermitsPerSecond = maxPermitsPerSecond;
+        mTokens = mBurst;
+    }
+
+    /**
+     * Wait until request may be made, taking a token and a permit, which must be released
+     * with {@link #release()} once the response arrives.
+     * <p>Run on background thread.</p>
+     * @throws RateLimitedException If request would have to wait longer than maximum wait.
+     * @throws InterruptedIOException If interrupted while waiting.
+     */
+    public synchronized void acquire() throws IOException {
+        long deadline = System.nanoTime() + mMaxWaitNanos;
+        boolean throttled = false;
+        while(true) {
+            long now = System.nanoTime();
+            this.refill(now);
+
+            long waitNanos;
+            if(mPausedUntil - now > 0)
+                waitNanos = mPausedUntil - now;
+            else if(mInFlight >= mMaxConcurrent)
+                waitNanos = Math.max(1, deadline - now); // Until a permit is released.
+            else if(mTokens < 1)
+                waitNanos = (long)Math.ceil((1 - mTokens) * TimeUnit.SECONDS.toNanos(1) / mPermitsPerSecond);
+            else {
+                mTokens -= 1;
+                mInFlight++;
+                return;
+            }
+
+            // Would wait beyond the deadline, or still waiting for a permit at it.
+            if(waitNanos > deadline - now)
+                throw new RateLimitedException("Request would wait more than " + TimeUnit.NANOSECONDS.toMillis(mMaxWaitNanos) + "ms");
+
+            if(!throttled) {
+                throttled = true;
+                mThrottled++;
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting to make request");
+            }
+        }
+    }
+
+    /**
+     * Release permit taken by {@link #acquire()}, once the response has arrived.
+     */
+    public synchronized void release() {
+        mInFlight--;
+        this.notifyAll();
+    }
+
+    /**
+     * Record request accepted by the server, adding back some of the rate.
+     */
+    public synchronized void onAccepted() {
+        this.refill(System.nanoTime());
+        mPermitsPerSecond = Math.min(mMaxPermitsPerSecond, mPermitsPerSecond + (mMaxPermitsPerSecond * RATE_INCREASE_FRACTION));
+    }
+
+    /**
+     * Record request rejected by the server for being over its limit, pausing all requests
+     * and halving the rate.
+     * @param retryAfterMillis Time until the server said to retry, or 0 if it did not say.
+     */
+    public synchronized void onRateLimited(long retryAfterMillis) {
+        long now = System.nanoTime();
+        this.refill(now);
+        mRateLimited++;
+        mPermitsPerSecond = Math.max(mMinPermitsPerSecond, mPermitsPerSecond / 2);
+        mTokens = Math.min(mTokens, 0); // No burst straight after.
+        long pausedUntil = now + TimeUnit.MILLISECONDS.toNanos(Math.max(0, retryAfterMillis));
+        if(pausedUntil - mPausedUntil > 0)
+            mPausedUntil = pausedUntil;
+        this.notifyAll();
+    }
+
+    /**
+     * Add tokens for time since last refill, at current rate, up to burst.
+     * @param now Current time, from System.nanoTime.
+     */
+    private void refill(long now) {
+        double seconds = (now - mRefilledAt) / (double)TimeUnit.SECONDS.toNanos(1);
+        if(seconds > 0)
+            mTokens = Math.min(mBurst, mTokens + (seconds * mPermitsPerSecond));
+        mRefilledAt = now;
+    }
+
+    /**
+     * Get current rate of requests.
+     * @return Requests per second.
+     */
+    public synchronized double getPermitsPerSecond() {
+        return mPermitsPerSecond;
+    }
+
+    /**
+     * Get number of requests that had to wait to be made.
+     * @return Number of requests.
+     */
+    public synchronized long getThrottled() {
+        return mThrottled;
+    }
+
+    /**
+     * Get number of requests rejected by the server for being over its limit.
+     * @return Number of requests.
+     */
+    public synchronized long getRateLimited() {
+        return mRateLimited;
+    }
+}
@@ -0,0 +1,136 @@
+package android.example.com;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.HttpUrl;
+
+/**
+ * Coalesces identical requests made at the same time, so that only the first caller makes
+ * the request, and any others that ask for the same key while it is in flight wait for it
+ * and share its result (single flight).
+ * <p>Nothing is kept once a request completes; later callers make the request again.
+ * Results are shared between threads, so must not be modified.</p>
+ */
+public class RequestCoalescer {
+
+    /**
+     * Request to make.
+     * @param <T> Type of result.
+     */
+    public interface Request<T> {
+        /**
+         * Make request.
+         * <p>Run on background thread.</p>
+         * @return Result.
+         * @throws IOException If request failed.
+         */
+        T execute() throws IOException;
+    }
+
+    /**
+     * Request in flight, whose outcome callers wait for.
+     */
+    private static class InFlight {
+        final CountDownLatch done = new CountDownLatch(1);
+        Object result;
+        Throwable failure;
+    }
+
+    private final HashMap<String, InFlight> mInFlight = new HashMap<>();
+    private final AtomicLong mCoalesced = new AtomicLong();
+
+    /**
+     * Make request, unless an identical one is in flight, in which case wait for it and
+     * share its result.
+     * <p>Run on background thread.</p>
+     * @param key Key identifying request, e.g. from {@link #canonicalise(URL)}.
+     * @param request Request to make.
+     * @param <T> Type of result.
+     * @return Result.
+     * @throws IOException If request failed, or was interrupted while waiting for it.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Request<T> request) throws IOException {
+        InFlight inFlight;
+        boolean leader = false;
+        synchronized (mInFlight) {
+            inFlight = mInFlight.get(key);
+            if(inFlight == null) {
+                inFlight = new InFlight();
+                mInFlight.put(key, inFlight);
+                leader = true;
+            }
+        }
+
+        // Make request, sharing its outcome with anyone who joined meanwhile.
+        if(leader) {
+            try {
+                T result = request.execute();
+                inFlight.result = result;
+                return result;
+            } catch (IOException | RuntimeException | Error e) {
+                inFlight.failure = e;
+                throw e;
+            } finally {
+                synchronized (mInFlight) {
+                    mInFlight.remove(key);
+                }
+                inFlight.done.countDown();
+            }
+        }
+
+        mCoalesced.incrementAndGet();
+        try {
+            inFlight.done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for " + key);
+        }
+
+        // Throw new exception, so its stack trace shows this caller too.
+        if(inFlight.failure instanceof IOException)
+            throw new IOException(inFlight.failure.getMessage(), inFlight.failure);
+        if(inFlight.failure != null)
+            throw new RuntimeException(inFlight.failure);
+
+        return (T)inFlight.result;
+    }
+
+    /**
+     * Get number of requests that were not made, because an identical request was in flight.
+     * @return Number of requests coalesced.
+     */
+    public long getCoalesced() {
+        return mCoalesced.get();
+    }
+
+    /**
+     * Create key for URL, which is the same for URLs that request the same resource, e.g.
+     * whose query parameters are in a different order.
+     * @param url URL.
+     * @return Key.
+     */
+    public static String canonicalise(URL url) {
+        HttpUrl httpUrl = HttpUrl.get(url);
+        if(httpUrl == null)
+            return url.toString();
+
+        List<String> names = new ArrayList<>(httpUrl.queryParameterNames());
+        Collections.sort(names);
+        HttpUrl.Builder builder = httpUrl.newBuilder().query(null).fragment(null);
+        for(String name: names) {
+            for(String value: httpUrl.queryParameterValues(name)) // Repeated values keep their order.
+                builder.addQueryParameter(name, value);
+        }
+
+        return builder.build().toString();
+    }
+}
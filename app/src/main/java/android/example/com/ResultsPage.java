@@ -0,0 +1,54 @@
+package android.example.com;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class represents a page of results of a Movie DB API response, e.g. movies or reviews.
+ * @param <T> Type of result.
+ */
+public class ResultsPage<T> {
+
+    /**
+     * Constructor.
+     * @param results Results on page; not copied, so not to be changed afterwards.
+     * @param page Number of page, starting from 1.
+     * @param totalPages Total number of pages available.
+     */
+    public ResultsPage(List<T> results, int page, int totalPages)
+    {
+        mResults = Collections.unmodifiableList(results);
+        mPage = page;
+        mTotalPages = totalPages;
+    }
+
+    private List<T> mResults;
+    /**
+     * Get results on page.
+     * @return Results on page, which cannot be changed.
+     */
+    public List<T> getResults()
+    {
+        return mResults;
+    }
+
+    private int mPage;
+    /**
+     * Get number of page.
+     * @return Number of page, starting from 1.
+     */
+    public int getPage()
+    {
+        return mPage;
+    }
+
+    private int mTotalPages;
+    /**
+     * Get total number of pages available.
+     * @return Total number of pages.
+     */
+    public int getTotalPages()
+    {
+        return mTotalPages;
+    }
+}
@@ -0,0 +1,78 @@
+package android.example.com;
+
+import java.util.Random;
+
+/**
+ * When, and how often, to retry a request to the Movie DB API that failed in a way that may
+ * succeed if tried again: the network failing, the server being over its rate limit, or
+ * the server failing.
+ * <p>Delays grow exponentially and are jittered, i.e. chosen at random up to that, so that
+ * requests that failed together do not all retry together.</p>
+ */
+public class RetryPolicy {
+
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    private final int mMaxAttempts;
+    private final long mBaseDelayMillis;
+    private final long mMaxDelayMillis;
+    private final Random mRandom = new Random();
+
+    /**
+     * Constructor.
+     * @param maxAttempts Maximum number of attempts, including the first.
+     * @param baseDelayMillis Maximum delay before the first retry, doubled for each retry after.
+     * @param maxDelayMillis Maximum delay before any retry, including any the server asks for.
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis)
+    {
+        mMaxAttempts = Math.max(1, maxAttempts);
+        mBaseDelayMillis = baseDelayMillis;
+        mMaxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * Get maximum number of attempts.
+     * @return Number of attempts, including the first.
+     */
+    public int getMaxAttempts() {
+        return mMaxAttempts;
+    }
+
+    /**
+     * Find out whether response may succeed if requested again.
+     * @param code HTTP status code of response.
+     * @return Whether to retry: for too many requests or server errors.
+     */
+    public static boolean isRetryable(int code) {
+        return (code == HTTP_TOO_MANY_REQUESTS) || (code == 500) || (code == 502) || (code == 503) || (code == 504);
+    }
+
+    /**
+     * Find out whether response says the server is over its rate limit.
+     * @param code HTTP status code of response.
+     * @return Whether rate limited.
+     */
+    public static boolean isRateLimited(int code) {
+        return code == HTTP_TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * Get delay before retrying: at random up to the base delay doubled for each attempt
+     * made ("full jitter"), but no less than the server asked for.
+     * @param attempt Number of attempts made, from 1.
+     * @param retryAfterMillis Time until the server said to retry, or 0 if it did not say.
+     * @return Delay in milliseconds, or -1 if the server asked for longer than the maximum
+     * delay, so it is not worth retrying.
+     */
+    public long getDelayMillis(int attempt, long retryAfterMillis) {
+        if(retryAfterMillis > mMaxDelayMillis)
+            return -1;
+
+        long ceiling = mBaseDelayMillis << Math.min(30, Math.max(0, attempt - 1));
+        ceiling = Math.min(mMaxDelayMillis, Math.max(0, ceiling));
+        long jittered = (long)(mRandom.nextDouble() * ceiling);
+
+        return Math.max(retryAfterMillis, jittered);
+    }
+}
@@ -0,0 +1,187 @@
+package android.example.com;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.widget.AppCompatTextView;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RecyclerView adapter for providing reviews of movie, a page at a time, below a header
+ * displaying the details of the movie.
+ * <p>Only reviews in view are laid out, and the text of each is measured and laid out on a
+ * background thread before it is drawn, so the cost of a frame does not depend on how many
+ * reviews there are, or how long.</p>
+ */
+public class ReviewsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    private static final int VIEW_TYPE_HEADER = 0;
+    private static final int VIEW_TYPE_REVIEW = 1;
+
+    private View mHeader;
+    private String mAuthorDecorator;
+
+    /**
+     * Constructor.
+     * @param header View displaying details of movie, shown before reviews.
+     * @param authorDecorator Text either side of author of review.
+     */
+    public ReviewsAdapter(View header, String authorDecorator)
+    {
+        mHeader = header;
+        mAuthorDecorator = authorDecorator;
+    }
+
+    private ArrayList<Review> mReviews = new ArrayList<>();
+    /**
+     * Get list of reviews loaded so far.
+     * @return List of reviews; read only.
+     */
+    public List<Review> getReviews() {
+        return mReviews;
+    }
+
+    private int mPage = 0;
+    private int mTotalPages = 1;
+    /**
+     * Get number of next page of reviews to load.
+     * @return Number of page, starting from 1.
+     */
+    public int getNextPage() {
+        return mPage + 1;
+    }
+
+    /**
+     * Get whether there are more pages of reviews to load.
+     * @return True if there are more pages.
+     */
+    public boolean hasMorePages() {
+        return mPage < mTotalPages;
+    }
+
+    /**
+     * Add next page of reviews, after those loaded so far.
+     * @param page Page of reviews; ignored if it is not the next page, e.g. if delivered again.
+     * @return Whether page was added.
+     */
+    public boolean addPage(ResultsPage<Review> page) {
+        if(page.getPage() != this.getNextPage())
+            return false;
+
+        int positionStart = this.getItemCount();
+        mReviews.addAll(page.getResults());
+        mPage = page.getPage();
+        mTotalPages = page.getTotalPages();
+        notifyItemRangeInserted(positionStart, page.getResults().size());
+        return true;
+    }
+
+    /**
+     * Get type of item at position: header, then reviews.
+     * @param position Position of item.
+     * @return Type of item.
+     */
+    @Override
+    public int getItemViewType(int position) {
+        return (position == 0) ? VIEW_TYPE_HEADER : VIEW_TYPE_REVIEW;
+    }
+
+    private HeaderViewHolder mHeaderViewHolder;
+    /**
+     * Create view holder for header or review.
+     * @param parent Parent ViewGroup to which view holder is to be added.
+     * @param viewType Type of item.
+     * @return View holder.
+     */
+    @NonNull
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        // There is just one header, already populated.
+        if(viewType == VIEW_TYPE_HEADER) {
+            if(mHeaderViewHolder == null)
+                mHeaderViewHolder = new HeaderViewHolder(mHeader);
+            return mHeaderViewHolder;
+        }
+
+        // Dynamically create layout for item.
+        View reviewItem = LayoutInflater.from(parent.getContext()).inflate(R.layout.review_item, parent, false);
+
+        // Create ReviewViewHolder.
+        return new ReviewViewHolder(reviewItem);
+    }
+
+    /**
+     * Bind supplied view holder to review at specified position, after header.
+     * @param holder View holder to bind.
+     * @param position Position of item.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        if(holder instanceof ReviewViewHolder)
+            ((ReviewViewHolder)holder).Bind(mReviews.get(position - 1));
+    }
+
+    /**
+     * Get total number of items: header and reviews.
+     * @return Total number of items.
+     */
+    @Override
+    public int getItemCount() {
+        return mReviews.size() + 1;
+    }
+
+    /**
+     * A ViewHolder subclass holding the header.
+     */
+    private static class HeaderViewHolder extends RecyclerView.ViewHolder {
+        /**
+         * Constructor.
+         * @param itemView Header.
+         */
+        HeaderViewHolder(View itemView) {
+            super(itemView);
+            this.setIsRecyclable(false); // Keep populated header.
+        }
+    }
+
+    /**
+     * A ViewHolder subclass suitable for displaying a review, i.e. its content and author.
+     */
+    public class ReviewViewHolder extends RecyclerView.ViewHolder {
+
+        private AppCompatTextView mContent;
+        private TextView mAuthor;
+
+        /**
+         * Constructor.
+         * @param itemView View corresponding to review, to be bound to view holder.
+         */
+        public ReviewViewHolder(View itemView) {
+            super(itemView);
+
+            // Retrieve TextViews.
+            mContent = (AppCompatTextView)itemView.findViewById(R.id.review_content);
+            mAuthor = (TextView)itemView.findViewById(R.id.review_author);
+        }
+
+        /**
+         * Bind view holder to review.
+         * <p>Content is laid out on a background thread, which RecyclerView starts while
+         * prefetching, and waits for only if it is needed for drawing before it is ready.</p>
+         * @param review Review.
+         */
+        public void Bind(Review review) {
+            String content = (review.getContent() != null) ? review.getContent() : "";
+            mContent.setTextFuture(PrecomputedTextCompat.getTextFuture(content, TextViewCompat.getTextMetricsParams(mContent), null));
+            mAuthor.setText(mAuthorDecorator + " " + review.getAuthor() + " " + mAuthorDecorator);
+        }
+    }
+}
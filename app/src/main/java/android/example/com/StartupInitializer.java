@@ -0,0 +1,179 @@
+package android.example.com;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Graph of components to initialise at startup, each declaring the components it depends on.
+ * <p>Only components needed for the first frame are initialised on the calling thread, i.e.
+ * the main user interface thread, in order of their dependencies, before {@link #start()}
+ * returns; every other component is deferred to a background thread, as soon as the
+ * components it depends on are initialised. A component needed for the first frame may not
+ * depend on a deferred one, as the main thread would have to wait for it.</p>
+ */
+public class StartupInitializer {
+
+    private final Executor mBackground;
+    private final PerformanceMetrics mMetrics;
+    private final LinkedHashMap<String, Component> mComponents = new LinkedHashMap<>();
+    private boolean mStarted = false;
+
+    /**
+     * Constructor.
+     * @param background Executor on which to initialise deferred components.
+     * @param metrics Registry in which to record time taken by each component, as
+     * "startup.[name]".
+     */
+    public StartupInitializer(Executor background, PerformanceMetrics metrics)
+    {
+        mBackground = background;
+        mMetrics = metrics;
+    }
+
+    /**
+     * Add component to initialise.
+     * @param name Name of component.
+     * @param firstFrame Whether the first frame needs the component, so it is initialised on
+     * the main thread, rather than deferred.
+     * @param initializer Initialises component.
+     * @param dependencies Names of components that must be initialised first, already added.
+     * @return This initializer, to add further components.
+     * @throws IllegalArgumentException If the name is already added, a dependency is unknown,
+     * or a component needed for the first frame depends on a deferred one.
+     * @throws IllegalStateException If already started.
+     */
+    public synchronized StartupInitializer add(String name, boolean firstFrame, Runnable initializer, String... dependencies) {
+        if(mStarted)
+            throw new IllegalStateException("Startup already started");
+        if(mComponents.containsKey(name))
+            throw new IllegalArgumentException("Component already added: " + name);
+
+        Component component = new Component(name, firstFrame, initializer);
+        for(String dependencyName: dependencies) {
+            Component dependency = mComponents.get(dependencyName);
+            if(dependency == null)
+                throw new IllegalArgumentException("Unknown dependency of " + name + ": " + dependencyName);
+            if(firstFrame && !dependency.mFirstFrame)
+                throw new IllegalArgumentException(name + " is needed for the first frame, but depends on deferred " + dependencyName);
+
+            dependency.mDependents.add(component);
+            component.mRemainingDependencies++;
+        }
+        mComponents.put(name, component);
+
+        return this;
+    }
+
+    /**
+     * Initialise components needed for the first frame, in order of their dependencies, and
+     * defer the rest to the background.
+     * <p>Run on main user interface thread; dependencies must be added before their
+     * dependents, so there can be no cycles.</p>
+     */
+    public void start() {
+        ArrayDeque<Component> firstFrame = new ArrayDeque<>();
+        List<Component> deferred = new ArrayList<>();
+        synchronized (this) {
+            if(mStarted)
+                throw new IllegalStateException("Startup already started");
+            mStarted = true;
+
+            for(Component component: mComponents.values()) {
+                if(component.mRemainingDependencies == 0)
+                    (component.mFirstFrame ? firstFrame : deferred).add(component);
+            }
+        }
+
+        this.defer(deferred);
+
+        // Components needed for the first frame only ever make others of them ready here,
+        // as none depends on a deferred component.
+        while(!firstFrame.isEmpty()) {
+            Component component = firstFrame.poll();
+            deferred = new ArrayList<>();
+            for(Component ready: this.initialise(component)) {
+                if(ready.mFirstFrame)
+                    firstFrame.add(ready);
+                else
+                    deferred.add(ready);
+            }
+            this.defer(deferred);
+        }
+    }
+
+    /**
+     * Find out whether component has been initialised, whether or not it succeeded.
+     * @param name Name of component.
+     * @return Whether initialised.
+     */
+    public synchronized boolean isInitialized(String name) {
+        Component component = mComponents.get(name);
+        return (component != null) && component.mInitialized;
+    }
+
+    /**
+     * Initialise deferred components in the background, each initialising any dependents
+     * it makes ready once done.
+     * @param components Components ready to initialise.
+     */
+    private void defer(List<Component> components) {
+        for(final Component component: components) {
+            mBackground.execute(new Runnable() {
+                @Override
+                public void run() {
+                    defer(initialise(component));
+                }
+            });
+        }
+    }
+
+    /**
+     * Initialise component and mark it done, even if it failed, so its dependents are still
+     * initialised; they fall back to initialising it themselves, e.g. through a singleton.
+     * @param component Component to initialise.
+     * @return Dependents now ready to initialise.
+     */
+    private List<Component> initialise(Component component) {
+        PerformanceMetrics.Histogram times = mMetrics.histogram("startup." + component.mName);
+        long start = times.begin();
+        try {
+            component.mInitializer.run();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            times.end(start);
+        }
+
+        List<Component> ready = new ArrayList<>();
+        synchronized (this) {
+            component.mInitialized = true;
+            for(Component dependent: component.mDependents) {
+                if(--dependent.mRemainingDependencies == 0)
+                    ready.add(dependent);
+            }
+        }
+
+        return ready;
+    }
+
+    /**
+     * Component to initialise, and those that depend on it.
+     */
+    private static class Component {
+        private final String mName;
+        private final boolean mFirstFrame;
+        private final Runnable mInitializer;
+        private final List<Component> mDependents = new ArrayList<>();
+        private int mRemainingDependencies = 0;
+        private boolean mInitialized = false;
+
+        Component(String name, boolean firstFrame, Runnable initializer) {
+            mName = name;
+            mFirstFrame = firstFrame;
+            mInitializer = initializer;
+        }
+    }
+}
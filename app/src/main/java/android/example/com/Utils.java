@@ -3,40 +3,39 @@ package android.example.com;
 import android.example.com.Database.Movie;
 import android.net.Uri;
 
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.IOException;
-import java.net.InetSocketAddress;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.MalformedURLException;
-import java.net.Socket;
-import java.net.SocketAddress;
 import java.net.URL;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.GregorianCalendar;
-
-import static java.util.Calendar.YEAR;
+import java.util.List;
 
 /**
  * General class containing utilities for the app.
  */
 public class Utils {
     // Loader IDs.
-    public static final int MOVIEDB_MOST_POPULAR_LOADER_ID = 1;
-    public static final int MOVIEDB_HIGHEST_RATED_LOADER_ID = 2;
-    public static final int MOVIEDB_VIDEOS_LOADER_ID = 3;
-    public static final int MOVIEDB_REVIEWS_LOADER_ID = 4;
+    public static final int MOVIEDB_DETAILS_LOADER_ID = 5;
+    public static final int MOVIEDB_REVIEWS_LOADER_ID = 6;
 
     // Movie DB API: common URL.
     private final static String MOVIESDB_COMMON_BASE_URL = "http://api.themoviedb.org/3";
     private final static String MOVIESDB_COMMON_API_KEY_PARAM = "api_key";
     private final static String MOVIESDB_COMMON_API_KEY = "REMOVED";
+    private final static String MOVIESDB_COMMON_PAGE_PARAM = "page";
+    private final static String MOVIESDB_COMMON_TOTAL_PAGES = "total_pages";
     private final static String MOVIESDB_COMMON_BASE_IMAGE_URL = "http://image.tmdb.org/t/p/w185/";
+    private final static String MOVIESDB_COMMON_IMAGE_URL = "http://image.tmdb.org/t/p/";
+    private final static String MOVIESDB_COMMON_IMAGE_SIZES_URL = "/t/p/";
+    private final static int[] MOVIESDB_COMMON_POSTER_WIDTHS = {92, 154, 185, 342, 500, 780}; // Ascending.
 
     // Movie DB API: discover/movie URL.
     private final static String MOVIESDB_DISCOVER_MOVIE_DISCOVER_URL = "discover";
@@ -55,7 +54,7 @@ public class Utils {
     private final static String MOVIESDB_DISCOVER_MOVIE_RELEASE_DATE = "release_date";
 
     /**
-     * Create URL to discover movies using Movie DB API.
+     * Create URL to discover first page of movies using Movie DB API.
      * <p>
      * For example:
      * http://api.themoviedb.org/3/discover/movie?sort_by=popularity.desc&api_key=54b4cb8c55da282ebcfe11fa9a735a40
@@ -65,6 +64,21 @@ public class Utils {
      * @return The created URL or null if there was a problem.
      */
     public static URL CreateDiscoverMoviesURL(Boolean mostPopular)
+    {
+        return CreateDiscoverMoviesURL(mostPopular, 1);
+    }
+
+    /**
+     * Create URL to discover specified page of movies using Movie DB API.
+     * <p>
+     * For example:
+     * http://api.themoviedb.org/3/discover/movie?sort_by=popularity.desc&page=2&api_key=54b4cb8c55da282ebcfe11fa9a735a40
+     * </p>
+     * @param mostPopular Whether to display most popular (true) or highest rated (false) movies.
+     * @param page Number of page, starting from 1.
+     * @return The created URL or null if there was a problem.
+     */
+    public static URL CreateDiscoverMoviesURL(Boolean mostPopular, int page)
     {
         // Build URI.
         Uri.Builder builder = Uri.parse(MOVIESDB_COMMON_BASE_URL).buildUpon();
@@ -74,6 +88,8 @@ public class Utils {
             builder.appendQueryParameter(MOVIESDB_DISCOVER_MOVIE_SORT_PARAM, MOVIESDB_DISCOVER_MOVIE_SORT_POPULARITY);
         else
             builder.appendQueryParameter(MOVIESDB_DISCOVER_MOVIE_SORT_PARAM, MOVIESDB_DISCOVER_MOVIE_SORT_RATING);
+        if(page > 1)
+            builder.appendQueryParameter(MOVIESDB_COMMON_PAGE_PARAM, String.valueOf(page));
         builder.appendQueryParameter(MOVIESDB_COMMON_API_KEY_PARAM, MOVIESDB_COMMON_API_KEY);
         Uri uri = builder.build();
 
@@ -94,8 +110,6 @@ public class Utils {
      */
     public static ArrayList<Movie> parseMoviesJson(String moviesJSON) {
         ArrayList<Movie> movies = new ArrayList<>();
-        SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyy-MM-dd");
-        Calendar calendar = new GregorianCalendar();
 
         try {
             // Convert JSON of movies into individual movies, and their member variables.
@@ -109,18 +123,10 @@ public class Utils {
                 String original_title = movieAsJSONObject.getString(MOVIESDB_DISCOVER_MOVIE_ORIGINAL_TITLE);
                 double vote_average = movieAsJSONObject.getDouble(MOVIESDB_DISCOVER_MOVIE_VOTE_AVERAGE);
                 String overview = movieAsJSONObject.getString(MOVIESDB_DISCOVER_MOVIE_OVERVIEW);
-                int releaseYear = Integer.MIN_VALUE; // Indicate release data not known.
-                try {
-                    // Although some movie entries provided by Movie DB are empty, some have no
-                    // release date entry in the JSON at all! Handle by using optional way of
-                    // retrieving string, which doesn't throw an exception.
-                    Date release_date = dateFormatter.parse(movieAsJSONObject.optString(MOVIESDB_DISCOVER_MOVIE_RELEASE_DATE));
-                    calendar.setTime(release_date);
-                    releaseYear = calendar.get(YEAR);
-                }
-                catch(ParseException e) {
-                    e.printStackTrace();
-                }
+                // Although some movie entries provided by Movie DB are empty, some have no
+                // release date entry in the JSON at all! Handle by using optional way of
+                // retrieving string, which doesn't throw an exception.
+                int releaseYear = parseReleaseYear(movieAsJSONObject.optString(MOVIESDB_DISCOVER_MOVIE_RELEASE_DATE));
 
                 // Create movie.
                 Movie movie = new Movie(identifier, original_title, poster_path, overview,  vote_average, releaseYear);
@@ -136,6 +142,87 @@ public class Utils {
         return movies;
     }
 
+    /**
+     * Convert supplied stream of JSON to list of Movies, reading one token at a time
+     * rather than first building the whole response as a string and then a tree of
+     * JSONObjects.
+     * <p>Matches {@link #parseMoviesJson(String)}: movies after the first that cannot be
+     * read are ignored.</p>
+     * @param moviesJSON Stream of JSON to convert, e.g. body of HTTP response; not closed.
+     * @return Created Movie list.
+     * @throws IOException If stream could not be read or is not valid JSON.
+     */
+    public static List<Movie> parseMoviesJson(InputStream moviesJSON) throws IOException {
+        return parseMoviesPageJson(moviesJSON).getResults();
+    }
+
+    /**
+     * Convert supplied stream of JSON to page of Movies, including which page it is
+     * and how many pages there are.
+     * @param moviesJSON Stream of JSON to convert, e.g. body of HTTP response; not closed.
+     * @return Created page of Movies.
+     * @throws IOException If stream could not be read or is not valid JSON.
+     */
+    public static ResultsPage<Movie> parseMoviesPageJson(InputStream moviesJSON) throws IOException {
+        return readResultsPage(moviesJSON, MOVIESDB_DISCOVER_MOVIE_RESULTS, MOVIE_READER);
+    }
+
+    /**
+     * Reader of movies of discover results.
+     */
+    private static final ResultReader<Movie> MOVIE_READER = new ResultReader<Movie>() {
+        @Override
+        public Movie read(JsonReader reader) throws IOException {
+            return readMovie(reader, null);
+        }
+    };
+
+    /**
+     * Read movie from JSON object, along with any videos and reviews appended to it.
+     * @param reader Reader positioned at start of object.
+     * @param appended Holder for videos and reviews appended to movie details, or null to
+     * ignore them.
+     * @return Movie or null, if it is incomplete.
+     * @throws IOException If stream could not be read or is not valid JSON.
+     */
+    private static Movie readMovie(JsonReader reader, AppendedResults appended) throws IOException {
+        int identifier = Integer.MIN_VALUE;
+        String poster_path = null;
+        String original_title = null;
+        double vote_average = Double.NaN;
+        String overview = null;
+        String release_date = "";
+
+        reader.beginObject();
+        while(reader.hasNext()) {
+            String name = reader.nextName();
+            if(name.equals(MOVIESDB_DISCOVER_MOVIE_ID))
+                identifier = reader.nextInt();
+            else if(name.equals(MOVIESDB_DISCOVER_MOVIE_POSTER_PATH))
+                poster_path = nextString(reader);
+            else if(name.equals(MOVIESDB_DISCOVER_MOVIE_ORIGINAL_TITLE))
+                original_title = nextString(reader);
+            else if(name.equals(MOVIESDB_DISCOVER_MOVIE_VOTE_AVERAGE))
+                vote_average = reader.nextDouble();
+            else if(name.equals(MOVIESDB_DISCOVER_MOVIE_OVERVIEW))
+                overview = nextString(reader);
+            else if(name.equals(MOVIESDB_DISCOVER_MOVIE_RELEASE_DATE))
+                release_date = nextString(reader);
+            else if((appended != null) && name.equals(MOVIESDB_MOVIE_DETAILS_VIDEOS))
+                appended.videos = readResultsObject(reader, MOVIESDB_MOVIE_VIDEOS_RESULTS, VIDEO_READER);
+            else if((appended != null) && name.equals(MOVIESDB_MOVIE_DETAILS_REVIEWS))
+                appended.reviews = readResultsObject(reader, MOVIESDB_MOVIE_REVIEWS_RESULTS, REVIEW_READER);
+            else
+                reader.skipValue();
+        }
+        reader.endObject();
+
+        if((identifier == Integer.MIN_VALUE) || (poster_path == null) || (original_title == null) || Double.isNaN(vote_average) || (overview == null))
+            return null;
+
+        return new Movie(identifier, original_title, MOVIESDB_COMMON_BASE_IMAGE_URL + poster_path, overview, vote_average, parseReleaseYear(release_date));
+    }
+
     // Movie DB API: movie/<id>/videos URL.
     private final static String MOVIESDB_MOVIE_VIDEOS_MOVIE_URL = "movie";
     private final static String MOVIESDB_MOVIE_VIDEOS_VIDEOS_URL = "videos";
@@ -211,6 +298,60 @@ public class Utils {
         return videos;
     }
 
+    /**
+     * Convert supplied stream of JSON to list of videos, reading one token at a time.
+     * @param videosJSON Stream of JSON to convert, e.g. body of HTTP response; not closed.
+     * @return Created videos list.
+     * @throws IOException If stream could not be read or is not valid JSON.
+     */
+    public static List<Video> parseVideosJson(InputStream videosJSON) throws IOException {
+        return readResultsPage(videosJSON, MOVIESDB_MOVIE_VIDEOS_RESULTS, VIDEO_READER).getResults();
+    }
+
+    /**
+     * Reader of videos.
+     */
+    private static final ResultReader<Video> VIDEO_READER = new ResultReader<Video>() {
+        @Override
+        public Video read(JsonReader reader) throws IOException {
+            return readVideo(reader);
+        }
+    };
+
+    /**
+     * Read video from JSON object.
+     * @param reader Reader positioned at start of object.
+     * @return Video or null, if it is incomplete.
+     * @throws IOException If stream could not be read or is not valid JSON.
+     */
+    private static Video readVideo(JsonReader reader) throws IOException {
+        String identifier = null;
+        String key = null;
+        String name = null;
+        String site = null;
+
+        reader.beginObject();
+        while(reader.hasNext()) {
+            String jsonName = reader.nextName();
+            if(jsonName.equals(MOVIESDB_MOVIE_VIDEOS_ID))
+                identifier = nextString(reader);
+            else if(jsonName.equals(MOVIESDB_MOVIE_VIDEOS_KEY))
+                key = nextString(reader);
+            else if(jsonName.equals(MOVIESDB_MOVIE_VIDEOS_NAME))
+                name = nextString(reader);
+            else if(jsonName.equals(MOVIESDB_MOVIE_VIDEOS_SITE))
+                site = nextString(reader);
+            else
+                reader.skipValue();
+        }
+        reader.endObject();
+
+        if((identifier == null) || (key == null) || (name == null) || (site == null))
+            return null;
+
+        return new Video(identifier, key, name, site);
+    }
+
     // Movie DB API: movie/<id>/reviews URL.
     private final static String MOVIESDB_MOVIE_REVIEWS_MOVIE_URL = "movie";
     private final static String MOVIESDB_MOVIE_REVIEWS_REVIEWS_URL = "reviews";
@@ -232,12 +373,30 @@ public class Utils {
      * @return The created URL or null if there was a problem.
      */
     public static URL CreateGetReviewsURL(int id)
+    {
+        return CreateGetReviewsURL(id, 1);
+    }
+
+    /**
+     * Create URL to get specified page of reviews of movie using Movie DB API, as identified
+     * by specified id.
+     * <p>
+     * For example:
+     * http://api.themoviedb.org/3/movie/419704/reviews?page=2&api_key=54b4cb8c55da282ebcfe11fa9a735a40
+     * </p>
+     * @param id ID of movie.
+     * @param page Number of page, starting from 1.
+     * @return The created URL or null if there was a problem.
+     */
+    public static URL CreateGetReviewsURL(int id, int page)
     {
         // Build URI.
         Uri.Builder builder = Uri.parse(MOVIESDB_COMMON_BASE_URL).buildUpon();
         builder.appendPath(MOVIESDB_MOVIE_REVIEWS_MOVIE_URL);
         builder.appendPath(String.valueOf(id));
         builder.appendPath(MOVIESDB_MOVIE_REVIEWS_REVIEWS_URL);
+        if(page > 1)
+            builder.appendQueryParameter(MOVIESDB_COMMON_PAGE_PARAM, String.valueOf(page));
         builder.appendQueryParameter(MOVIESDB_COMMON_API_KEY_PARAM, MOVIESDB_COMMON_API_KEY);
         Uri uri = builder.build();
 
@@ -284,6 +443,362 @@ public class Utils {
         return reviews;
     }
 
+    /**
+     * Convert supplied stream of JSON to list of reviews, reading one token at a time.
+     * @param reviewsJSON Stream of JSON to convert, e.g. body of HTTP response; not closed.
+     * @return Created reviews list.
+     * @throws IOException If stream could not be read or is not valid JSON.
+     */
+    public static List<Review> parseReviewsJson(InputStream reviewsJSON) throws IOException {
+        return parseReviewsPageJson(reviewsJSON).getResults();
+    }
+
+    /**
+     * Convert supplied stream of JSON to page of reviews, including which page it is
+     * and how many pages there are.
+     * @param reviewsJSON Stream of JSON to convert, e.g. body of HTTP response; not closed.
+     * @return Created page of reviews.
+     * @throws IOException If stream could not be read or is not valid JSON.
+     */
+    public static ResultsPage<Review> parseReviewsPageJson(InputStream reviewsJSON) throws IOException {
+        return readResultsPage(reviewsJSON, MOVIESDB_MOVIE_REVIEWS_RESULTS, REVIEW_READER);
+    }
+
+    /**
+     * Reader of reviews.
+     */
+    private static final ResultReader<Review> REVIEW_READER = new ResultReader<Review>() {
+        @Override
+        public Review read(JsonReader reader) throws IOException {
+            return readReview(reader);
+        }
+    };
+
+    /**
+     * Read review from JSON object.
+     * @param reader Reader positioned at start of object.
+     * @return Review or null, if it is incomplete.
+     * @throws IOException If stream could not be read or is not valid JSON.
+     */
+    private static Review readReview(JsonReader reader) throws IOException {
+        String identifier = null;
+        String author = null;
+        String content = null;
+
+        reader.beginObject();
+        while(reader.hasNext()) {
+            String name = reader.nextName();
+            if(name.equals(MOVIESDB_MOVIE_REVIEWS_ID))
+                identifier = nextString(reader);
+            else if(name.equals(MOVIESDB_MOVIE_REVIEWS_AUTHOR))
+                author = nextString(reader);
+            else if(name.equals(MOVIESDB_MOVIE_REVIEWS_CONTENT))
+                content = nextString(reader);
+            else
+                reader.skipValue();
+        }
+        reader.endObject();
+
+        if((identifier == null) || (author == null) || (content == null))
+            return null;
+
+        return new Review(identifier, author, content);
+    }
+
+    // Movie DB API: movie/<id> URL.
+    private final static String MOVIESDB_MOVIE_DETAILS_MOVIE_URL = "movie";
+    private final static String MOVIESDB_MOVIE_DETAILS_APPEND_PARAM = "append_to_response";
+
+    // Movie DB API: movie/<id> appended data names.
+    private final static String MOVIESDB_MOVIE_DETAILS_VIDEOS = "videos";
+    private final static String MOVIESDB_MOVIE_DETAILS_REVIEWS = "reviews";
+
+    /**
+     * Create URL to get details of movie using Movie DB API, as identified by specified id,
+     * with its videos and first page of reviews appended, so all three take a single request.
+     * <p>
+     * For example:
+     * http://api.themoviedb.org/3/movie/419704?append_to_response=videos%2Creviews&api_key=54b4cb8c55da282ebcfe11fa9a735a40
+     * </p>
+     * @param id ID of movie.
+     * @return The created URL or null if there was a problem.
+     */
+    public static URL CreateGetMovieDetailsURL(int id)
+    {
+        // Build URI.
+        Uri.Builder builder = Uri.parse(MOVIESDB_COMMON_BASE_URL).buildUpon();
+        builder.appendPath(MOVIESDB_MOVIE_DETAILS_MOVIE_URL);
+        builder.appendPath(String.valueOf(id));
+        builder.appendQueryParameter(MOVIESDB_MOVIE_DETAILS_APPEND_PARAM, MOVIESDB_MOVIE_DETAILS_VIDEOS + "," + MOVIESDB_MOVIE_DETAILS_REVIEWS);
+        builder.appendQueryParameter(MOVIESDB_COMMON_API_KEY_PARAM, MOVIESDB_COMMON_API_KEY);
+        Uri uri = builder.build();
+
+        // Build URL from URI.
+        try {
+            return new URL(uri.toString());
+        } catch (MalformedURLException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * Convert supplied stream of JSON of movie details, with videos and reviews appended,
+     * to the movie, its videos and its first page of reviews, reading one token at a time.
+     * <p>As for the other parsers, a response of unexpected structure gives what was read
+     * so far, and missing videos or reviews give empty lists.</p>
+     * @param detailsJSON Stream of JSON to convert, e.g. body of HTTP response; not closed.
+     * @return Created movie details.
+     * @throws IOException If stream could not be read or is not valid JSON.
+     */
+    public static MovieDetails parseMovieDetailsJson(InputStream detailsJSON) throws IOException {
+        Movie movie = null;
+        AppendedResults appended = new AppendedResults();
+        JsonReader reader = new JsonReader(new InputStreamReader(detailsJSON, "UTF-8"));
+
+        try {
+            movie = readMovie(reader, appended);
+        }
+        catch(IllegalStateException | NumberFormatException e) {
+            e.printStackTrace(); // Unexpected structure; equivalent of JSONException.
+        }
+
+        List<Video> videos = (appended.videos != null) ? appended.videos.getResults() : new ArrayList<Video>();
+        ResultsPage<Review> reviews = (appended.reviews != null) ? appended.reviews : new ResultsPage<>(new ArrayList<Review>(), 1, 1);
+        return new MovieDetails(movie, videos, reviews);
+    }
+
+    /**
+     * Results appended to movie details.
+     */
+    private static class AppendedResults {
+        ResultsPage<Video> videos;
+        ResultsPage<Review> reviews;
+    }
+
+    /**
+     * Reader of a single result of a Movie DB API response.
+     * @param <T> Type of result.
+     */
+    private interface ResultReader<T> {
+        /**
+         * Read result.
+         * @param reader Reader positioned at start of result.
+         * @return Result or null, if it is incomplete.
+         * @throws IOException If stream could not be read or is not valid JSON.
+         */
+        T read(JsonReader reader) throws IOException;
+    }
+
+    /**
+     * Read page of results of a Movie DB API response, one token at a time.
+     * <p>As for the JSONObject versions, results after the first incomplete one are ignored,
+     * and a response of unexpected structure gives the results read so far.</p>
+     * @param stream Stream of JSON to read; not closed.
+     * @param resultsName Name of results array.
+     * @param resultReader Reader of each result.
+     * @param <T> Type of result.
+     * @return Page of results.
+     * @throws IOException If stream could not be read or is not valid JSON.
+     */
+    private static <T> ResultsPage<T> readResultsPage(InputStream stream, String resultsName, ResultReader<T> resultReader) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(stream, "UTF-8"));
+        return readResultsObject(reader, resultsName, resultReader);
+    }
+
+    /**
+     * Read JSON object holding page of results, e.g. the whole of a response, or the videos
+     * or reviews appended to movie details.
+     * <p>Results after the first incomplete one are ignored, and an object of unexpected
+     * structure gives the results read so far.</p>
+     * @param reader Reader positioned at start of object.
+     * @param resultsName Name of results array.
+     * @param resultReader Reader of each result.
+     * @param <T> Type of result.
+     * @return Page of results.
+     * @throws IOException If stream could not be read or is not valid JSON.
+     */
+    private static <T> ResultsPage<T> readResultsObject(JsonReader reader, String resultsName, ResultReader<T> resultReader) throws IOException {
+        ArrayList<T> results = new ArrayList<>();
+        int page = 1;
+        int totalPages = 1;
+
+        try {
+            reader.beginObject();
+            while(reader.hasNext()) {
+                String name = reader.nextName();
+                if(name.equals(resultsName)) {
+                    boolean complete = true;
+                    reader.beginArray();
+                    while(reader.hasNext()) {
+                        if(!complete) {
+                            reader.skipValue();
+                            continue;
+                        }
+                        T result = resultReader.read(reader);
+                        if(result == null)
+                            complete = false;
+                        else
+                            results.add(result);
+                    }
+                    reader.endArray();
+                }
+                else if(name.equals(MOVIESDB_COMMON_PAGE_PARAM))
+                    page = reader.nextInt();
+                else if(name.equals(MOVIESDB_COMMON_TOTAL_PAGES))
+                    totalPages = reader.nextInt();
+                else
+                    reader.skipValue();
+            }
+            reader.endObject();
+        }
+        catch(IllegalStateException | NumberFormatException e) {
+            e.printStackTrace(); // Unexpected structure; equivalent of JSONException.
+        }
+
+        return new ResultsPage<>(results, page, totalPages);
+    }
+
+    /**
+     * Read next value as string, converting numbers and booleans, and null to "null",
+     * the same as JSONObject.getString does on Android.
+     * @param reader Reader positioned at value.
+     * @return Value as string.
+     * @throws IOException If stream could not be read.
+     */
+    private static String nextString(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if(token == JsonToken.NULL) {
+            reader.nextNull();
+            return "null";
+        }
+        if(token == JsonToken.BOOLEAN)
+            return String.valueOf(reader.nextBoolean());
+
+        return reader.nextString();
+    }
+
+    /**
+     * Get year from release date of form yyyy-MM-dd without going through SimpleDateFormat
+     * and Calendar.
+     * @param releaseDate Release date.
+     * @return Year or Integer.MIN_VALUE, if release date is not known.
+     */
+    private static int parseReleaseYear(String releaseDate) {
+        int firstDash = releaseDate.indexOf('-');
+        int secondDash = releaseDate.indexOf('-', firstDash + 1);
+        if((firstDash <= 0) || (secondDash <= firstDash + 1) || (secondDash >= releaseDate.length() - 1))
+            return Integer.MIN_VALUE;
+
+        int year = 0;
+        for(int index = 0; index < firstDash; index++) {
+            char c = releaseDate.charAt(index);
+            if((c < '0') || (c > '9'))
+                return Integer.MIN_VALUE;
+            year = (year * 10) + (c - '0');
+        }
+
+        return year;
+    }
+
+    /**
+     * Choose width of poster image to request from Movie DB API for displaying at specified
+     * width: the smallest available width that is at least as wide, so the image is never
+     * scaled up, or the widest available.
+     * @param displayWidth Width at which poster is displayed, in pixels.
+     * @return Width of poster image, in pixels.
+     */
+    public static int choosePosterWidth(int displayWidth) {
+        return MOVIESDB_COMMON_POSTER_WIDTHS[choosePosterWidthIndex(displayWidth)];
+    }
+
+    /**
+     * Choose width of poster image, as for {@link #choosePosterWidth(int)}, by its index
+     * among the available widths, e.g. to keep URLs of posters per width.
+     * @param displayWidth Width at which poster is displayed, in pixels.
+     * @return Index of width of poster image, from 0 to one less than
+     * {@link #getPosterWidthCount()}.
+     */
+    public static int choosePosterWidthIndex(int displayWidth) {
+        for(int index = 0; index < MOVIESDB_COMMON_POSTER_WIDTHS.length; index++) {
+            if(MOVIESDB_COMMON_POSTER_WIDTHS[index] >= displayWidth)
+                return index;
+        }
+
+        return MOVIESDB_COMMON_POSTER_WIDTHS.length - 1;
+    }
+
+    /**
+     * Get number of widths of poster image available from Movie DB API.
+     * @return Number of widths.
+     */
+    public static int getPosterWidthCount() {
+        return MOVIESDB_COMMON_POSTER_WIDTHS.length;
+    }
+
+    /**
+     * Get path of poster image, after its size, from URL of poster of any size, so the URL
+     * can be built again for any size without keeping the common part for every movie.
+     * <p>
+     * For example:
+     * http://image.tmdb.org/t/p/w185/udDclJoHjfjb8Ekgsd4FDteOkCU.jpg becomes
+     * /udDclJoHjfjb8Ekgsd4FDteOkCU.jpg
+     * </p>
+     * @param imagePath URL of poster image.
+     * @return Path of poster image, starting with "/", or imagePath unchanged, if it is not
+     * a Movie DB API image.
+     */
+    public static String getPosterPath(String imagePath) {
+        if((imagePath == null) || !imagePath.startsWith(MOVIESDB_COMMON_IMAGE_URL))
+            return imagePath;
+
+        int sizeEnd = imagePath.indexOf('/', MOVIESDB_COMMON_IMAGE_URL.length());
+        return (sizeEnd < 0) ? imagePath : imagePath.substring(sizeEnd);
+    }
+
+    /**
+     * Create URL of poster image of width at specified index, from path of poster returned
+     * by {@link #getPosterPath(String)}.
+     * @param posterPath Path of poster image, or URL if not a Movie DB API image.
+     * @param widthIndex Index of width of poster image, from
+     * {@link #choosePosterWidthIndex(int)}.
+     * @return URL of poster image or posterPath unchanged, if it is not a Movie DB API image.
+     */
+    public static String CreatePosterURLFromPath(String posterPath, int widthIndex) {
+        if((posterPath == null) || !posterPath.startsWith("/"))
+            return posterPath;
+
+        return MOVIESDB_COMMON_IMAGE_URL + "w" + MOVIESDB_COMMON_POSTER_WIDTHS[widthIndex] + posterPath;
+    }
+
+    /**
+     * Create URL of poster image sized for displaying at specified width, from URL of poster
+     * of any size, e.g. as stored with a movie.
+     * <p>
+     * For example, for a display width of 270:
+     * http://image.tmdb.org/t/p/w185/udDclJoHjfjb8Ekgsd4FDteOkCU.jpg becomes
+     * http://image.tmdb.org/t/p/w342/udDclJoHjfjb8Ekgsd4FDteOkCU.jpg
+     * </p>
+     * @param imagePath URL of poster image.
+     * @param displayWidth Width at which poster is displayed, in pixels.
+     * @return URL of poster image or imagePath unchanged, if it is not a Movie DB API image.
+     */
+    public static String CreatePosterURL(String imagePath, int displayWidth) {
+        if(imagePath == null)
+            return null;
+
+        int sizeStart = imagePath.indexOf(MOVIESDB_COMMON_IMAGE_SIZES_URL);
+        if(sizeStart < 0)
+            return imagePath;
+        sizeStart += MOVIESDB_COMMON_IMAGE_SIZES_URL.length();
+        int sizeEnd = imagePath.indexOf('/', sizeStart);
+        if(sizeEnd < 0)
+            return imagePath;
+
+        return imagePath.substring(0, sizeStart) + "w" + choosePosterWidth(displayWidth) + imagePath.substring(sizeEnd);
+    }
+
     // Youtube.
     private final static String YOUTUBE_BASE_URL = "https://www.youtube.com";
     private final static String YOUTUBE_WATCH_URL = "watch";
@@ -305,24 +820,4 @@ public class Utils {
         builder.appendQueryParameter(YOUTUBE_KEY_PARAM, youTubeVideoKey);
         return builder.build();
     }
-
-    /**
-     * Check if internet is available.
-     * <para>TCP/HTTP/DNS (depending on the port, 53=DNS, 80=HTTP, etc.).</para>
-     * <para>Thanks to Levite of Stack Overflow for this solution:
-     * https://stackoverflow.com/questions/1560788/how-to-check-internet-access-on-android-inetaddress-never-times-out.</para>
-     * @return True if available, otherwise false.
-     */
-    public static boolean isOnline() {
-        try {
-            int timeoutMs = 1500;
-            Socket sock = new Socket();
-            SocketAddress sockaddr = new InetSocketAddress("8.8.8.8", 53);
-
-            sock.connect(sockaddr, timeoutMs);
-            sock.close();
-
-            return true;
-        } catch (IOException e) { return false; }
-    }
 }
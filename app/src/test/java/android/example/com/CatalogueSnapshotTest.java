@@ -0,0 +1,118 @@
+package android.example.com;
+
+import android.example.com.Database.Movie;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check CatalogueSnapshot reads back the movies it writes, sharing repeated strings, and
+ * ignores snapshots of another version or that are corrupt.
+ */
+public class CatalogueSnapshotTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private static final List<Movie> MOVIES = Arrays.asList(
+            new Movie(1, "Amélie", "/a.jpg", "Overview ☃", 7.9, 2001),
+            new Movie(2, null, null, null, 0, Integer.MIN_VALUE),
+            new Movie(3, "Amélie", "/c.jpg", "", 10, 2019));
+
+    /**
+     * Assert movies have the same fields.
+     */
+    private static void assertSameMovies(List<Movie> expected, List<Movie> actual) {
+        assertEquals(expected.size(), actual.size());
+        for(int index = 0; index < expected.size(); index++) {
+            Movie e = expected.get(index);
+            Movie a = actual.get(index);
+            assertEquals(e.getIdentifier(), a.getIdentifier());
+            assertEquals(e.getTitle(), a.getTitle());
+            assertEquals(e.getImagePath(), a.getImagePath());
+            assertEquals(e.getOverview(), a.getOverview());
+            assertEquals(e.getRating(), a.getRating(), 0.0);
+            assertEquals(e.getReleaseYear(), a.getReleaseYear());
+        }
+    }
+
+    @Test
+    public void writeThenRead_returnsSameMovies() throws IOException {
+        File file = new File(mFolder.getRoot(), "movies.snapshot");
+        CatalogueSnapshot.write(file, MOVIES);
+
+        CatalogueSnapshot snapshot = CatalogueSnapshot.read(file);
+
+        assertNotNull(snapshot);
+        assertSameMovies(MOVIES, snapshot.getMovies());
+        assertFalse(new File(mFolder.getRoot(), "movies.snapshot.tmp").exists());
+    }
+
+    @Test
+    public void encode_recordedResponse_matchesParsedMovies() throws IOException {
+        InputStream stream = getClass().getClassLoader().getResourceAsStream("discover_movies.json");
+        List<Movie> movies = Utils.parseMoviesJson(stream);
+
+        assertSameMovies(movies, CatalogueSnapshot.read(CatalogueSnapshot.encode(movies)).getMovies());
+    }
+
+    @Test
+    public void encode_writesRepeatedStringOnce() {
+        List<Movie> repeated = Arrays.asList(MOVIES.get(0), MOVIES.get(0));
+
+        int once = CatalogueSnapshot.encode(MOVIES.subList(0, 1)).limit();
+        int twice = CatalogueSnapshot.encode(repeated).limit();
+
+        assertEquals(28, twice - once); // Just another record.
+    }
+
+    @Test
+    public void read_missingOrOtherVersionOrCorrupt_returnsNull() {
+        assertNull(CatalogueSnapshot.read(new File(mFolder.getRoot(), "missing.snapshot")));
+
+        ByteBuffer otherVersion = CatalogueSnapshot.encode(MOVIES);
+        otherVersion.putInt(4, CatalogueSnapshot.VERSION + 1);
+        assertNull(CatalogueSnapshot.read(otherVersion));
+
+        ByteBuffer truncated = CatalogueSnapshot.encode(MOVIES);
+        truncated.limit(truncated.limit() - 1);
+        assertNull(CatalogueSnapshot.read(truncated));
+
+        ByteBuffer badOffset = CatalogueSnapshot.encode(MOVIES);
+        badOffset.putInt(16 + 16, badOffset.limit()); // Title of first movie.
+        assertNull(CatalogueSnapshot.read(badOffset));
+    }
+
+    @Test
+    public void writer_writesOnlyWhenMoviesChange() throws IOException {
+        File file = new File(mFolder.getRoot(), "movies.snapshot");
+        CatalogueSnapshot.Writer writer = new CatalogueSnapshot.Writer(file);
+
+        assertTrue(writer.write(MOVIES));
+        // Same content, in new instances, as read again.
+        assertFalse(writer.write(new ArrayList<>(CatalogueSnapshot.read(file).getMovies())));
+
+        // A change to any movie, or to the order, is written.
+        List<Movie> changed = new ArrayList<>(MOVIES);
+        changed.set(2, new Movie(3, "Amélie", "/c.jpg", "", 9.9, 2019));
+        assertTrue(writer.write(changed));
+        assertTrue(writer.write(Arrays.asList(MOVIES.get(1), MOVIES.get(0), MOVIES.get(2))));
+        assertSameMovies(Arrays.asList(MOVIES.get(1), MOVIES.get(0), MOVIES.get(2)), CatalogueSnapshot.read(file).getMovies());
+
+        // A new writer, e.g. after a restart, compares with the snapshot already written.
+        CatalogueSnapshot.Writer restarted = new CatalogueSnapshot.Writer(file);
+        assertFalse(restarted.write(Arrays.asList(MOVIES.get(1), MOVIES.get(0), MOVIES.get(2))));
+        assertTrue(restarted.write(MOVIES));
+    }
+}
@@ -0,0 +1,105 @@
+package android.example.com.Database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.example.com.MovieList;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check CatalogueDAO.updatePage against SQLite, through Room: entries are stored and
+ * replaced by position, hashes of content survive being stored, so a page fetched again
+ * unchanged writes no entry, and pages that get shorter lose their last entries.
+ * <p>CatalogueUpdatePageTest checks which entries are written, against a DAO in memory.</p>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class CatalogueDAOTest {
+
+    private FavouritesDatabase mDatabase;
+    private FavouritesDatabase.CatalogueDAO mCatalogue;
+
+    @Before
+    public void setUp() {
+        // Robolectric runs tests on the main thread.
+        Context context = ApplicationProvider.getApplicationContext();
+        mDatabase = Room.inMemoryDatabaseBuilder(context, FavouritesDatabase.class).allowMainThreadQueries().build();
+        mCatalogue = mDatabase.catalogueDAO();
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    private static Movie movie(int identifier, String title, double rating) {
+        return new Movie(identifier, title, "/" + identifier + ".jpg", "Overview", rating, 2020);
+    }
+
+    /**
+     * Read movies on range of pages, as the pager does.
+     */
+    private MovieList readPages(boolean mostPopular, int firstPage, int lastPage) {
+        Cursor cursor = mCatalogue.queryPages(mostPopular, firstPage, lastPage);
+        try {
+            return MovieList.readUnique(cursor);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void updatePage_replacesChangedEntriesAndDeletesBeyondEnd() {
+        assertEquals(4, mCatalogue.updatePage(true, 1, 10, 1000,
+                Arrays.asList(movie(1, "A", 7.0), movie(2, "B", 6.5), movie(3, "C", 8.1), movie(4, "D", 5.0))));
+        mCatalogue.updatePage(false, 1, 10, 1000, Arrays.asList(movie(9, "I", 9.0))); // Other list untouched.
+
+        // 5 replaced 1, rating of 2 changed, 4 moved up in place of 3, and page is one shorter.
+        assertEquals(4, mCatalogue.updatePage(true, 1, 12, 2000,
+                Arrays.asList(movie(5, "E", 7.0), movie(2, "B", 6.6), movie(4, "D", 5.0))));
+
+        MovieList movies = readPages(true, 1, 1);
+        assertEquals(3, movies.size());
+        assertEquals(5, movies.getIdentifier(0));
+        assertEquals(2, movies.getIdentifier(1));
+        assertEquals(6.6, movies.getRating(1), 0);
+        assertEquals(4, movies.getIdentifier(2));
+        assertEquals(1, readPages(false, 1, 1).size());
+
+        CataloguePage page = mCatalogue.loadPage(true, 1);
+        assertEquals(12, page.getTotalPages());
+        assertEquals(2000, page.getFetchedAt());
+        assertNull(mCatalogue.loadPage(true, 2));
+
+        // New and changed movies are indexed, as written.
+        FavouritesDatabase.MovieSearchDAO search = mDatabase.movieSearchDAO();
+        assertEquals(6.6, search.loadMovie(2).getRating(), 0);
+        assertNotNull(search.loadMovie(5));
+    }
+
+    @Test
+    public void updatePage_unchanged_writesNoEntryButMarksPageFetched() {
+        List<Movie> movies = Arrays.asList(movie(1, "A", 7.0), movie(2, "B", 6.5));
+        mCatalogue.updatePage(false, 3, 10, 1000, movies);
+
+        // Same content, in new instances, as parsed again.
+        assertEquals(0, mCatalogue.updatePage(false, 3, 11, 2000, Arrays.asList(movie(1, "A", 7.0), movie(2, "B", 6.5))));
+
+        assertEquals(2, readPages(false, 3, 3).size());
+        assertEquals(2000, mCatalogue.loadPage(false, 3).getFetchedAt());
+        assertEquals(11, mCatalogue.loadPage(false, 3).getTotalPages());
+    }
+}
@@ -0,0 +1,135 @@
+package android.example.com.Database;
+
+import android.database.Cursor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check CatalogueDAO.updatePage writes just the entries whose movie changed, by ID or
+ * content, and marks the page fetched without writing its entries.
+ */
+public class CatalogueUpdatePageTest {
+
+    /**
+     * DAO keeping one list's entries in memory, by page and position, and recording writes.
+     */
+    private static class InMemoryCatalogueDAO extends FavouritesDatabase.CatalogueDAO {
+        final TreeMap<Integer, CatalogueEntry> entries = new TreeMap<>(); // By page * 100 + position.
+        final List<Integer> written = new ArrayList<>(); // Identifiers of movies written.
+        final List<Integer> searchWritten = new ArrayList<>();
+        final TreeMap<Integer, CataloguePage> pages = new TreeMap<>(); // By page.
+        int pagesWritten = 0;
+
+        @Override
+        public Cursor queryPages(boolean mostPopular, int firstPage, int lastPage) { return null; }
+
+        @Override
+        public CataloguePage loadPage(boolean mostPopular, int page) { return pages.get(page); }
+
+        @Override
+        List<StoredEntry> loadStoredEntries(boolean mostPopular, int page) {
+            List<StoredEntry> stored = new ArrayList<>();
+            for(CatalogueEntry entry: entries.subMap(page * 100, (page + 1) * 100).values()) {
+                StoredEntry storedEntry = new StoredEntry();
+                storedEntry.position = entry.getPosition();
+                storedEntry.identifier = entry.getMovie().getIdentifier();
+                storedEntry.contentHash = entry.getContentHash();
+                stored.add(storedEntry);
+            }
+            return stored;
+        }
+
+        @Override
+        void insertOrReplace(List<CatalogueEntry> replacements) {
+            for(CatalogueEntry entry: replacements) {
+                entries.put(entry.getPage() * 100 + entry.getPosition(), entry);
+                written.add(entry.getMovie().getIdentifier());
+            }
+        }
+
+        @Override
+        int deleteFromPosition(boolean mostPopular, int page, int position) {
+            int before = entries.size();
+            entries.subMap(page * 100 + position, (page + 1) * 100).clear();
+            return before - entries.size();
+        }
+
+        @Override
+        void markFetched(CataloguePage page) {
+            pages.put(page.getPage(), page);
+            pagesWritten++;
+        }
+
+        @Override
+        void deleteSearchEntries(List<Integer> identifiers) { }
+
+        @Override
+        void insertSearchEntries(List<MovieSearch> searchEntries) {
+            for(MovieSearch entry: searchEntries)
+                searchWritten.add(entry.getIdentifier());
+        }
+    }
+
+    private static Movie movie(int identifier, String title, double rating) {
+        return new Movie(identifier, title, "/" + identifier + ".jpg", "Overview", rating, 2020);
+    }
+
+    @Test
+    public void updatePage_writesOnlyChangedEntries() {
+        InMemoryCatalogueDAO catalogue = new InMemoryCatalogueDAO();
+        List<Movie> first = Arrays.asList(movie(1, "A", 7.0), movie(2, "B", 6.5), movie(3, "C", 8.1), movie(4, "D", 5.0));
+        assertEquals(4, catalogue.updatePage(true, 1, 10, 1000, first));
+        catalogue.written.clear();
+        catalogue.searchWritten.clear();
+
+        // 5 replaced 1, rating of 2 changed, 4 moved up in place of 3, and page is one shorter.
+        List<Movie> second = Arrays.asList(movie(5, "E", 7.0), movie(2, "B", 6.6), movie(4, "D", 5.0));
+        int changed = catalogue.updatePage(true, 1, 12, 2000, second);
+
+        assertEquals(4, changed); // Three written, one deleted.
+        assertEquals(Arrays.asList(5, 2, 4), catalogue.written);
+        assertEquals(Arrays.asList(5, 2, 4), catalogue.searchWritten);
+        assertEquals(3, catalogue.entries.size());
+        assertEquals(2000, catalogue.loadPage(true, 1).getFetchedAt());
+        assertEquals(12, catalogue.loadPage(true, 1).getTotalPages());
+    }
+
+    @Test
+    public void updatePage_unchanged_writesOnlyPage() {
+        InMemoryCatalogueDAO catalogue = new InMemoryCatalogueDAO();
+        List<Movie> movies = Arrays.asList(movie(1, "A", 7.0), movie(2, "B", 6.5));
+        catalogue.updatePage(false, 1, 10, 1000, movies);
+        catalogue.written.clear();
+        catalogue.pagesWritten = 0;
+
+        // Same content, in new instances, as parsed again.
+        assertEquals(0, catalogue.updatePage(false, 1, 10, 2000, Arrays.asList(movie(1, "A", 7.0), movie(2, "B", 6.5))));
+
+        // No entry written, just the one row of the page.
+        assertTrue(catalogue.written.isEmpty());
+        assertEquals(1, catalogue.pagesWritten);
+        assertEquals(2000, catalogue.loadPage(false, 1).getFetchedAt());
+    }
+
+    @Test
+    public void hashContent_changesWithAnyField() {
+        long hash = CatalogueEntry.hashContent(new Movie(1, "Title", "/path.jpg", "Overview", 7.5, 2020));
+
+        assertEquals(hash, CatalogueEntry.hashContent(new Movie(1, "Title", "/path.jpg", "Overview", 7.5, 2020)));
+        assertNotEquals(hash, CatalogueEntry.hashContent(new Movie(2, "Title", "/path.jpg", "Overview", 7.5, 2020)));
+        assertNotEquals(hash, CatalogueEntry.hashContent(new Movie(1, "Titl", "/path.jpg", "Overview", 7.5, 2020)));
+        assertNotEquals(hash, CatalogueEntry.hashContent(new Movie(1, "Title", null, "Overview", 7.5, 2020)));
+        assertNotEquals(hash, CatalogueEntry.hashContent(new Movie(1, "Title", "/path.jpg", "Overview.", 7.5, 2020)));
+        assertNotEquals(hash, CatalogueEntry.hashContent(new Movie(1, "Title", "/path.jpg", "Overview", 7.6, 2020)));
+        assertNotEquals(hash, CatalogueEntry.hashContent(new Movie(1, "Title", "/path.jpg", "Overview", 7.5, 2021)));
+        // Text moved between adjoining fields.
+        assertNotEquals(CatalogueEntry.hashContent(new Movie(1, "AB", "C", null, 0, 0)), CatalogueEntry.hashContent(new Movie(1, "A", "BC", null, 0, 0)));
+    }
+}
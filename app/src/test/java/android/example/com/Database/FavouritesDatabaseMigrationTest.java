@@ -0,0 +1,140 @@
+package android.example.com.Database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.example.com.MovieList;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check databases of every earlier version migrate to the latest, keeping their data, in the
+ * way of Room's MigrationTestHelper: a database is created with the schema of an earlier
+ * version, as Room created it, and then opened with the migrations, so that Room checks the
+ * schema they leave matches the entities exactly.
+ * <p>Schemas are not exported, so those of earlier versions are written out here.</p>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FavouritesDatabaseMigrationTest {
+
+    private static final String TEST_DATABASE_NAME = "MigrationTest";
+
+    // Schema of version 1: just favourites.
+    private static final String CREATE_MOVIES = "CREATE TABLE IF NOT EXISTS `Movies` ("
+            + "`Identifier` INTEGER NOT NULL, `Title` TEXT, `ImagePath` TEXT, `Overview` TEXT, "
+            + "`Rating` REAL NOT NULL, `ReleaseYear` INTEGER NOT NULL, PRIMARY KEY(`Identifier`))";
+
+    // Schema of version 3 adds the catalogue, with when each movie's page was fetched, and
+    // the search index.
+    private static final String CREATE_CATALOGUE_3 = "CREATE TABLE IF NOT EXISTS `Catalogue` ("
+            + "`MostPopular` INTEGER NOT NULL, `Page` INTEGER NOT NULL, `Position` INTEGER NOT NULL, "
+            + "`TotalPages` INTEGER NOT NULL, `FetchedAt` INTEGER NOT NULL, "
+            + "`Identifier` INTEGER NOT NULL, `Title` TEXT, `ImagePath` TEXT, `Overview` TEXT, "
+            + "`Rating` REAL NOT NULL, `ReleaseYear` INTEGER NOT NULL, "
+            + "PRIMARY KEY(`MostPopular`, `Page`, `Position`))";
+    private static final String CREATE_MOVIE_SEARCH_3 = "CREATE VIRTUAL TABLE IF NOT EXISTS `MovieSearch` USING FTS4("
+            + "`Title` TEXT, `ImagePath` TEXT, `Overview` TEXT, "
+            + "`Rating` REAL NOT NULL, `ReleaseYear` INTEGER NOT NULL)";
+
+    private Context mContext;
+    private FavouritesDatabase mDatabase;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mContext.deleteDatabase(TEST_DATABASE_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        if(mDatabase != null)
+            mDatabase.close();
+        mContext.deleteDatabase(TEST_DATABASE_NAME);
+    }
+
+    /**
+     * Create database of earlier version, with its schema and data.
+     */
+    private void createDatabase(int version, String... statements) {
+        SQLiteDatabase database = mContext.openOrCreateDatabase(TEST_DATABASE_NAME, Context.MODE_PRIVATE, null);
+        try {
+            for(String statement: statements)
+                database.execSQL(statement);
+            database.setVersion(version);
+        } finally {
+            database.close();
+        }
+    }
+
+    /**
+     * Open database with Room, migrating it to the latest version; Room throws if the schema
+     * left by the migrations does not match the entities.
+     */
+    private FavouritesDatabase openMigrated() {
+        // Robolectric runs tests on the main thread.
+        mDatabase = Room.databaseBuilder(mContext, FavouritesDatabase.class, TEST_DATABASE_NAME)
+                .addMigrations(FavouritesDatabase.MIGRATIONS)
+                .allowMainThreadQueries()
+                .build();
+        mDatabase.getOpenHelper().getWritableDatabase();
+
+        return mDatabase;
+    }
+
+    @Test
+    public void migrate1ToLatest_keepsFavouritesAndIndexesThem() {
+        createDatabase(1, CREATE_MOVIES,
+                "INSERT INTO Movies VALUES (1, 'Parasite', '/c.jpg', 'A poor family schemes.', 8.6, 2019)");
+
+        FavouritesDatabase database = openMigrated();
+
+        Movie favourite = database.favouritesDAO().loadMovie(1);
+        assertNotNull(favourite);
+        assertEquals("Parasite", favourite.getTitle());
+        assertEquals(1, database.movieSearchDAO().search("poor", 10).size());
+        assertNull(database.catalogueDAO().loadPage(true, 1));
+    }
+
+    @Test
+    public void migrate3ToLatest_movesFetchTimeToPagesAndRewritesMoviesOnce() {
+        createDatabase(3, CREATE_MOVIES, CREATE_CATALOGUE_3, CREATE_MOVIE_SEARCH_3,
+                "INSERT INTO Catalogue VALUES (1, 1, 0, 10, 1000, 5, 'A', '/5.jpg', 'Overview', 7.0, 2020)",
+                "INSERT INTO Catalogue VALUES (1, 1, 1, 12, 2000, 6, 'B', '/6.jpg', 'Overview', 6.5, 2020)");
+
+        FavouritesDatabase database = openMigrated();
+        FavouritesDatabase.CatalogueDAO catalogue = database.catalogueDAO();
+
+        CataloguePage page = catalogue.loadPage(true, 1);
+        assertEquals(12, page.getTotalPages());
+        assertEquals(2000, page.getFetchedAt());
+
+        Cursor cursor = catalogue.queryPages(true, 1, 1);
+        try {
+            MovieList movies = MovieList.readUnique(cursor);
+            assertEquals(2, movies.size());
+            assertEquals(5, movies.getIdentifier(0));
+            assertEquals(6, movies.getIdentifier(1));
+        } finally {
+            cursor.close();
+        }
+
+        // Movies migrated have no hash, so are written once, the next time they are fetched.
+        Movie a = new Movie(5, "A", "/5.jpg", "Overview", 7.0, 2020);
+        Movie b = new Movie(6, "B", "/6.jpg", "Overview", 6.5, 2020);
+        assertEquals(2, catalogue.updatePage(true, 1, 12, 3000, Arrays.asList(a, b)));
+        assertEquals(0, catalogue.updatePage(true, 1, 12, 4000, Arrays.asList(a, b)));
+    }
+}
@@ -0,0 +1,41 @@
+package android.example.com.Database;
+
+import android.database.MatrixCursor;
+import android.example.com.IntHashSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check FavouritesIndex reads IDs of favourites straight from a cursor of the database.
+ * <p>Runs with Robolectric, for a working MatrixCursor.</p>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class FavouritesIndexTest {
+
+    @Test
+    public void readIdentifiers_readsEveryIdentifier() {
+        MatrixCursor cursor = new MatrixCursor(new String[] { "Identifier" });
+        for(int identifier: new int[] { 0, 550, 13, Integer.MAX_VALUE })
+            cursor.addRow(new Object[] { identifier });
+
+        IntHashSet identifiers = FavouritesIndex.readIdentifiers(cursor);
+
+        assertEquals(4, identifiers.size());
+        assertTrue(identifiers.contains(0));
+        assertTrue(identifiers.contains(550));
+        assertTrue(identifiers.contains(13));
+        assertTrue(identifiers.contains(Integer.MAX_VALUE));
+        assertFalse(identifiers.contains(14));
+    }
+
+    @Test
+    public void readIdentifiers_noFavourites() {
+        assertEquals(0, FavouritesIndex.readIdentifiers(new MatrixCursor(new String[] { "Identifier" })).size());
+    }
+}
@@ -0,0 +1,180 @@
+package android.example.com.Database;
+
+import android.database.Cursor;
+
+import androidx.lifecycle.LiveData;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check FavouritesWriteQueue folds and batches changes to favourites.
+ */
+public class FavouritesWriteQueueTest {
+
+    private static final long ONE_HOUR_MILLIS = 60 * 60 * 1000;
+    private static final long TIMEOUT_SECONDS = 5;
+
+    /**
+     * Batch of changes written by queue.
+     */
+    private static class Batch {
+        final List<Movie> favourites;
+        final List<Integer> identifiers;
+
+        Batch(List<Movie> favourites, List<Integer> identifiers) {
+            this.favourites = favourites;
+            this.identifiers = identifiers;
+        }
+    }
+
+    /**
+     * DAO that records batches rather than writing them.
+     */
+    private static class RecordingFavouritesDAO extends FavouritesDatabase.FavouritesDAO {
+        final LinkedBlockingQueue<Batch> batches = new LinkedBlockingQueue<>();
+
+        @Override
+        public void update(List<Movie> favourites, List<Integer> identifiers) {
+            batches.add(new Batch(new ArrayList<>(favourites), new ArrayList<>(identifiers)));
+        }
+
+        @Override
+        public LiveData<List<Movie>> load() { return null; }
+
+        @Override
+        public boolean isFavourite(int identifierToCheck) { return false; }
+
+        @Override
+        public Cursor queryIdentifiers() { return null; }
+
+        @Override
+        public Movie loadMovie(int identifier) { return null; }
+
+        @Override
+        public void insert(Movie favourite) { }
+
+        @Override
+        public void delete(Movie favourite) { }
+
+        @Override
+        void insertAll(List<Movie> favourites) { }
+
+        @Override
+        void deleteAll(List<Integer> identifiers) { }
+
+        @Override
+        void deleteSearchEntries(List<Integer> identifiers) { }
+
+        @Override
+        void insertSearchEntries(List<MovieSearch> searchEntries) { }
+    }
+
+    private RecordingFavouritesDAO mFavouritesDAO;
+    private ScheduledExecutorService mExecutor;
+    private FavouritesWriteQueue.Scheduler mScheduler;
+
+    @Before
+    public void setUp() {
+        mFavouritesDAO = new RecordingFavouritesDAO();
+        mExecutor = Executors.newSingleThreadScheduledExecutor();
+        mScheduler = new FavouritesWriteQueue.Scheduler() {
+            @Override
+            public void schedule(Runnable task, long delayMillis) {
+                mExecutor.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+            }
+        };
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void flush_foldsRepeatedTogglesIntoOneBatch() throws InterruptedException {
+        FavouritesWriteQueue queue = new FavouritesWriteQueue(mFavouritesDAO, mExecutor, mScheduler, ONE_HOUR_MILLIS, 50);
+
+        queue.setFavourite(movie(1), true);
+        queue.setFavourite(movie(1), false);
+        queue.setFavourite(movie(2), false);
+        queue.setFavourite(movie(1), true);
+        queue.setFavourite(movie(3), true);
+        queue.flush();
+
+        Batch batch = mFavouritesDAO.batches.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull(batch);
+        assertEquals(2, batch.favourites.size());
+        assertEquals(1, batch.favourites.get(0).getIdentifier());
+        assertEquals(3, batch.favourites.get(1).getIdentifier());
+        assertEquals(1, batch.identifiers.size());
+        assertEquals(2, (int)batch.identifiers.get(0));
+        assertNull(mFavouritesDAO.batches.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void setFavourite_writesOnceBatchIsFull() throws InterruptedException {
+        FavouritesWriteQueue queue = new FavouritesWriteQueue(mFavouritesDAO, mExecutor, mScheduler, ONE_HOUR_MILLIS, 2);
+
+        queue.setFavourite(movie(1), true);
+        queue.setFavourite(movie(2), true);
+
+        Batch batch = mFavouritesDAO.batches.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull(batch);
+        assertEquals(2, batch.favourites.size());
+    }
+
+    @Test
+    public void setFavourite_writesAfterFlushDelay() throws InterruptedException {
+        FavouritesWriteQueue queue = new FavouritesWriteQueue(mFavouritesDAO, mExecutor, mScheduler, 50, 50);
+
+        queue.setFavourite(movie(1), true);
+
+        Batch batch = mFavouritesDAO.batches.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull(batch);
+        assertEquals(1, batch.favourites.size());
+    }
+
+    @Test
+    public void getUnwrittenFavourite_reflectsQueueUntilWritten() throws Exception {
+        FavouritesWriteQueue queue = new FavouritesWriteQueue(mFavouritesDAO, mExecutor, mScheduler, ONE_HOUR_MILLIS, 50);
+
+        assertNull(queue.getUnwrittenFavourite(1));
+        queue.setFavourite(movie(1), true);
+        queue.setFavourite(movie(1), false);
+        assertEquals(Boolean.FALSE, queue.getUnwrittenFavourite(1));
+
+        queue.flush();
+        assertNotNull(mFavouritesDAO.batches.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        mExecutor.submit(new Runnable() { public void run() { } }).get(TIMEOUT_SECONDS, TimeUnit.SECONDS); // Wait for flush to finish.
+        assertNull(queue.getUnwrittenFavourite(1));
+    }
+
+    @Test
+    public void flush_withNothingQueuedWritesNothing() throws InterruptedException {
+        FavouritesWriteQueue queue = new FavouritesWriteQueue(mFavouritesDAO, mExecutor, mScheduler, ONE_HOUR_MILLIS, 50);
+
+        queue.flush();
+
+        assertNull(mFavouritesDAO.batches.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Create movie.
+     * @param identifier ID of movie.
+     * @return Movie.
+     */
+    private static Movie movie(int identifier) {
+        return new Movie(identifier, "Title " + identifier, "http://image.tmdb.org/t/p/w185/" + identifier + ".jpg", "", 5.0, 2019);
+    }
+}
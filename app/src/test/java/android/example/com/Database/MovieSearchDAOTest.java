@@ -0,0 +1,207 @@
+package android.example.com.Database;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check full-text search index of movies, which is kept up to date as pages of the catalogue
+ * and favourites are written, and finds movies by prefixes of their words.
+ * <p>Runs on the JVM with Robolectric, so the database is SQLite on the JVM rather than the
+ * SQLite of a device. How long searches take is measured on a device, by
+ * MovieSearchBenchmark.</p>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class MovieSearchDAOTest {
+
+    private static final int MOVIES_PER_PAGE = 20;
+    private static final int PAGES = 50; // 1,000 movies.
+    private static final int MAX_RESULTS = 100;
+
+    private FavouritesDatabase mDatabase;
+
+    @Before
+    public void setUp() {
+        // Robolectric runs tests on the main thread.
+        Context context = ApplicationProvider.getApplicationContext();
+        mDatabase = Room.inMemoryDatabaseBuilder(context, FavouritesDatabase.class).allowMainThreadQueries().build();
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void updatePage_updatesSearchIndex() {
+        FavouritesDatabase.CatalogueDAO catalogue = mDatabase.catalogueDAO();
+        FavouritesDatabase.MovieSearchDAO search = mDatabase.movieSearchDAO();
+
+        catalogue.updatePage(true, 1, 1, System.currentTimeMillis(), Collections.singletonList(
+                new Movie(1, "Waters", "/a.jpg", "A lawyer uncovers a dark secret.", 9.5, 2019)));
+        catalogue.updatePage(false, 1, 1, System.currentTimeMillis(), Collections.singletonList(
+                new Movie(2, "The Knight", "/b.jpg", "Gotham's dark knight returns.", 8.5, 2008)));
+        catalogue.updatePage(false, 1, 1, System.currentTimeMillis(), Collections.singletonList(
+                new Movie(2, "The Dark Knight", "/b.jpg", "Gotham's knight returns.", 8.5, 2008)));
+
+        // Movie 2 is indexed once, as last written, and comes first for matching on its title,
+        // despite its lower rating.
+        List<Movie> movies = search.search("dar", MAX_RESULTS);
+        assertEquals(2, movies.size());
+        assertEquals(2, movies.get(0).getIdentifier());
+        assertEquals("The Dark Knight", movies.get(0).getTitle());
+        assertEquals(1, movies.get(1).getIdentifier());
+
+        assertEquals(1, search.search("lawyer", MAX_RESULTS).size());
+        assertEquals(0, search.search("b jpg", MAX_RESULTS).size()); // Image path not searched.
+        assertEquals(0, search.search("\"", MAX_RESULTS).size());
+    }
+
+    @Test
+    public void loadMovie_findsMovieSeen() {
+        mDatabase.catalogueDAO().updatePage(true, 1, 1, System.currentTimeMillis(), Collections.singletonList(
+                new Movie(1, "Waters", "/a.jpg", "A lawyer uncovers a dark secret.", 9.5, 2019)));
+
+        Movie movie = mDatabase.movieSearchDAO().loadMovie(1);
+        assertNotNull(movie);
+        assertEquals("Waters", movie.getTitle());
+        assertEquals("/a.jpg", movie.getImagePath());
+        assertEquals(2019, movie.getReleaseYear());
+        assertNull(mDatabase.movieSearchDAO().loadMovie(2));
+    }
+
+    @Test
+    public void updateFavourites_updatesSearchIndex() {
+        FavouritesDatabase.FavouritesDAO favourites = mDatabase.favouritesDAO();
+        FavouritesDatabase.MovieSearchDAO search = mDatabase.movieSearchDAO();
+
+        favourites.update(Collections.singletonList(new Movie(3, "Parasite", "/c.jpg", "A poor family schemes.", 8.6, 2019)),
+                Collections.<Integer>emptyList());
+        favourites.update(Collections.singletonList(new Movie(3, "Parasite", "/c.jpg", "A greedy family schemes.", 8.6, 2019)),
+                Collections.<Integer>emptyList());
+
+        // Indexed once, as last written.
+        List<Movie> movies = search.search("par", MAX_RESULTS);
+        assertEquals(1, movies.size());
+        assertEquals(3, movies.get(0).getIdentifier());
+        assertEquals(1, search.search("greedy", MAX_RESULTS).size());
+        assertEquals(0, search.search("poor", MAX_RESULTS).size());
+
+        // Still seen, once no longer a favourite.
+        favourites.update(Collections.<Movie>emptyList(), Collections.singletonList(3));
+        assertFalse(favourites.isFavourite(3));
+        assertNotNull(search.loadMovie(3));
+    }
+
+    @Test
+    public void search_manyMovies_findsTitleMatchesFirstByRatingUpToLimit() {
+        final FavouritesDatabase.CatalogueDAO catalogue = mDatabase.catalogueDAO();
+        FavouritesDatabase.MovieSearchDAO search = mDatabase.movieSearchDAO();
+
+        // Write movies a page at a time, as they are discovered, made of words from a
+        // vocabulary, so that common prefixes match many movies.
+        final Random random = new Random(1);
+        final String[] words = createWords(random, 200);
+        mDatabase.runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                int identifier = 1;
+                for(int page = 1; page <= PAGES; page++) {
+                    ArrayList<Movie> movies = new ArrayList<>(MOVIES_PER_PAGE);
+                    for(int position = 0; position < MOVIES_PER_PAGE; position++, identifier++)
+                        movies.add(new Movie(identifier, createText(random, words, 3), "/" + identifier + ".jpg",
+                                createText(random, words, 30), random.nextDouble() * 10, 1950 + random.nextInt(70)));
+                    catalogue.updatePage(true, page, PAGES, System.currentTimeMillis(), movies);
+                }
+            }
+        });
+
+        String[] queries = { words[0].substring(0, 2), words[1], words[2].substring(0, 3) + " " + words[3].substring(0, 2) };
+        for(String query: queries) {
+            List<Movie> movies = search.search(query, MAX_RESULTS);
+            assertFalse("No movies found for \"" + query + "\"", movies.isEmpty());
+            assertTrue(movies.size() <= MAX_RESULTS);
+
+            // Title matches first, each group by rating, highest first, and no movie twice.
+            boolean titlesDone = false;
+            Movie previous = null;
+            HashSet<Integer> identifiers = new HashSet<>();
+            for(Movie movie: movies) {
+                assertTrue(identifiers.add(movie.getIdentifier()));
+                boolean titleMatch = matches(movie.getTitle(), query);
+                assertTrue(titleMatch || matches(movie.getOverview(), query));
+                if(titleMatch)
+                    assertFalse("Title match after overview matches for \"" + query + "\"", titlesDone);
+                else if(!titlesDone) {
+                    titlesDone = true;
+                    previous = null;
+                }
+                if(previous != null)
+                    assertTrue(previous.getRating() >= movie.getRating());
+                previous = movie;
+            }
+        }
+        assertTrue(search.search("zzzzzz", MAX_RESULTS).isEmpty());
+    }
+
+    /**
+     * Find out whether every word of query starts a word of text.
+     */
+    private static boolean matches(String text, String query) {
+        for(String prefix: query.split(" ")) {
+            boolean found = false;
+            for(String word: text.split(" "))
+                found |= word.startsWith(prefix);
+            if(!found)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Create vocabulary of random lower case words.
+     */
+    private static String[] createWords(Random random, int count) {
+        String[] words = new String[count];
+        for(int i = 0; i < count; i++) {
+            char[] word = new char[3 + random.nextInt(7)];
+            for(int j = 0; j < word.length; j++)
+                word[j] = (char)('a' + random.nextInt(26));
+            words[i] = new String(word);
+        }
+
+        return words;
+    }
+
+    /**
+     * Create text of random words from vocabulary.
+     */
+    private static String createText(Random random, String[] words, int count) {
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i < count; i++) {
+            if(i > 0)
+                text.append(' ');
+            text.append(words[random.nextInt(words.length)]);
+        }
+
+        return text.toString();
+    }
+}
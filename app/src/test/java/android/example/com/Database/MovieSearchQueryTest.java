@@ -0,0 +1,39 @@
+package android.example.com.Database;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check full-text queries are created from what the user types, as prefix queries that can
+ * never contain query syntax.
+ */
+public class MovieSearchQueryTest {
+
+    @Test
+    public void createMatchQuery_matchesPrefixOfEveryWord() {
+        assertEquals("dark* kni*", FavouritesDatabase.MovieSearchDAO.createMatchQuery("Dark Kni"));
+        assertEquals("spider* man*", FavouritesDatabase.MovieSearchDAO.createMatchQuery("  Spider-Man  "));
+    }
+
+    @Test
+    public void createMatchQuery_dropsQuerySyntax() {
+        assertEquals("star* or* wars*", FavouritesDatabase.MovieSearchDAO.createMatchQuery("star OR \"wars\""));
+        assertEquals("title* alien*", FavouritesDatabase.MovieSearchDAO.createMatchQuery("Title:alien*"));
+        assertEquals("not* near* x*", FavouritesDatabase.MovieSearchDAO.createMatchQuery("-NOT ^NEAR (x)"));
+    }
+
+    @Test
+    public void createMatchQuery_keepsNonAsciiLetters() {
+        // The default tokenizer neither splits on nor folds the case of non-ASCII characters.
+        assertEquals("am\u00e9lie*", FavouritesDatabase.MovieSearchDAO.createMatchQuery("Am\u00e9lie"));
+        assertEquals("l\u00e9on*", FavouritesDatabase.MovieSearchDAO.createMatchQuery("L\u00e9ON"));
+    }
+
+    @Test
+    public void createMatchQuery_returnsNullWithoutWords() {
+        assertNull(FavouritesDatabase.MovieSearchDAO.createMatchQuery(null));
+        assertNull(FavouritesDatabase.MovieSearchDAO.createMatchQuery(""));
+        assertNull(FavouritesDatabase.MovieSearchDAO.createMatchQuery(" *:\"- "));
+    }
+}
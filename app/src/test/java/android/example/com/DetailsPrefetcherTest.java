@@ -0,0 +1,161 @@
+package android.example.com;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check DetailsPrefetcher bounds prefetches, runs the most likely first, cancels those that
+ * have not started and measures its hit rate.
+ */
+public class DetailsPrefetcherTest {
+
+    private static final long ONE_HOUR_MILLIS = 60 * 60 * 1000;
+
+    private PriorityExecutor mExecutor;
+    private ParsedResultsCache mCache;
+    private FakeDetailsSource mSource;
+    private DetailsPrefetcher mPrefetcher;
+
+    @Before
+    public void setUp() {
+        mExecutor = new PriorityExecutor("test", 2, 8, Executors.defaultThreadFactory());
+        mCache = new ParsedResultsCache(8, ONE_HOUR_MILLIS);
+        mSource = new FakeDetailsSource();
+        mPrefetcher = new DetailsPrefetcher(mSource, mCache, mExecutor, 1);
+    }
+
+    @After
+    public void tearDown() {
+        mSource.mRelease.countDown();
+        mExecutor.shutdown();
+    }
+
+    @Test
+    public void prefetch_oneAtATimeMostLikelyFirst() throws InterruptedException {
+        mPrefetcher.prefetch(1, false);
+        assertTrue(mSource.mStarted.await(5, TimeUnit.SECONDS));
+
+        // Waiting while 1 loads; touched movie 4 jumps ahead, scrolled-off movie 3 is cancelled.
+        mPrefetcher.prefetch(2, false);
+        mPrefetcher.prefetch(3, false);
+        mPrefetcher.prefetch(4, true);
+        mPrefetcher.cancel(3);
+        assertEquals(Collections.singletonList(1), mSource.mLoaded);
+
+        this.finish();
+
+        assertEquals(Arrays.asList(1, 4, 2), mSource.mLoaded);
+        assertEquals(3, mPrefetcher.getStarted());
+        assertNotNull(mCache.get(mSource.getKey(4)));
+        assertNull(mCache.get(mSource.getKey(3)));
+    }
+
+    @Test
+    public void prefetch_alreadyCached_notLoadedAgain() throws InterruptedException {
+        mSource.mRelease.countDown();
+        mPrefetcher.prefetch(1, false);
+        this.finish();
+
+        mPrefetcher.prefetch(1, true);
+
+        assertEquals(Collections.singletonList(1), mSource.mLoaded);
+        assertEquals(1, mPrefetcher.getStarted());
+    }
+
+    @Test
+    public void onDetailsOpened_measuresHitRate() throws InterruptedException {
+        mSource.mRelease.countDown();
+        mPrefetcher.prefetch(1, false);
+        this.finish();
+
+        mPrefetcher.onDetailsOpened(1); // Prefetched.
+        mPrefetcher.onDetailsOpened(1); // Opened again: no longer counts as prefetched.
+        mPrefetcher.onDetailsOpened(2); // Never prefetched.
+        mPrefetcher.onDetailsOpened(3);
+
+        assertEquals(4, mPrefetcher.getOpened());
+        assertEquals(1, mPrefetcher.getHits());
+        assertEquals(0.25, mPrefetcher.getHitRate(), 0.0001);
+    }
+
+    @Test
+    public void prefetch_droppedForMoreImportantTask_notCountedAsStarted() throws InterruptedException {
+        mExecutor.shutdown();
+        mExecutor = new PriorityExecutor("test", 1, 1, Executors.defaultThreadFactory());
+        mPrefetcher = new DetailsPrefetcher(mSource, mCache, mExecutor, 2);
+
+        mPrefetcher.prefetch(1, false);
+        assertTrue(mSource.mStarted.await(5, TimeUnit.SECONDS));
+        mPrefetcher.prefetch(2, false); // Queued.
+        mPrefetcher.prefetch(3, false); // Waiting, as two are in flight.
+        assertEquals(2, mPrefetcher.getStarted());
+
+        // Queue is full, so 2 is dropped for a more important task.
+        final CountDownLatch ran = new CountDownLatch(1);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ran.countDown();
+            }
+        }, PriorityExecutor.Priority.VISIBLE);
+        assertEquals(1, mPrefetcher.getStarted());
+
+        this.finish();
+
+        // Every prefetch counted as started was loaded; 2 never was.
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertFalse(mSource.mLoaded.contains(2));
+        assertEquals(mSource.mLoaded.size(), mPrefetcher.getStarted());
+    }
+
+    /**
+     * Wait for prefetches to finish.
+     */
+    private void finish() throws InterruptedException {
+        mSource.mRelease.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while((mPrefetcher.getStarted() > mSource.mLoaded.size()) || (mExecutor.getMetrics().getCompleted() < mPrefetcher.getStarted())) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Source of details that records movies loaded, blocking until released.
+     */
+    private static class FakeDetailsSource implements DetailsPrefetcher.DetailsSource {
+        final CountDownLatch mStarted = new CountDownLatch(1);
+        final CountDownLatch mRelease = new CountDownLatch(1);
+        final List<Integer> mLoaded = Collections.synchronizedList(new ArrayList<Integer>());
+
+        @Override
+        public String getKey(int identifier) {
+            return "https://api.themoviedb.org/3/movie/" + identifier;
+        }
+
+        @Override
+        public MovieDetails load(int identifier) throws IOException {
+            mLoaded.add(identifier);
+            mStarted.countDown();
+            try {
+                mRelease.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+
+            return new MovieDetails(null, new ArrayList<Video>(), new ResultsPage<>(new ArrayList<Review>(), 1, 1));
+        }
+    }
+}
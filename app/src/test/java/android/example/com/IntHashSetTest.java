@@ -0,0 +1,66 @@
+package android.example.com;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check IntHashSet behaves as a set, including across growth and removal.
+ */
+public class IntHashSetTest {
+
+    @Test
+    public void add_containsAndRemove() {
+        IntHashSet set = new IntHashSet();
+
+        assertTrue(set.add(475557));
+        assertFalse(set.add(475557));
+        assertTrue(set.contains(475557));
+        assertFalse(set.contains(419704));
+        assertEquals(1, set.size());
+
+        assertTrue(set.remove(475557));
+        assertFalse(set.remove(475557));
+        assertFalse(set.contains(475557));
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    public void add_zeroAndNegative() {
+        IntHashSet set = new IntHashSet();
+
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertTrue(set.add(-1));
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(-1));
+        assertEquals(2, set.size());
+
+        int[] values = set.toArray();
+        Arrays.sort(values);
+        assertArrayEquals(new int[] {-1, 0}, values);
+    }
+
+    @Test
+    public void matchesHashSetUnderRandomOperations() {
+        IntHashSet set = new IntHashSet();
+        HashSet<Integer> expected = new HashSet<>();
+        Random random = new Random(42);
+
+        for(int operation = 0; operation < 100000; operation++) {
+            int value = random.nextInt(2000);
+            if(random.nextInt(3) == 0)
+                assertEquals(expected.remove(value), set.remove(value));
+            else
+                assertEquals(expected.add(value), set.add(value));
+        }
+
+        assertEquals(expected.size(), set.size());
+        for(int value = 0; value < 2000; value++)
+            assertEquals(expected.contains(value), set.contains(value));
+    }
+}
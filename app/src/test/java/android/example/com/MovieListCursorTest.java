@@ -0,0 +1,62 @@
+package android.example.com;
+
+import android.database.MatrixCursor;
+import android.example.com.Database.Movie;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check MovieList reads movies straight from a cursor of the catalogue, as the pager of
+ * discovered movies does, skipping repeats.
+ * <p>Runs with Robolectric, for a working MatrixCursor.</p>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class MovieListCursorTest {
+
+    private static final String[] COLUMNS = { "Identifier", "Title", "ImagePath", "Overview", "Rating", "ReleaseYear" };
+
+    private static MatrixCursor createCursor(List<Movie> movies) {
+        MatrixCursor cursor = new MatrixCursor(COLUMNS);
+        for(Movie movie: movies)
+            cursor.addRow(new Object[] { movie.getIdentifier(), movie.getTitle(), movie.getImagePath(), movie.getOverview(), movie.getRating(), movie.getReleaseYear() });
+        return cursor;
+    }
+
+    @Test
+    public void readUnique_readsColumnsAndSkipsRepeats() {
+        Movie first = new Movie(1, "Amélie", "http://image.tmdb.org/t/p/w185/a.jpg", "Overview", 7.9, 2001);
+        Movie second = new Movie(2, null, null, null, 0, Integer.MIN_VALUE);
+        Movie third = new Movie(3, "Title", "http://image.tmdb.org/t/p/w185/c.jpg", "", 8.25, 2019);
+        // Movie 1 repeated on a later page, e.g. as ordering changed between requests.
+        MatrixCursor cursor = createCursor(Arrays.asList(first, second, new Movie(1, "Amélie", "http://image.tmdb.org/t/p/w185/a.jpg", "Overview", 7.8, 2001), third));
+
+        MovieList list = MovieList.readUnique(cursor);
+
+        assertEquals(3, list.size());
+        List<Movie> expected = Arrays.asList(first, second, third);
+        for(int position = 0; position < expected.size(); position++) {
+            Movie movie = list.get(position);
+            assertEquals(expected.get(position).getIdentifier(), movie.getIdentifier());
+            assertEquals(expected.get(position).getTitle(), movie.getTitle());
+            assertEquals(expected.get(position).getImagePath(), movie.getImagePath());
+            assertEquals(expected.get(position).getOverview(), movie.getOverview());
+            assertEquals(expected.get(position).getRating(), movie.getRating(), 0);
+            assertEquals(expected.get(position).getReleaseYear(), movie.getReleaseYear());
+        }
+        assertFalse(cursor.isClosed()); // Left to the caller.
+    }
+
+    @Test
+    public void readUnique_emptyCursorReadsEmptyList() {
+        assertEquals(0, MovieList.readUnique(createCursor(Arrays.<Movie>asList())).size());
+    }
+}
@@ -0,0 +1,104 @@
+package android.example.com;
+
+import android.example.com.Database.Movie;
+
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check MovieList holds movies in columns without changing them, and builds poster URLs as
+ * Utils does, once per size.
+ */
+public class MovieListTest {
+
+    private static final String DISCOVER_MOVIES_FIXTURE = "discover_movies.json";
+
+    private static void assertSameMovie(Movie expected, Movie actual) {
+        assertEquals(expected.getIdentifier(), actual.getIdentifier());
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getImagePath(), actual.getImagePath());
+        assertEquals(expected.getOverview(), actual.getOverview());
+        assertEquals(expected.getRating(), actual.getRating(), 0);
+        assertEquals(expected.getReleaseYear(), actual.getReleaseYear());
+    }
+
+    @Test
+    public void copyOf_matchesParsedMovies() throws Exception {
+        InputStream stream = getClass().getClassLoader().getResourceAsStream(DISCOVER_MOVIES_FIXTURE);
+        List<Movie> movies;
+        try {
+            movies = Utils.parseMoviesJson(stream);
+        } finally {
+            stream.close();
+        }
+
+        MovieList list = MovieList.copyOf(movies);
+
+        assertEquals(movies.size(), list.size());
+        for(int position = 0; position < movies.size(); position++)
+            assertSameMovie(movies.get(position), list.get(position));
+        assertSame(list, MovieList.copyOf(list));
+    }
+
+    @Test
+    public void builder_keepsNullsUnknownYearsAndNonAsciiText() {
+        List<Movie> movies = Arrays.asList(
+                new Movie(1, "Amélie", null, null, 7.3, Integer.MIN_VALUE),
+                new Movie(2, "", "http://example.com/poster.jpg", "千と千尋の神隠し", 8.512, 2001),
+                new Movie(0, null, "http://image.tmdb.org/t/p/w185/abc.jpg", "", 0, 1895));
+
+        MovieList.Builder builder = new MovieList.Builder(1); // Grows.
+        for(Movie movie: movies)
+            builder.add(movie);
+        MovieList list = builder.build();
+
+        assertEquals(3, list.size());
+        for(int position = 0; position < movies.size(); position++)
+            assertSameMovie(movies.get(position), list.get(position));
+    }
+
+    @Test
+    public void getPosterURL_matchesUtilsAndIsBuiltOncePerSize() {
+        String imagePath = "http://image.tmdb.org/t/p/w185/udDclJoHjfjb8Ekgsd4FDteOkCU.jpg";
+        MovieList list = new MovieList.Builder(1).add(1, "Title", imagePath, "Overview", 7.5, 2020).build();
+
+        for(int displayWidth: new int[] { 80, 185, 270, 480, 1440 })
+            assertEquals(Utils.CreatePosterURL(imagePath, displayWidth), list.getPosterURL(0, displayWidth));
+
+        // Widths sharing a size of poster share its URL.
+        assertSame(list.getPosterURL(0, 270), list.getPosterURL(0, 300));
+        assertNotSame(list.getPosterURL(0, 270), list.getPosterURL(0, 480));
+    }
+
+    @Test
+    public void hasSamePoster_comparesPathsAcrossLists() {
+        String posterURL = "http://image.tmdb.org/t/p/w185/udDclJoHjfjb8Ekgsd4FDteOkCU.jpg";
+        MovieList list = new MovieList.Builder(3)
+                .add(1, "Title", posterURL, "Overview", 7.5, 2020)
+                .add(2, "Title", null, "Overview", 7.5, 2020)
+                .add(3, "", "http://image.tmdb.org/t/p/w185/other.jpg", "", 7.5, 2020)
+                .build();
+        MovieList other = new MovieList.Builder(3)
+                .add(4, null, null, null, 0, 1999)
+                .add(5, "Longer title", posterURL.replace("w185", "w500"), "Longer overview", 0, 1999) // Same path, other size.
+                .add(6, "Title", "http://image.tmdb.org/t/p/w185/udDclJoHjfjb8Ekgsd4FDteOkCV.jpg", "Overview", 7.5, 2020)
+                .build();
+
+        assertTrue(list.hasSamePoster(0, other, 1));
+        assertTrue(list.hasSamePoster(1, other, 0));
+        assertFalse(list.hasSamePoster(0, other, 0));
+        assertFalse(list.hasSamePoster(0, other, 2));
+        assertFalse(list.hasSamePoster(2, other, 1));
+        assertTrue(list.hasSamePoster(2, list, 2));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getIdentifier_outsideListThrows() {
+        new MovieList.Builder(4).add(1, "Title", null, "Overview", 7.5, 2020).build().getIdentifier(1);
+    }
+}
@@ -0,0 +1,315 @@
+package android.example.com;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check MoviesHttpClient against a local mock HTTP server.
+ */
+public class MoviesHttpClientTest {
+
+    private static final long CACHE_SIZE = 1024 * 1024;
+    private static final int TIMEOUT_MILLIS = 5000;
+    private static final String BODY = "{\"page\":1,\"results\":[]}";
+
+    /**
+     * Parser that simply returns response as a string.
+     */
+    private static final MoviesHttpClient.ResponseParser<String> STRING_PARSER = new MoviesHttpClient.ResponseParser<String>() {
+        @Override
+        public String parse(InputStream stream) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int count;
+            while((count = stream.read(buffer)) != -1)
+                bytes.write(buffer, 0, count);
+            return bytes.toString("UTF-8");
+        }
+    };
+
+    @Rule
+    public TemporaryFolder mCacheFolder = new TemporaryFolder();
+
+    private MockWebServer mServer;
+    private MoviesHttpClient mClient;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new MockWebServer();
+        mServer.start();
+        mClient = new MoviesHttpClient(mCacheFolder.getRoot(), CACHE_SIZE, TIMEOUT_MILLIS, TIMEOUT_MILLIS);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void get_reusesConnection() throws Exception {
+        mServer.enqueue(new MockResponse().setBody(BODY));
+        mServer.enqueue(new MockResponse().setBody(BODY));
+
+        mClient.get(url("/movie/1/videos"), false, STRING_PARSER);
+        mClient.get(url("/movie/1/reviews"), false, STRING_PARSER);
+
+        assertEquals(2, mClient.getRequests());
+        assertEquals(1, mClient.getConnectionsOpened());
+        assertEquals(1, mClient.getConnectionsReused());
+        assertEquals(0, mServer.takeRequest().getSequenceNumber()); // Sequence on same connection.
+        assertEquals(1, mServer.takeRequest().getSequenceNumber());
+    }
+
+    @Test
+    public void get_decodesGzip() throws Exception {
+        Buffer gzipped = new Buffer();
+        GZIPOutputStream gzip = new GZIPOutputStream(gzipped.outputStream());
+        gzip.write(BODY.getBytes("UTF-8"));
+        gzip.close();
+        mServer.enqueue(new MockResponse().setBody(gzipped).addHeader("Content-Encoding", "gzip"));
+
+        MoviesHttpClient.Result<String> result = mClient.get(url("/discover/movie"), false, STRING_PARSER);
+
+        assertEquals(BODY, result.getData());
+        assertEquals("gzip", mServer.takeRequest().getHeader("Accept-Encoding"));
+    }
+
+    @Test
+    public void get_fromCacheWithEmptyCacheReturnsNull() throws IOException {
+        assertNull(mClient.get(url("/discover/movie"), true, STRING_PARSER));
+        assertEquals(0, mServer.getRequestCount());
+    }
+
+    @Test
+    public void get_expiredResponseIsStaleThenRevalidated() throws Exception {
+        mServer.enqueue(new MockResponse().setBody(BODY).addHeader("Cache-Control", "max-age=0").addHeader("ETag", "\"v1\""));
+        mServer.enqueue(new MockResponse().setResponseCode(304).addHeader("ETag", "\"v1\""));
+
+        mClient.get(url("/discover/movie"), false, STRING_PARSER);
+
+        MoviesHttpClient.Result<String> cached = mClient.get(url("/discover/movie"), true, STRING_PARSER);
+        assertEquals(BODY, cached.getData());
+        assertTrue(cached.isStale());
+        assertEquals(1, mServer.getRequestCount());
+
+        MoviesHttpClient.Result<String> revalidated = mClient.get(url("/discover/movie"), false, STRING_PARSER);
+        assertEquals(BODY, revalidated.getData());
+        assertFalse(revalidated.isStale());
+        mServer.takeRequest();
+        RecordedRequest conditional = mServer.takeRequest();
+        assertEquals("\"v1\"", conditional.getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void get_identicalRequestsInFlightShareOne() throws Exception {
+        mServer.enqueue(new MockResponse().setBody(BODY));
+
+        // Hold first request in flight until second has joined it.
+        final CountDownLatch parsing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final MoviesHttpClient.ResponseParser<String> blockingParser = new MoviesHttpClient.ResponseParser<String>() {
+            @Override
+            public String parse(InputStream stream) throws IOException {
+                parsing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                return STRING_PARSER.parse(stream);
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<MoviesHttpClient.Result<String>> first = executor.submit(get(url("/discover/movie?page=1&sort_by=popularity.desc"), blockingParser));
+            assertTrue(parsing.await(5, TimeUnit.SECONDS));
+            Future<MoviesHttpClient.Result<String>> second = executor.submit(get(url("/discover/movie?sort_by=popularity.desc&page=1"), blockingParser));
+            long deadline = System.currentTimeMillis() + 5000;
+            while((mClient.getCoalescedRequests() == 0) && (System.currentTimeMillis() < deadline))
+                Thread.sleep(10);
+            release.countDown();
+
+            assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+            assertEquals(BODY, first.get().getData());
+            assertEquals(1, mClient.getCoalescedRequests());
+            assertEquals(1, mClient.getRequests());
+            assertEquals(1, mServer.getRequestCount());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void get_unsuccessfulResponseThrows() throws IOException {
+        mServer.enqueue(new MockResponse().setResponseCode(401));
+
+        mClient.get(url("/discover/movie"), false, STRING_PARSER);
+    }
+
+    @Test
+    public void get_rateLimitedIsRetriedAfterRetryAfter() throws IOException {
+        MoviesHttpClient client = clientWithRetries(3, 4);
+        mServer.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "1"));
+        mServer.enqueue(new MockResponse().setBody(BODY));
+
+        long start = System.nanoTime();
+        assertEquals(BODY, client.get(url("/discover/movie"), false, STRING_PARSER).getData());
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(1000));
+        assertEquals(2, mServer.getRequestCount());
+        assertEquals(1, client.getRetries());
+    }
+
+    @Test
+    public void get_serverErrorsAreRetried() throws IOException {
+        MoviesHttpClient client = clientWithRetries(3, 4);
+        mServer.enqueue(new MockResponse().setResponseCode(503));
+        mServer.enqueue(new MockResponse().setResponseCode(502));
+        mServer.enqueue(new MockResponse().setBody(BODY));
+
+        assertEquals(BODY, client.get(url("/discover/movie"), false, STRING_PARSER).getData());
+        assertEquals(3, mServer.getRequestCount());
+    }
+
+    @Test
+    public void get_givesUpAfterMaxAttempts() {
+        MoviesHttpClient client = clientWithRetries(3, 4);
+        for(int i = 0; i < 4; i++)
+            mServer.enqueue(new MockResponse().setResponseCode(500));
+
+        try {
+            client.get(url("/discover/movie"), false, STRING_PARSER);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertEquals(3, mServer.getRequestCount());
+        }
+    }
+
+    @Test
+    public void get_clientErrorIsNotRetried() {
+        MoviesHttpClient client = clientWithRetries(3, 4);
+        mServer.enqueue(new MockResponse().setResponseCode(404));
+        mServer.enqueue(new MockResponse().setBody(BODY));
+
+        try {
+            client.get(url("/movie/1"), false, STRING_PARSER);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertEquals(1, mServer.getRequestCount());
+        }
+    }
+
+    @Test
+    public void get_concurrentRequestsStayWithinLimit() throws Exception {
+        final int maxConcurrent = 2;
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+        mServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                // Server that rejects requests beyond its limit of concurrent requests.
+                try {
+                    if(inFlight.incrementAndGet() > maxConcurrent) {
+                        rejected.incrementAndGet();
+                        return new MockResponse().setResponseCode(429);
+                    }
+                    Thread.sleep(50);
+                    return new MockResponse().setBody(BODY);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        });
+        MoviesHttpClient client = clientWithRetries(1, maxConcurrent);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<MoviesHttpClient.Result<String>>> results = new ArrayList<>();
+            for(int i = 0; i < 8; i++)
+                results.add(executor.submit(get(client, url("/movie/" + i), STRING_PARSER)));
+            for(Future<MoviesHttpClient.Result<String>> result: results)
+                assertEquals(BODY, result.get(10, TimeUnit.SECONDS).getData());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, rejected.get());
+        assertEquals(8, mServer.getRequestCount());
+    }
+
+    /**
+     * Create client without cache, retrying quickly.
+     * @param maxAttempts Maximum number of attempts of each request.
+     * @param maxConcurrent Maximum number of requests in flight at once.
+     * @return Client.
+     */
+    private static MoviesHttpClient clientWithRetries(int maxAttempts, int maxConcurrent) {
+        return new MoviesHttpClient(null, 0, TIMEOUT_MILLIS, TIMEOUT_MILLIS,
+                new RateLimiter(100, 10, 10, maxConcurrent, TIMEOUT_MILLIS),
+                new RetryPolicy(maxAttempts, 10, 2000));
+    }
+
+    /**
+     * Create task to request URL from network.
+     * @param url URL.
+     * @param parser Parser of response.
+     * @return Task.
+     */
+    private Callable<MoviesHttpClient.Result<String>> get(final URL url, final MoviesHttpClient.ResponseParser<String> parser) {
+        return get(mClient, url, parser);
+    }
+
+    /**
+     * Create task to request URL from network with client.
+     * @param client Client.
+     * @param url URL.
+     * @param parser Parser of response.
+     * @return Task.
+     */
+    private static Callable<MoviesHttpClient.Result<String>> get(final MoviesHttpClient client, final URL url, final MoviesHttpClient.ResponseParser<String> parser) {
+        return new Callable<MoviesHttpClient.Result<String>>() {
+            @Override
+            public MoviesHttpClient.Result<String> call() throws IOException {
+                return client.get(url, false, parser);
+            }
+        };
+    }
+
+    /**
+     * Get URL of path on mock server.
+     * @param path Path.
+     * @return URL.
+     */
+    private URL url(String path) {
+        return mServer.url(path).url();
+    }
+}
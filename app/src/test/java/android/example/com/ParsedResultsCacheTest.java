@@ -0,0 +1,62 @@
+package android.example.com;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check ParsedResultsCache keeps, evicts and expires parsed results.
+ */
+public class ParsedResultsCacheTest {
+
+    private static final long ONE_HOUR_MILLIS = 60 * 60 * 1000;
+
+    @Test
+    public void get_returnsSameInstanceAsPut() {
+        ParsedResultsCache cache = new ParsedResultsCache(4, ONE_HOUR_MILLIS);
+        List<String> videos = Collections.unmodifiableList(Collections.singletonList("Trailer"));
+
+        cache.put("https://api.themoviedb.org/3/movie/1/videos", videos);
+        List<String> cached = cache.get("https://api.themoviedb.org/3/movie/1/videos");
+
+        assertSame(videos, cached);
+        assertNull(cache.get("https://api.themoviedb.org/3/movie/2/videos"));
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsed() {
+        ParsedResultsCache cache = new ParsedResultsCache(2, ONE_HOUR_MILLIS);
+
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.get("a"); // Now b is least recently used.
+        cache.put("c", "C");
+
+        assertEquals(2, cache.size());
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("C", cache.get("c"));
+    }
+
+    @Test
+    public void get_dropsExpiredResult() {
+        ParsedResultsCache cache = new ParsedResultsCache(2, 0);
+
+        cache.put("a", "A");
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void put_ignoresNull() {
+        ParsedResultsCache cache = new ParsedResultsCache(2, ONE_HOUR_MILLIS);
+
+        cache.put("a", null);
+
+        assertEquals(0, cache.size());
+    }
+}
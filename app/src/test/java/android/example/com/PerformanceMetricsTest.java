@@ -0,0 +1,74 @@
+package android.example.com;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check PerformanceMetrics counts, reads gauges, places latencies in histograms within their
+ * precision and exports them as JSON.
+ */
+public class PerformanceMetricsTest {
+
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    @Test
+    public void histogram_bucketsWithinSixPercent() {
+        long[] values = { 0, 1, 15, 16, 17, 31, 32, 1000, 12345, 999999, 123456789L, Long.MAX_VALUE / 1000 };
+        int previous = -1;
+        for(long value: values) {
+            int bucket = PerformanceMetrics.Histogram.bucketOf(value);
+            assertTrue(bucket >= previous); // Buckets in order of value.
+            previous = bucket;
+
+            long highest = PerformanceMetrics.Histogram.highestOf(bucket);
+            if(value < (1L << 40)) {
+                assertTrue(highest >= value);
+                assertTrue(highest - value <= Math.max(0, value / 16));
+            }
+        }
+    }
+
+    @Test
+    public void histogram_percentiles() {
+        PerformanceMetrics.Histogram histogram = new PerformanceMetrics().histogram("test");
+        for(int millis = 1; millis <= 100; millis++)
+            histogram.recordNanos(millis * NANOS_PER_MILLI);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50.5, histogram.getMeanMillis(), 0.01);
+        assertEquals(50, histogram.getPercentileMillis(50), 50 * 0.07);
+        assertEquals(99, histogram.getPercentileMillis(99), 99 * 0.07);
+        assertEquals(100, histogram.getPercentileMillis(100), 0.0);
+        assertEquals(100, histogram.getMaxMillis(), 0.0);
+    }
+
+    @Test
+    public void snapshot_exportsAllMetricsAsJson() throws JSONException {
+        PerformanceMetrics metrics = new PerformanceMetrics();
+        metrics.counter("hits").increment();
+        metrics.counter("hits").add(2);
+        metrics.register("depth", new PerformanceMetrics.Gauge() {
+            @Override
+            public double getValue() {
+                return 7;
+            }
+        });
+        PerformanceMetrics.Histogram histogram = metrics.histogram("load");
+        histogram.end(histogram.begin());
+        assertSame(histogram, metrics.histogram("load"));
+
+        JSONObject snapshot = new JSONObject(metrics.snapshot().toString());
+
+        assertEquals(3, snapshot.getJSONObject("counters").getLong("hits"));
+        assertEquals(7, snapshot.getJSONObject("gauges").getDouble("depth"), 0.0);
+        assertEquals(1, snapshot.getJSONObject("histograms").getJSONObject("load").getLong("count"));
+
+        metrics.reset();
+        snapshot = metrics.snapshot();
+        assertEquals(0, snapshot.getJSONObject("counters").getLong("hits"));
+        assertEquals(0, snapshot.getJSONObject("histograms").getJSONObject("load").getLong("count"));
+    }
+}
@@ -0,0 +1,144 @@
+package android.example.com;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check PriorityExecutor runs tasks in order of priority, bounds its queue and records metrics.
+ */
+public class PriorityExecutorTest {
+
+    private PriorityExecutor mExecutor;
+    private CountDownLatch mRelease;
+    private List<String> mRun;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        mExecutor = new PriorityExecutor("test", 1, 3, Executors.defaultThreadFactory());
+        mRun = Collections.synchronizedList(new ArrayList<String>());
+
+        // Keep single thread busy, so tasks queue up until released.
+        mRelease = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    mRelease.await();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void tearDown() {
+        mRelease.countDown();
+        mExecutor.shutdown();
+    }
+
+    @Test
+    public void execute_runsHighestPriorityFirstThenInOrder() throws InterruptedException {
+        mExecutor.execute(record("prefetch"), PriorityExecutor.Priority.PREFETCH);
+        mExecutor.execute(record("visible 1"), PriorityExecutor.Priority.VISIBLE);
+        mExecutor.execute(record("visible 2"), PriorityExecutor.Priority.VISIBLE);
+
+        this.finish();
+
+        assertEquals(Arrays.asList("visible 1", "visible 2", "prefetch"), mRun);
+    }
+
+    @Test
+    public void execute_queueFull_dropsPrefetchOrRejects() throws InterruptedException {
+        mExecutor.execute(record("prefetch 1"), PriorityExecutor.Priority.PREFETCH);
+        mExecutor.execute(record("prefetch 2"), PriorityExecutor.Priority.PREFETCH);
+        mExecutor.execute(record("normal"));
+
+        // Full: latest prefetch tasks make way for others; prefetch task is not queued.
+        mExecutor.execute(record("visible"), PriorityExecutor.Priority.VISIBLE);
+        mExecutor.execute(record("prefetch 3"), PriorityExecutor.Priority.PREFETCH);
+        mExecutor.execute(record("normal 2"));
+        try {
+            mExecutor.executeOrReject(record("normal 3"), PriorityExecutor.Priority.NORMAL);
+            fail("Expected RejectedExecutionException");
+        } catch (RejectedExecutionException e) {
+            // Expected.
+        }
+        assertEquals(3, mExecutor.getMetrics().getQueueDepth());
+        assertEquals(4, mExecutor.getMetrics().getRejected());
+
+        this.finish();
+
+        assertEquals(Arrays.asList("visible", "normal", "normal 2"), mRun);
+    }
+
+    @Test
+    public void execute_queueFullWithoutPrefetch_queuesBeyondCapacity() throws InterruptedException {
+        mExecutor.execute(record("normal 1"));
+        mExecutor.execute(record("normal 2"));
+        mExecutor.execute(record("normal 3"));
+
+        // Full, with no prefetch task to drop: queued anyway rather than thrown.
+        mExecutor.execute(record("normal 4"));
+        mExecutor.execute(record("visible"), PriorityExecutor.Priority.VISIBLE);
+        assertEquals(5, mExecutor.getMetrics().getQueueDepth());
+        assertEquals(0, mExecutor.getMetrics().getRejected());
+        assertEquals(2, mExecutor.getMetrics().getOverflowed());
+
+        this.finish();
+
+        assertEquals(Arrays.asList("visible", "normal 1", "normal 2", "normal 3", "normal 4"), mRun);
+    }
+
+    @Test
+    public void getMetrics_recordsWaitAndRunTimes() throws InterruptedException {
+        mExecutor.execute(record("visible"), PriorityExecutor.Priority.VISIBLE);
+        Thread.sleep(20);
+
+        this.finish();
+
+        PriorityExecutor.Metrics metrics = mExecutor.getMetrics();
+        assertEquals(2, metrics.getCompleted()); // Including busy task.
+        assertEquals(0, metrics.getQueueDepth());
+        assertEquals(0, metrics.getRejected());
+        assertTrue(metrics.getMaxWaitMillis() >= 20);
+        assertTrue(metrics.getMaxRunMillis() >= 20);
+        assertTrue(metrics.getAverageWaitMillis() > 0);
+    }
+
+    /**
+     * Create task that records its name when it runs.
+     */
+    private Runnable record(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                mRun.add(name);
+            }
+        };
+    }
+
+    /**
+     * Release busy thread and wait for queued tasks to finish.
+     */
+    private void finish() throws InterruptedException {
+        mRelease.countDown();
+        mExecutor.shutdown();
+        assertTrue(mExecutor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
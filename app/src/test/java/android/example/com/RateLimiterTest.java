@@ -0,0 +1,80 @@
+package android.example.com;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check RateLimiter paces requests, caps those in flight and backs off when rate limited.
+ */
+public class RateLimiterTest {
+
+    @Test
+    public void acquire_pacesBeyondBurst() throws IOException {
+        RateLimiter limiter = new RateLimiter(20, 1, 2, 10, 5000);
+
+        long start = System.nanoTime();
+        for(int i = 0; i < 4; i++) {
+            limiter.acquire();
+            limiter.release();
+        }
+
+        // Two in the burst, then two more at 50ms each.
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+        assertEquals(2, limiter.getThrottled());
+    }
+
+    @Test
+    public void acquire_beyondMaxConcurrentThrowsOnceWaitedTooLong() throws IOException {
+        RateLimiter limiter = new RateLimiter(100, 1, 10, 2, 100);
+        limiter.acquire();
+        limiter.acquire();
+
+        long start = System.nanoTime();
+        try {
+            limiter.acquire();
+            fail("Expected RateLimitedException");
+        } catch (RateLimiter.RateLimitedException e) {
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+        }
+
+        // Permit released is available again.
+        limiter.release();
+        limiter.acquire();
+    }
+
+    @Test
+    public void onRateLimited_pausesAndHalvesRateThenRecovers() throws IOException {
+        RateLimiter limiter = new RateLimiter(40, 5, 10, 10, 5000);
+
+        limiter.onRateLimited(200);
+        assertEquals(20, limiter.getPermitsPerSecond(), 0.001);
+        assertEquals(1, limiter.getRateLimited());
+
+        long start = System.nanoTime();
+        limiter.acquire();
+        limiter.release();
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(190));
+
+        // Never halved below minimum.
+        limiter.onRateLimited(0);
+        limiter.onRateLimited(0);
+        assertEquals(5, limiter.getPermitsPerSecond(), 0.001);
+
+        // Each request accepted adds back some of the rate, up to maximum.
+        for(int i = 0; i < 100; i++)
+            limiter.onAccepted();
+        assertEquals(40, limiter.getPermitsPerSecond(), 0.001);
+    }
+
+    @Test(expected = RateLimiter.RateLimitedException.class)
+    public void acquire_pausedLongerThanMaxWaitThrowsStraightAway() throws IOException {
+        RateLimiter limiter = new RateLimiter(40, 5, 10, 10, 100);
+        limiter.onRateLimited(60000);
+
+        limiter.acquire();
+    }
+}
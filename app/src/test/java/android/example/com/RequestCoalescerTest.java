@@ -0,0 +1,131 @@
+package android.example.com;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check RequestCoalescer shares requests in flight, and only while they are in flight.
+ */
+public class RequestCoalescerTest {
+
+    private RequestCoalescer mCoalescer;
+    private ExecutorService mExecutor;
+    private AtomicInteger mExecuted;
+    private CountDownLatch mStarted;
+    private CountDownLatch mRelease;
+
+    @Before
+    public void setUp() {
+        mCoalescer = new RequestCoalescer();
+        mExecutor = Executors.newFixedThreadPool(3);
+        mExecuted = new AtomicInteger();
+        mStarted = new CountDownLatch(1);
+        mRelease = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() {
+        mRelease.countDown();
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void execute_sharesResultOfRequestInFlight() throws Exception {
+        Future<Object> first = mExecutor.submit(execute("a", false));
+        assertTrue(mStarted.await(5, TimeUnit.SECONDS));
+        Future<Object> second = mExecutor.submit(execute("a", false));
+        Future<Object> third = mExecutor.submit(execute("a", false));
+        this.awaitCoalesced(2);
+        mRelease.countDown();
+
+        Object result = first.get(5, TimeUnit.SECONDS);
+        assertSame(result, second.get(5, TimeUnit.SECONDS));
+        assertSame(result, third.get(5, TimeUnit.SECONDS));
+        assertEquals(1, mExecuted.get());
+
+        // Once complete, request is made again.
+        assertNotSame(result, execute("a", false).call());
+        assertEquals(2, mExecuted.get());
+        assertEquals(2, mCoalescer.getCoalesced());
+    }
+
+    @Test
+    public void execute_sharesFailureOfRequestInFlight() throws Exception {
+        Future<Object> first = mExecutor.submit(execute("a", true));
+        assertTrue(mStarted.await(5, TimeUnit.SECONDS));
+        Future<Object> second = mExecutor.submit(execute("a", true));
+        this.awaitCoalesced(1);
+        mRelease.countDown();
+
+        for(Future<Object> future: Arrays.asList(first, second)) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("Expected IOException");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+        }
+        assertEquals(1, mExecuted.get());
+    }
+
+    @Test
+    public void canonicalise_ignoresOrderOfQueryParameters() throws Exception {
+        String first = RequestCoalescer.canonicalise(new URL("https://API.themoviedb.org/3/discover/movie?sort_by=popularity.desc&page=2&api_key=k"));
+        String second = RequestCoalescer.canonicalise(new URL("https://api.themoviedb.org/3/discover/movie?api_key=k&page=2&sort_by=popularity.desc#top"));
+        String other = RequestCoalescer.canonicalise(new URL("https://api.themoviedb.org/3/discover/movie?api_key=k&page=3&sort_by=popularity.desc"));
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+    }
+
+    /**
+     * Create task to execute request, which is held in flight until released.
+     */
+    private Callable<Object> execute(final String key, final boolean fail) {
+        return new Callable<Object>() {
+            @Override
+            public Object call() throws IOException {
+                return mCoalescer.execute(key, new RequestCoalescer.Request<Object>() {
+                    @Override
+                    public Object execute() throws IOException {
+                        mExecuted.incrementAndGet();
+                        mStarted.countDown();
+                        try {
+                            mRelease.await();
+                        } catch (InterruptedException e) {
+                            throw new IOException(e);
+                        }
+                        if(fail)
+                            throw new IOException("Failed");
+                        return new Object();
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Wait for number of requests to have joined request in flight.
+     */
+    private void awaitCoalesced(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while((mCoalescer.getCoalesced() < count) && (System.currentTimeMillis() < deadline))
+            Thread.sleep(10);
+        assertEquals(count, mCoalescer.getCoalesced());
+    }
+}
@@ -0,0 +1,132 @@
+package android.example.com;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check StartupInitializer initialises components after their dependencies, only those
+ * needed for the first frame on the calling thread, and never waits for the rest.
+ */
+public class StartupInitializerTest {
+
+    private final List<String> mInitialised = Collections.synchronizedList(new ArrayList<String>());
+
+    /**
+     * Create component that records its name, and the thread it ran on, once initialised.
+     */
+    private Runnable record(final String name, final List<Thread> threads) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                threads.add(Thread.currentThread());
+                mInitialised.add(name);
+            }
+        };
+    }
+
+    @Test
+    public void start_initialisesDependenciesFirst_withoutWaitingForDeferred() throws InterruptedException {
+        ExecutorService background = Executors.newFixedThreadPool(3);
+        final CountDownLatch databaseMayFinish = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        final List<Thread> mainThreads = Collections.synchronizedList(new ArrayList<Thread>());
+        final List<Thread> backgroundThreads = Collections.synchronizedList(new ArrayList<Thread>());
+
+        StartupInitializer initializer = new StartupInitializer(background, new PerformanceMetrics())
+                .add("tracing", true, record("tracing", mainThreads))
+                .add("theme", true, record("theme", mainThreads), "tracing")
+                .add("database", false, new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            databaseMayFinish.await(); // Slow, e.g. migrating.
+                        } catch (InterruptedException e) {
+                            e.printStackTrace();
+                        }
+                        record("database", backgroundThreads).run();
+                    }
+                })
+                .add("index", false, record("index", backgroundThreads), "database", "tracing")
+                .add("http", false, record("http", backgroundThreads))
+                .add("prefetcher", false, record("prefetcher", backgroundThreads), "http", "index")
+                .add("done", false, new Runnable() {
+                    @Override
+                    public void run() {
+                        done.countDown();
+                    }
+                }, "prefetcher");
+
+        initializer.start();
+
+        // First frame components were initialised here, in order, while database is still
+        // being initialised in the background.
+        assertEquals(2, mainThreads.size());
+        for(Thread thread: mainThreads)
+            assertSame(Thread.currentThread(), thread);
+        assertTrue(initializer.isInitialized("theme"));
+        assertFalse(initializer.isInitialized("database"));
+        assertFalse(initializer.isInitialized("index"));
+
+        databaseMayFinish.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        background.shutdown();
+
+        for(Thread thread: backgroundThreads)
+            assertNotSame(Thread.currentThread(), thread);
+        assertTrue(mInitialised.indexOf("tracing") < mInitialised.indexOf("theme"));
+        assertTrue(mInitialised.indexOf("database") < mInitialised.indexOf("index"));
+        assertTrue(mInitialised.indexOf("index") < mInitialised.indexOf("prefetcher"));
+        assertTrue(mInitialised.indexOf("http") < mInitialised.indexOf("prefetcher"));
+        assertTrue(initializer.isInitialized("prefetcher"));
+    }
+
+    @Test
+    public void start_failedComponent_stillInitialisesDependents() {
+        StartupInitializer initializer = new StartupInitializer(new DirectExecutor(), new PerformanceMetrics())
+                .add("failing", false, new Runnable() {
+                    @Override
+                    public void run() {
+                        throw new IllegalStateException("Expected by test");
+                    }
+                })
+                .add("dependent", false, record("dependent", new ArrayList<Thread>()), "failing");
+
+        initializer.start();
+
+        assertTrue(initializer.isInitialized("failing"));
+        assertEquals(Collections.singletonList("dependent"), mInitialised);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void add_firstFrameDependingOnDeferred_throws() {
+        new StartupInitializer(new DirectExecutor(), new PerformanceMetrics())
+                .add("database", false, record("database", new ArrayList<Thread>()))
+                .add("list", true, record("list", new ArrayList<Thread>()), "database");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void add_unknownDependency_throws() {
+        new StartupInitializer(new DirectExecutor(), new PerformanceMetrics())
+                .add("index", false, record("index", new ArrayList<Thread>()), "database");
+    }
+
+    /**
+     * Executor running tasks straight away, on the calling thread.
+     */
+    private static class DirectExecutor implements Executor {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package android.example.com;
+
+import android.example.com.Database.Movie;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check that the streaming parsers of Utils produce the same movies, videos and reviews as
+ * the JSONObject parsers, using recorded Movie DB API responses.
+ */
+public class UtilsParseJsonTest {
+
+    private static final String DISCOVER_MOVIES_FIXTURE = "discover_movies.json";
+    private static final String MOVIE_VIDEOS_FIXTURE = "movie_videos.json";
+    private static final String MOVIE_REVIEWS_FIXTURE = "movie_reviews.json";
+    private static final String MOVIE_DETAILS_FIXTURE = "movie_details.json";
+
+    @Test
+    public void parseMoviesJson_streamMatchesString() throws IOException {
+        ArrayList<Movie> expected = Utils.parseMoviesJson(readFixture(DISCOVER_MOVIES_FIXTURE));
+        List<Movie> actual = Utils.parseMoviesJson(openFixture(DISCOVER_MOVIES_FIXTURE));
+
+        assertEquals(5, expected.size());
+        assertEquals(expected.size(), actual.size());
+        for(int index = 0; index < expected.size(); index++) {
+            Movie e = expected.get(index);
+            Movie a = actual.get(index);
+            assertEquals(e.getIdentifier(), a.getIdentifier());
+            assertEquals(e.getTitle(), a.getTitle());
+            assertEquals(e.getImagePath(), a.getImagePath());
+            assertEquals(e.getOverview(), a.getOverview());
+            assertEquals(e.getRating(), a.getRating(), 0.0);
+            assertEquals(e.getReleaseYear(), a.getReleaseYear());
+        }
+    }
+
+    @Test
+    public void parseMoviesJson_releaseYear() throws IOException {
+        List<Movie> movies = Utils.parseMoviesJson(openFixture(DISCOVER_MOVIES_FIXTURE));
+
+        assertEquals(2019, movies.get(0).getReleaseYear());
+        assertEquals(Integer.MIN_VALUE, movies.get(2).getReleaseYear()); // Empty release date.
+        assertEquals(Integer.MIN_VALUE, movies.get(3).getReleaseYear()); // No release date.
+    }
+
+    @Test
+    public void parseMoviesPageJson_readsPageNumbers() throws IOException {
+        ResultsPage<Movie> page = Utils.parseMoviesPageJson(openFixture(DISCOVER_MOVIES_FIXTURE));
+
+        assertEquals(1, page.getPage());
+        assertEquals(500, page.getTotalPages());
+        assertEquals(5, page.getResults().size());
+    }
+
+    @Test(expected = IOException.class)
+    public void parseMoviesJson_truncatedStreamThrows() throws IOException {
+        String json = readFixture(DISCOVER_MOVIES_FIXTURE);
+        String truncated = json.substring(0, json.indexOf("\"id\":420809"));
+
+        Utils.parseMoviesJson(new ByteArrayInputStream(truncated.getBytes("UTF-8")));
+    }
+
+    @Test
+    public void parseVideosJson_streamMatchesString() throws IOException {
+        ArrayList<Video> expected = Utils.parseVideosJson(readFixture(MOVIE_VIDEOS_FIXTURE));
+        List<Video> actual = Utils.parseVideosJson(openFixture(MOVIE_VIDEOS_FIXTURE));
+
+        assertEquals(3, expected.size());
+        assertEquals(expected.size(), actual.size());
+        for(int index = 0; index < expected.size(); index++) {
+            Video e = expected.get(index);
+            Video a = actual.get(index);
+            assertEquals(e.getIdentifier(), a.getIdentifier());
+            assertEquals(e.getKey(), a.getKey());
+            assertEquals(e.getName(), a.getName());
+            assertEquals(e.getSite(), a.getSite());
+        }
+    }
+
+    @Test
+    public void parseReviewsJson_streamMatchesString() throws IOException {
+        ArrayList<Review> expected = Utils.parseReviewsJson(readFixture(MOVIE_REVIEWS_FIXTURE));
+        List<Review> actual = Utils.parseReviewsJson(openFixture(MOVIE_REVIEWS_FIXTURE));
+
+        assertEquals(2, expected.size());
+        assertEquals(expected.size(), actual.size());
+        for(int index = 0; index < expected.size(); index++) {
+            Review e = expected.get(index);
+            Review a = actual.get(index);
+            assertEquals(e.getIdentifier(), a.getIdentifier());
+            assertEquals(e.getAuthor(), a.getAuthor());
+            assertEquals(e.getContent(), a.getContent());
+        }
+    }
+
+    @Test
+    public void parseReviewsPageJson_readsPageNumbers() throws IOException {
+        String json = "{\"id\":1,\"page\":2,\"results\":[{\"id\":\"a\",\"author\":\"Ann\",\"content\":\"Good.\"}],\"total_pages\":3}";
+
+        ResultsPage<Review> page = Utils.parseReviewsPageJson(new ByteArrayInputStream(json.getBytes("UTF-8")));
+
+        assertEquals(2, page.getPage());
+        assertEquals(3, page.getTotalPages());
+        assertEquals(1, page.getResults().size());
+        assertEquals("Ann", page.getResults().get(0).getAuthor());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void parseReviewsPageJson_resultsCannotBeChanged() throws IOException {
+        String json = "{\"id\":1,\"page\":1,\"results\":[{\"id\":\"a\",\"author\":\"Ann\",\"content\":\"Good.\"}],\"total_pages\":1}";
+
+        ResultsPage<Review> page = Utils.parseReviewsPageJson(new ByteArrayInputStream(json.getBytes("UTF-8")));
+
+        page.getResults().clear();
+    }
+
+    @Test
+    public void parseReviewsJson_noResults() throws IOException {
+        String json = "{\"id\":1,\"page\":1,\"total_pages\":0}";
+
+        List<Review> reviews = Utils.parseReviewsJson(new ByteArrayInputStream(json.getBytes("UTF-8")));
+
+        assertTrue(reviews.isEmpty());
+    }
+
+    @Test
+    public void parseMovieDetailsJson_splitsAppendedResults() throws IOException {
+        ArrayList<Video> expectedVideos = Utils.parseVideosJson(readFixture(MOVIE_VIDEOS_FIXTURE));
+        ArrayList<Review> expectedReviews = Utils.parseReviewsJson(readFixture(MOVIE_REVIEWS_FIXTURE));
+
+        MovieDetails details = Utils.parseMovieDetailsJson(openFixture(MOVIE_DETAILS_FIXTURE));
+
+        Movie movie = details.getMovie();
+        assertNotNull(movie);
+        assertEquals(475557, movie.getIdentifier());
+        assertEquals("Joker", movie.getTitle());
+        assertEquals(2019, movie.getReleaseYear());
+        assertEquals(expectedVideos.size(), details.getVideos().size());
+        for(int index = 0; index < expectedVideos.size(); index++)
+            assertEquals(expectedVideos.get(index).getKey(), details.getVideos().get(index).getKey());
+        assertEquals(expectedReviews.size(), details.getReviews().size());
+        for(int index = 0; index < expectedReviews.size(); index++)
+            assertEquals(expectedReviews.get(index).getContent(), details.getReviews().get(index).getContent());
+        assertEquals(1, details.getReviewsTotalPages());
+    }
+
+    @Test
+    public void parseMovieDetailsJson_nothingAppended() throws IOException {
+        String json = "{\"id\":1,\"original_title\":\"Title\",\"poster_path\":\"/p.jpg\",\"overview\":\"\",\"vote_average\":5.5,\"release_date\":\"2001-01-01\"}";
+
+        MovieDetails details = Utils.parseMovieDetailsJson(new ByteArrayInputStream(json.getBytes("UTF-8")));
+
+        assertEquals(1, details.getMovie().getIdentifier());
+        assertTrue(details.getVideos().isEmpty());
+        assertTrue(details.getReviews().isEmpty());
+    }
+
+    /**
+     * Open recorded response from test resources.
+     * @param name Name of fixture.
+     * @return Stream of fixture.
+     */
+    private InputStream openFixture(String name) {
+        InputStream stream = getClass().getClassLoader().getResourceAsStream(name);
+        assertNotNull("Missing fixture " + name, stream);
+        return stream;
+    }
+
+    /**
+     * Read recorded response from test resources into a string.
+     * @param name Name of fixture.
+     * @return Fixture as string.
+     */
+    private String readFixture(String name) throws IOException {
+        InputStream stream = openFixture(name);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int count;
+            while((count = stream.read(buffer)) != -1)
+                bytes.write(buffer, 0, count);
+            return bytes.toString("UTF-8");
+        } finally {
+            stream.close();
+        }
+    }
+}
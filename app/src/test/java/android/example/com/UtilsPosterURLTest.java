@@ -0,0 +1,40 @@
+package android.example.com;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check choice of poster image size for width of grid cell.
+ */
+public class UtilsPosterURLTest {
+
+    private static final String POSTER = "http://image.tmdb.org/t/p/w185/udDclJoHjfjb8Ekgsd4FDteOkCU.jpg";
+
+    @Test
+    public void choosePosterWidth_choosesSmallestNotNarrower() {
+        assertEquals(92, Utils.choosePosterWidth(1));
+        assertEquals(92, Utils.choosePosterWidth(92));
+        assertEquals(154, Utils.choosePosterWidth(93));
+        assertEquals(342, Utils.choosePosterWidth(270));
+        assertEquals(500, Utils.choosePosterWidth(480));
+        assertEquals(780, Utils.choosePosterWidth(720));
+    }
+
+    @Test
+    public void choosePosterWidth_capsAtWidest() {
+        assertEquals(780, Utils.choosePosterWidth(1440));
+    }
+
+    @Test
+    public void CreatePosterURL_replacesSize() {
+        assertEquals("http://image.tmdb.org/t/p/w342/udDclJoHjfjb8Ekgsd4FDteOkCU.jpg", Utils.CreatePosterURL(POSTER, 270));
+        assertEquals("http://image.tmdb.org/t/p/w92/udDclJoHjfjb8Ekgsd4FDteOkCU.jpg", Utils.CreatePosterURL(POSTER, 80));
+    }
+
+    @Test
+    public void CreatePosterURL_leavesOtherURLsUnchanged() {
+        assertEquals("http://example.com/poster.jpg", Utils.CreatePosterURL("http://example.com/poster.jpg", 270));
+        assertNull(Utils.CreatePosterURL(null, 270));
+    }
+}
@@ -0,0 +1,103 @@
+package android.example.com.benchmark;
+
+import android.example.com.CatalogueSnapshot;
+import android.example.com.Utils;
+import android.example.com.Database.Movie;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to have the movies of a discover list ready to display at startup: parsing the JSON
+ * of the Movie DB API response, against reading the binary snapshot of the same movies.
+ * <p>Displaying a screenful only needs the IDs and image paths of its movies, which is all
+ * the "Screenful" benchmarks use; the "All" benchmarks use every field of every movie.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CatalogueSnapshotBenchmark {
+
+    // Movies in view on first frame, in the portrait grid.
+    private static final int SCREENFUL = 6;
+
+    @Param({"20", "60", "500"})
+    public int numberResults;
+
+    private byte[] mMoviesBytes;
+    private File mSnapshotFile;
+
+    @Setup
+    public void setup() throws IOException {
+        mMoviesBytes = Payloads.create(Payloads.DISCOVER_MOVIES, numberResults).getBytes(Payloads.UTF_8);
+
+        mSnapshotFile = File.createTempFile("catalogue", ".snapshot");
+        CatalogueSnapshot.write(mSnapshotFile, Utils.parseMoviesJson(new ByteArrayInputStream(mMoviesBytes)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        mSnapshotFile.delete();
+    }
+
+    /**
+     * Use ID and image path of movies, as binding them does.
+     */
+    private static void useScreenful(List<Movie> movies, Blackhole blackhole) {
+        for(int index = 0; index < Math.min(SCREENFUL, movies.size()); index++) {
+            Movie movie = movies.get(index);
+            blackhole.consume(movie.getIdentifier());
+            blackhole.consume(movie.getImagePath());
+        }
+    }
+
+    /**
+     * Use every field of movies.
+     */
+    private static void useAll(List<Movie> movies, Blackhole blackhole) {
+        for(Movie movie: movies) {
+            blackhole.consume(movie.getIdentifier());
+            blackhole.consume(movie.getTitle());
+            blackhole.consume(movie.getImagePath());
+            blackhole.consume(movie.getOverview());
+            blackhole.consume(movie.getRating());
+            blackhole.consume(movie.getReleaseYear());
+        }
+    }
+
+    @Benchmark
+    public void parseJsonScreenful(Blackhole blackhole) throws IOException {
+        List<Movie> movies = Utils.parseMoviesJson(new ByteArrayInputStream(mMoviesBytes));
+        useScreenful(movies, blackhole);
+    }
+
+    @Benchmark
+    public void readSnapshotScreenful(Blackhole blackhole) {
+        useScreenful(CatalogueSnapshot.read(mSnapshotFile).getMovies(), blackhole);
+    }
+
+    @Benchmark
+    public void parseJsonAll(Blackhole blackhole) throws IOException {
+        List<Movie> movies = Utils.parseMoviesJson(new ByteArrayInputStream(mMoviesBytes));
+        useAll(movies, blackhole);
+    }
+
+    @Benchmark
+    public void readSnapshotAll(Blackhole blackhole) {
+        useAll(CatalogueSnapshot.read(mSnapshotFile).getMovies(), blackhole);
+    }
+}
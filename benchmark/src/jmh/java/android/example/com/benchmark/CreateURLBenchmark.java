@@ -0,0 +1,44 @@
+package android.example.com.benchmark;
+
+import android.example.com.Utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of building Movie DB API URLs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CreateURLBenchmark {
+
+    private static final int MOVIE_IDENTIFIER = 475557;
+
+    @Benchmark
+    public URL createDiscoverMostPopularURL() {
+        return Utils.CreateDiscoverMoviesURL(true);
+    }
+
+    @Benchmark
+    public URL createDiscoverHighestRatedURL() {
+        return Utils.CreateDiscoverMoviesURL(false);
+    }
+
+    @Benchmark
+    public URL createGetVideosURL() {
+        return Utils.CreateGetVideosURL(MOVIE_IDENTIFIER);
+    }
+
+    @Benchmark
+    public URL createGetReviewsURL() {
+        return Utils.CreateGetReviewsURL(MOVIE_IDENTIFIER);
+    }
+}
@@ -0,0 +1,158 @@
+package android.example.com.benchmark;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.example.com.MovieList;
+import android.example.com.Utils;
+import android.example.com.Database.Movie;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap kept by, and allocation to read, the window of pages of discovered movies the pager
+ * holds, read from a cursor of the catalogue: as a list of Movies, as Room read them, which
+ * was kept alongside the MovieList copied from it, against a MovieList read straight from
+ * the cursor.
+ * <p>Strings are created anew each time they are read from the cursor, as they are when read
+ * from the database. Each page repeats a movie of the page before, as the Movie DB API can.
+ * The "retain" benchmarks report heap kept in the bytesPerMovie counter, as for
+ * {@link MovieListBenchmark}, though the heap kept by the default window of pages is too
+ * small to measure that way; allocation per read of the "read" benchmarks is the
+ * gc.alloc.rate.norm of the GC profiler.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DiscoverMoviesPagerBenchmark {
+
+    private static final int MOVIES_PER_PAGE = 20;
+
+    private static final String[] COLUMNS = { "Identifier", "Title", "ImagePath", "Overview", "Rating", "ReleaseYear" };
+
+    // Pages in memory: the app's default, and the most the Movie DB API serves.
+    @Param({"10", "500"})
+    public int pagesInMemory;
+
+    private MatrixCursor mCursor;
+
+    /**
+     * Movies as the pager held them: both the list of Movies read by Room, kept as the last
+     * value of its LiveData, and the MovieList copied from it, without repeats.
+     */
+    private static class RoomMovies extends AbstractList<Movie> {
+        final List<Movie> read;
+        final MovieList movies;
+
+        RoomMovies(List<Movie> read, MovieList movies) {
+            this.read = read;
+            this.movies = movies;
+        }
+
+        @Override
+        public Movie get(int position) {
+            return movies.get(position);
+        }
+
+        @Override
+        public int size() {
+            return movies.size();
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] moviesBytes = Payloads.create(Payloads.DISCOVER_MOVIES, MOVIES_PER_PAGE).getBytes(Payloads.UTF_8);
+        List<Movie> page = Utils.parseMoviesJson(new ByteArrayInputStream(moviesBytes));
+
+        // String held as a builder, so the cursor creates a new string each time it is read.
+        mCursor = new MatrixCursor(COLUMNS, pagesInMemory * MOVIES_PER_PAGE);
+        for(int number = 0; number < pagesInMemory; number++) {
+            for(int position = 0; position < MOVIES_PER_PAGE; position++) {
+                Movie movie = page.get(position);
+                int identifier = ((position == 0) && (number > 0)) ? ((number - 1) * MOVIES_PER_PAGE) + 1 : (number * MOVIES_PER_PAGE) + position;
+                mCursor.addRow(new Object[] { identifier, text(movie.getTitle() + number), text(movie.getImagePath()),
+                        text(movie.getOverview() + number), movie.getRating(), movie.getReleaseYear() });
+            }
+        }
+    }
+
+    private static CharSequence text(String value) {
+        return (value == null) ? null : new StringBuilder(value);
+    }
+
+    /**
+     * Read movies as Room did, each a Movie, then copy them without repeats into columns.
+     */
+    private RoomMovies readAsRoom() {
+        Cursor cursor = mCursor;
+        cursor.moveToPosition(-1);
+        ArrayList<Movie> read = new ArrayList<>(cursor.getCount());
+        while(cursor.moveToNext())
+            read.add(new Movie(cursor.getInt(0), cursor.getString(1), cursor.getString(2), cursor.getString(3), cursor.getDouble(4), cursor.getInt(5)));
+
+        MovieList.Builder unique = new MovieList.Builder(read.size());
+        HashSet<Integer> identifiers = new HashSet<>();
+        for(Movie movie: read) {
+            if(identifiers.add(movie.getIdentifier()))
+                unique.add(movie);
+        }
+
+        return new RoomMovies(read, unique.build());
+    }
+
+    /**
+     * Read movies straight into columns, without repeats, as the pager does.
+     */
+    private MovieList readColumns() {
+        mCursor.moveToPosition(-1);
+        return MovieList.readUnique(mCursor);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void retainRoomMovies(MovieListBenchmark.Footprint footprint) throws Exception {
+        footprint.measure(new Callable<List<Movie>>() {
+            @Override
+            public List<Movie> call() {
+                return readAsRoom();
+            }
+        });
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void retainMovieList(MovieListBenchmark.Footprint footprint) throws Exception {
+        footprint.measure(new Callable<List<Movie>>() {
+            @Override
+            public List<Movie> call() {
+                return readColumns();
+            }
+        });
+    }
+
+    @Benchmark
+    public List<Movie> readRoomMovies() {
+        return readAsRoom();
+    }
+
+    @Benchmark
+    public List<Movie> readMovieList() {
+        return readColumns();
+    }
+}
@@ -0,0 +1,147 @@
+package android.example.com.benchmark;
+
+import android.example.com.MovieList;
+import android.example.com.Utils;
+import android.example.com.Database.Movie;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap kept by a long run of pages of discovered movies held as a list of Movies, against a
+ * MovieList, and allocation to bind their posters.
+ * <p>The "retain" benchmarks build each list from movies as read from the database, each with
+ * strings of its own, and measure the heap it keeps after garbage collection, reported in the
+ * bytesPerMovie counter of each iteration (JMH sums the counter over iterations in its
+ * summary). The "bind" benchmarks build the poster URLs of a screenful of movies,
+ * as binding them does; allocation per bind is the gc.alloc.rate.norm of the GC profiler.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MovieListBenchmark {
+
+    // Movies in view, in the portrait grid.
+    private static final int SCREENFUL = 6;
+
+    // Width of grid cell of 1080 pixel wide screen.
+    private static final int DISPLAY_WIDTH = 540;
+
+    @Param({"1000", "10000"})
+    public int numberResults;
+
+    private List<Movie> mParsed;
+    private List<Movie> mMovies;
+    private MovieList mMovieList;
+
+    /**
+     * Heap kept by list, per movie.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long bytesPerMovie;
+        private List<Movie> mRetained; // List last measured, kept until next is measured.
+
+        /**
+         * Measure heap kept by list of movies created.
+         */
+        void measure(Callable<List<Movie>> create) throws Exception {
+            mRetained = null;
+            long before = usedHeap();
+            mRetained = create.call();
+            bytesPerMovie = (usedHeap() - before) / mRetained.size();
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] moviesBytes = Payloads.create(Payloads.DISCOVER_MOVIES, numberResults).getBytes(Payloads.UTF_8);
+        mParsed = Utils.parseMoviesJson(new ByteArrayInputStream(moviesBytes));
+        mMovies = readMovies();
+        mMovieList = MovieList.copyOf(mMovies);
+    }
+
+    /**
+     * Create movies as read from the database: every movie and string a new object.
+     */
+    private List<Movie> readMovies() {
+        ArrayList<Movie> movies = new ArrayList<>(mParsed.size());
+        for(Movie movie: mParsed)
+            movies.add(new Movie(movie.getIdentifier(), new String(movie.getTitle().toCharArray()), new String(movie.getImagePath().toCharArray()),
+                    new String(movie.getOverview().toCharArray()), movie.getRating(), movie.getReleaseYear()));
+        return movies;
+    }
+
+    /**
+     * Get heap in use just after garbage has been collected.
+     */
+    private static long usedHeap() {
+        System.gc();
+        long used = 0;
+        for(MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if((pool.getType() == MemoryType.HEAP) && (usage != null))
+                used += usage.getUsed();
+        }
+        return used;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void retainMovies(Footprint footprint) throws Exception {
+        footprint.measure(new Callable<List<Movie>>() {
+            @Override
+            public List<Movie> call() {
+                return readMovies();
+            }
+        });
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void retainMovieList(Footprint footprint) throws Exception {
+        footprint.measure(new Callable<List<Movie>>() {
+            @Override
+            public List<Movie> call() {
+                return MovieList.copyOf(readMovies());
+            }
+        });
+    }
+
+    @Benchmark
+    public void bindMovies(Blackhole blackhole) {
+        for(int position = 0; position < SCREENFUL; position++) {
+            Movie movie = mMovies.get(position);
+            blackhole.consume(movie.getIdentifier());
+            blackhole.consume(Utils.CreatePosterURL(movie.getImagePath(), DISPLAY_WIDTH));
+        }
+    }
+
+    @Benchmark
+    public void bindMovieList(Blackhole blackhole) {
+        for(int position = 0; position < SCREENFUL; position++) {
+            blackhole.consume(mMovieList.getIdentifier(position));
+            blackhole.consume(mMovieList.getPosterURL(position, DISPLAY_WIDTH));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package android.example.com.benchmark;
+
+import android.example.com.Review;
+import android.example.com.Utils;
+import android.example.com.Video;
+import android.example.com.Database.Movie;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of parsing Movie DB API responses, from a string (as the loaders used to
+ * deliver) and from a stream (as the loaders now parse the HTTP body).
+ * <p>Run with the GC profiler to see allocation rate per operation.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParseJsonBenchmark {
+
+    @Param({"20", "500", "10000"})
+    public int numberResults;
+
+    private String mMoviesJSON;
+    private byte[] mMoviesBytes;
+    private String mVideosJSON;
+    private byte[] mVideosBytes;
+    private String mReviewsJSON;
+    private byte[] mReviewsBytes;
+
+    @Setup
+    public void setup() {
+        mMoviesJSON = Payloads.create(Payloads.DISCOVER_MOVIES, numberResults);
+        mMoviesBytes = mMoviesJSON.getBytes(Payloads.UTF_8);
+        mVideosJSON = Payloads.create(Payloads.MOVIE_VIDEOS, numberResults);
+        mVideosBytes = mVideosJSON.getBytes(Payloads.UTF_8);
+        mReviewsJSON = Payloads.create(Payloads.MOVIE_REVIEWS, numberResults);
+        mReviewsBytes = mReviewsJSON.getBytes(Payloads.UTF_8);
+    }
+
+    @Benchmark
+    public ArrayList<Movie> parseMoviesString() {
+        return Utils.parseMoviesJson(mMoviesJSON);
+    }
+
+    @Benchmark
+    public List<Movie> parseMoviesStream() throws IOException {
+        return Utils.parseMoviesJson(new ByteArrayInputStream(mMoviesBytes));
+    }
+
+    @Benchmark
+    public ArrayList<Video> parseVideosString() {
+        return Utils.parseVideosJson(mVideosJSON);
+    }
+
+    @Benchmark
+    public List<Video> parseVideosStream() throws IOException {
+        return Utils.parseVideosJson(new ByteArrayInputStream(mVideosBytes));
+    }
+
+    @Benchmark
+    public ArrayList<Review> parseReviewsString() {
+        return Utils.parseReviewsJson(mReviewsJSON);
+    }
+
+    @Benchmark
+    public List<Review> parseReviewsStream() throws IOException {
+        return Utils.parseReviewsJson(new ByteArrayInputStream(mReviewsBytes));
+    }
+}
@@ -0,0 +1,83 @@
+package android.example.com.benchmark;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Recorded Movie DB API responses, scaled to the number of results to benchmark.
+ */
+public class Payloads {
+
+    public static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    public static final String DISCOVER_MOVIES = "discover_movies_page.json";
+    public static final String MOVIE_VIDEOS = "movie_videos.json";
+    public static final String MOVIE_REVIEWS = "movie_reviews.json";
+
+    // Added to identifier of each repeated movie so every movie stays distinct.
+    private static final int IDENTIFIER_STRIDE = 1000000;
+
+    /**
+     * Create response with specified number of results by repeating the results of
+     * recorded response. The Movie DB API returns at most 20 results per page, so this
+     * stands in for a long run of pages.
+     * @param name Name of recorded response.
+     * @param numberResults Number of results required.
+     * @return Response as JSON string.
+     */
+    public static String create(String name, int numberResults) {
+        try {
+            JSONObject response = new JSONObject(read(name));
+            JSONArray recorded = response.getJSONArray("results");
+            JSONArray results = new JSONArray();
+            for(int index = 0; index < numberResults; index++) {
+                JSONObject result = new JSONObject(recorded.getJSONObject(index % recorded.length()).toString());
+                int repeat = index / recorded.length();
+                Object identifier = result.get("id");
+                if(identifier instanceof Integer)
+                    result.put("id", (Integer)identifier + (repeat * IDENTIFIER_STRIDE));
+                else
+                    result.put("id", identifier + "-" + repeat);
+                results.put(result);
+            }
+            response.put("results", results);
+            return response.toString();
+        }
+        catch(JSONException e) {
+            throw new IllegalStateException("Invalid recorded response " + name, e);
+        }
+    }
+
+    /**
+     * Read recorded response from resources.
+     * @param name Name of recorded response.
+     * @return Response as JSON string.
+     */
+    private static String read(String name) {
+        InputStream stream = Payloads.class.getClassLoader().getResourceAsStream(name);
+        if(stream == null)
+            throw new IllegalStateException("Missing recorded response " + name);
+
+        try {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int count;
+                while((count = stream.read(buffer)) != -1)
+                    bytes.write(buffer, 0, count);
+                return new String(bytes.toByteArray(), UTF_8);
+            } finally {
+                stream.close();
+            }
+        }
+        catch(IOException e) {
+            throw new IllegalStateException("Unreadable recorded response " + name, e);
+        }
+    }
+}